@@ -0,0 +1,72 @@
+package com.order_invoice.benchmark;
+
+import com.order_invoice.OrderInvoiceApiApplication;
+import com.order_invoice.entity.InvoiceResponse;
+import com.order_invoice.entity.OrderItem;
+import com.order_invoice.entity.OrderRequest;
+import com.order_invoice.repository.CustomerOrderRepository;
+import com.order_invoice.repository.OrderRepository;
+import com.order_invoice.service.InvoiceService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end {@link InvoiceService#generateInvoice} (validation, batched persistence and pricing)
+ * against the application's in-memory H2 database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GenerateInvoiceBenchmark {
+
+    @Param({"1", "10", "100", "1000"})
+    private int orderSize;
+
+    private ConfigurableApplicationContext context;
+
+    private InvoiceService invoiceService;
+
+    private OrderRepository orderRepository;
+
+    private CustomerOrderRepository customerOrderRepository;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = new SpringApplicationBuilder(OrderInvoiceApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.main.banner-mode=off", "logging.level.root=WARN")
+                .run();
+        invoiceService = context.getBean(InvoiceService.class);
+        orderRepository = context.getBean(OrderRepository.class);
+        customerOrderRepository = context.getBean(CustomerOrderRepository.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void clearOrders() {
+        orderRepository.deleteAllInBatch();
+        customerOrderRepository.deleteAllInBatch();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public InvoiceResponse generateInvoice() {
+        List<OrderItem> items = new ArrayList<>(orderSize);
+        for (int i = 0; i < orderSize; i++) {
+            items.add(new OrderItem(null, "Product " + i, i % 2 == 0 ? "Electronics" : "Grocery", 1 + i % 9, 1_999));
+        }
+        return invoiceService.generateInvoice(new OrderRequest(null, items));
+    }
+}
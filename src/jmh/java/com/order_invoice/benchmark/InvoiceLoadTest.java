@@ -0,0 +1,240 @@
+package com.order_invoice.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Closed-loop HTTP load generator for a running instance: every client (one virtual thread each)
+ * sends requests back to back, picking each one's endpoint from the weighted {@code loadtest.mix},
+ * and throughput plus latency percentiles are reported per endpoint once the run ends.
+ * <p>
+ * Endpoints: {@code invoice} posts a {@code loadtest.lines}-line order to
+ * {@code POST /orders/invoice}; {@code order} reads back one of the orders posted before the run
+ * ({@code loadtest.seed-orders} of them); {@code orders}, {@code category} and {@code bulk} read a
+ * 100-item page of their listing; {@code summary} reads {@code /orders/summary} and {@code invoices}
+ * a 100-line page of {@code /orders/invoice}. Clients draw endpoints from generators seeded with
+ * {@code loadtest.seed}, so runs with the same settings send the same sequence per client.
+ *
+ * <pre>
+ * ./mvnw test-compile exec:exec@load-test -Pbenchmark -Dloadtest.clients=1000 -Dloadtest.seconds=30
+ * ./mvnw test-compile exec:exec@load-test -Pbenchmark -Dloadtest.mix=invoice:2,order:4,orders:1,summary:1
+ * </pre>
+ */
+public final class InvoiceLoadTest {
+
+    private static final Pattern ORDER_ID = Pattern.compile("\"orderId\":(\\d+)");
+
+    private InvoiceLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = System.getProperty("loadtest.url", "http://localhost:8080");
+        int clients = Integer.getInteger("loadtest.clients", 1000);
+        int lines = Integer.getInteger("loadtest.lines", 10);
+        Duration warmup = Duration.ofSeconds(Long.getLong("loadtest.warmup-seconds", 10));
+        Duration duration = Duration.ofSeconds(Long.getLong("loadtest.seconds", 30));
+        String mix = System.getProperty("loadtest.mix", "invoice");
+        int seedOrders = Integer.getInteger("loadtest.seed-orders", 100);
+        long seed = Long.getLong("loadtest.seed", 1);
+
+        HttpClient httpClient = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        HttpRequest post = HttpRequest.newBuilder(URI.create(baseUrl + "/orders/invoice"))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(60))
+                .POST(HttpRequest.BodyPublishers.ofString(order(lines)))
+                .build();
+        List<Long> orderIds = seed(httpClient, post, seedOrders);
+        Endpoint[] endpoints = endpoints(mix, baseUrl, post, orderIds);
+        int totalWeight = Arrays.stream(endpoints).mapToInt(Endpoint::weight).sum();
+
+        long measureFrom = System.nanoTime() + warmup.toNanos();
+        long measureUntil = measureFrom + duration.toNanos();
+        AtomicLongArray errors = new AtomicLongArray(endpoints.length);
+        LatencyRecorder[][] recorders = new LatencyRecorder[endpoints.length][clients];
+
+        System.out.printf("%d clients, %d-line orders, mix %s against %s: %ds warmup, %ds measured%n",
+                clients, lines, mix, baseUrl, warmup.toSeconds(), duration.toSeconds());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                LatencyRecorder[] clientRecorders = new LatencyRecorder[endpoints.length];
+                for (int e = 0; e < endpoints.length; e++) {
+                    clientRecorders[e] = recorders[e][i] = new LatencyRecorder();
+                }
+                SplittableRandom random = new SplittableRandom(seed + i);
+                executor.submit(() -> {
+                    long now;
+                    while ((now = System.nanoTime()) < measureUntil) {
+                        int e = pick(endpoints, random.nextInt(totalWeight));
+                        HttpRequest[] requests = endpoints[e].requests();
+                        boolean ok;
+                        try {
+                            HttpRequest request = requests[random.nextInt(requests.length)];
+                            ok = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+                        } catch (Exception ex) {
+                            ok = false;
+                        }
+                        if (now >= measureFrom) {
+                            if (ok) {
+                                clientRecorders[e].record(System.nanoTime() - now);
+                            } else {
+                                errors.incrementAndGet(e);
+                            }
+                        }
+                    }
+                });
+            }
+        }
+
+        System.out.printf("%-10s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        long allErrors = 0;
+        for (int e = 0; e < endpoints.length; e++) {
+            report(endpoints[e].name(), LatencyRecorder.merge(recorders[e]), errors.get(e), duration);
+            allErrors += errors.get(e);
+        }
+        if (endpoints.length > 1) {
+            report("all", LatencyRecorder.merge(Arrays.stream(recorders).flatMap(Arrays::stream)
+                    .toArray(LatencyRecorder[]::new)), allErrors, duration);
+        }
+    }
+
+    // Posts orders before the run for the order endpoint to read back, and returns their IDs
+    private static List<Long> seed(HttpClient httpClient, HttpRequest post, int orders) throws Exception {
+        List<Long> orderIds = new ArrayList<>(orders);
+        for (int i = 0; i < orders; i++) {
+            HttpResponse<String> response = httpClient.send(post, HttpResponse.BodyHandlers.ofString());
+            Matcher matcher = ORDER_ID.matcher(response.body());
+            if (response.statusCode() == 200 && matcher.find()) {
+                orderIds.add(Long.parseLong(matcher.group(1)));
+            }
+        }
+        return orderIds;
+    }
+
+    // Parses name[:weight],... into the endpoints to load
+    private static Endpoint[] endpoints(String mix, String baseUrl, HttpRequest post, List<Long> orderIds) {
+        List<Endpoint> endpoints = new ArrayList<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            String name = parts[0];
+            int weight = parts.length > 1 ? Integer.parseInt(parts[1]) : 1;
+            HttpRequest[] requests = switch (name) {
+                case "invoice" -> new HttpRequest[]{post};
+                case "order" -> {
+                    if (orderIds.isEmpty()) {
+                        throw new IllegalStateException("No order IDs to read back; were orders seeded in sync mode?");
+                    }
+                    yield orderIds.stream().map(id -> get(baseUrl, "/orders/invoice/" + id)).toArray(HttpRequest[]::new);
+                }
+                case "orders" -> new HttpRequest[]{get(baseUrl, "/orders?limit=100")};
+                case "category" -> new HttpRequest[]{get(baseUrl, "/orders/category/Electronics?limit=100")};
+                case "bulk" -> new HttpRequest[]{get(baseUrl, "/orders/bulk?limit=100")};
+                case "summary" -> new HttpRequest[]{get(baseUrl, "/orders/summary")};
+                case "invoices" -> new HttpRequest[]{get(baseUrl, "/orders/invoice?limit=100")};
+                default -> throw new IllegalArgumentException("Unknown endpoint in loadtest.mix: " + name);
+            };
+            endpoints.add(new Endpoint(name, weight, requests));
+        }
+        return endpoints.toArray(Endpoint[]::new);
+    }
+
+    private static HttpRequest get(String baseUrl, String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(60))
+                .GET()
+                .build();
+    }
+
+    private static int pick(Endpoint[] endpoints, int ticket) {
+        int e = 0;
+        while (ticket >= endpoints[e].weight()) {
+            ticket -= endpoints[e].weight();
+            e++;
+        }
+        return e;
+    }
+
+    private static void report(String endpoint, long[] latencies, long errors, Duration duration) {
+        Arrays.sort(latencies);
+        System.out.printf("%-10s %9d %7d %9.1f", endpoint, latencies.length, errors,
+                latencies.length / (double) duration.toSeconds());
+        if (latencies.length > 0) {
+            System.out.printf(" %9.1f %9.1f %9.1f %9.1f %9.1f",
+                    percentile(latencies, 50), percentile(latencies, 90), percentile(latencies, 99),
+                    percentile(latencies, 99.9), latencies[latencies.length - 1] / 1e6);
+        }
+        System.out.println();
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1e6;
+    }
+
+    private static String order(int lines) {
+        String[] categories = {"Electronics", "Clothing", "Grocery", "Books"};
+        StringBuilder json = new StringBuilder("{\"items\":[");
+        for (int i = 0; i < lines; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"productName\":\"Product ").append(i)
+                    .append("\",\"category\":\"").append(categories[i % categories.length])
+                    .append("\",\"quantity\":").append(1 + i % 9)
+                    .append(",\"unitPrice\":19.99}");
+        }
+        return json.append("]}").toString();
+    }
+
+    /**
+     * An entry of {@code loadtest.mix}: requests are drawn from {@code requests} at random.
+     */
+    private record Endpoint(String name, int weight, HttpRequest[] requests) {
+    }
+
+    /**
+     * Per-client latency buffer; only its own virtual thread writes to it.
+     */
+    private static final class LatencyRecorder {
+
+        private long[] nanos = new long[1024];
+
+        private int size;
+
+        void record(long latencyNanos) {
+            if (size == nanos.length) {
+                nanos = Arrays.copyOf(nanos, size * 2);
+            }
+            nanos[size++] = latencyNanos;
+        }
+
+        static long[] merge(LatencyRecorder[] recorders) {
+            int total = 0;
+            for (LatencyRecorder recorder : recorders) {
+                total += recorder.size;
+            }
+            long[] merged = new long[total];
+            int offset = 0;
+            for (LatencyRecorder recorder : recorders) {
+                System.arraycopy(recorder.nanos, 0, merged, offset, recorder.size);
+                offset += recorder.size;
+            }
+            return merged;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.order_invoice.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.order_invoice.entity.InvoiceItem;
+import com.order_invoice.entity.InvoiceResponse;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full {@link InvoiceResponse} JSON serialization, including the money serializers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InvoiceSerializationBenchmark {
+
+    @Param({"1", "10", "100", "1000"})
+    private int orderSize;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private InvoiceResponse response;
+
+    @Setup
+    public void setUp() {
+        List<InvoiceItem> items = new ArrayList<>(orderSize);
+        long grandTotal = 0;
+        for (int i = 0; i < orderSize; i++) {
+            long lineTotal = 2_359L * (1 + i % 9);
+            items.add(new InvoiceItem("Product " + i, "Electronics", 1 + i % 9, 1_999, lineTotal));
+            grandTotal += lineTotal;
+        }
+        response = new InvoiceResponse(items, grandTotal);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws Exception {
+        return objectMapper.writeValueAsBytes(response);
+    }
+}
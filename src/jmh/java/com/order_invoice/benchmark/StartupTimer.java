@@ -0,0 +1,109 @@
+package com.order_invoice.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Launches the application jar {@code startup.runs} times and reports, for each launch, the time
+ * from starting the JVM to the first {@code POST /orders/invoice} answered with 200. Compare a
+ * plain build against {@code -Pcds} by pointing {@code startup.jar} and {@code startup.jvm-args}
+ * at each.
+ *
+ * <pre>
+ * ./mvnw test-compile exec:exec@startup-time -Pbenchmark
+ * ./mvnw test-compile exec:exec@startup-time -Pbenchmark -Dstartup.jar=target/cds/Order_nvoice_API-0.0.1-SNAPSHOT.jar \
+ *     -Dstartup.jvm-args="-XX:SharedArchiveFile=target/cds/application.jsa -Dspring.aot.enabled=true -Dspring.profiles.active=prod"
+ * </pre>
+ */
+public final class StartupTimer {
+
+    private static final Duration TIMEOUT = Duration.ofMinutes(2);
+
+    private static final String ORDER = """
+            {"items":[{"productName":"Laptop","category":"Electronics","quantity":1,"unitPrice":500.00}]}""";
+
+    private StartupTimer() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path jar = Path.of(System.getProperty("startup.jar"));
+        String jvmArgs = System.getProperty("startup.jvm-args", "").trim();
+        int runs = Integer.getInteger("startup.runs", 5);
+
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(1))
+                .build();
+
+        System.out.printf("%d launches of %s %s%n", runs, jar, jvmArgs);
+        long[] millis = new long[runs];
+        for (int run = 0; run < runs; run++) {
+            millis[run] = launch(httpClient, jar, jvmArgs);
+            System.out.printf("run %d: first successful POST /orders/invoice after %d ms%n", run + 1, millis[run]);
+        }
+
+        Arrays.sort(millis);
+        System.out.printf("time to first invoice ms: min=%d median=%d max=%d%n",
+                millis[0], millis[runs / 2], millis[runs - 1]);
+    }
+
+    private static long launch(HttpClient httpClient, Path jar, String jvmArgs) throws Exception {
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        if (!jvmArgs.isEmpty()) {
+            command.addAll(Arrays.asList(jvmArgs.split("\\s+")));
+        }
+        command.addAll(List.of("-jar", jar.toString(), "--server.port=" + port));
+
+        File log = Files.createTempFile("startup-", ".log").toFile();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/orders/invoice"))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(30))
+                .POST(HttpRequest.BodyPublishers.ofString(ORDER))
+                .build();
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log)
+                .start();
+        try {
+            long deadline = start + TIMEOUT.toNanos();
+            while (System.nanoTime() < deadline) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("Application exited with " + process.exitValue() + ", see " + log);
+                }
+                try {
+                    if (httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        return (System.nanoTime() - start) / 1_000_000;
+                    }
+                } catch (ConnectException ex) {
+                    // Not listening yet
+                }
+                Thread.sleep(5);
+            }
+            throw new IllegalStateException("No successful invoice within " + TIMEOUT + ", see " + log);
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
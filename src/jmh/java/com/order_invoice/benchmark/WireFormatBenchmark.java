@@ -0,0 +1,81 @@
+package com.order_invoice.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.order_invoice.entity.InvoiceItem;
+import com.order_invoice.entity.InvoiceResponse;
+import com.order_invoice.entity.OrderItem;
+import com.order_invoice.entity.OrderRequest;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading an {@link OrderRequest} and writing an {@link InvoiceResponse} as JSON, Smile and CBOR.
+ * Payload sizes for each format and order size are printed during setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WireFormatBenchmark {
+
+    @Param({"json", "smile", "cbor"})
+    private String format;
+
+    @Param({"10", "1000"})
+    private int orderSize;
+
+    private ObjectMapper objectMapper;
+
+    private byte[] request;
+
+    private InvoiceResponse response;
+
+    @Setup
+    public void setUp() throws Exception {
+        objectMapper = switch (format) {
+            case "smile" -> new ObjectMapper(SmileFactory.builder()
+                    .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                    .build());
+            case "cbor" -> new ObjectMapper(new CBORFactory());
+            default -> new ObjectMapper();
+        };
+
+        List<OrderItem> orderItems = new ArrayList<>(orderSize);
+        List<InvoiceItem> invoiceItems = new ArrayList<>(orderSize);
+        long grandTotal = 0;
+        for (int i = 0; i < orderSize; i++) {
+            String category = i % 2 == 0 ? "Electronics" : "Books";
+            long lineTotal = 2_359L * (1 + i % 9);
+            orderItems.add(new OrderItem(null, "Product " + i, category, 1 + i % 9, 1_999));
+            invoiceItems.add(new InvoiceItem("Product " + i, category, 1 + i % 9, 1_999, lineTotal));
+            grandTotal += lineTotal;
+        }
+        OrderRequest order = new OrderRequest();
+        order.setCustomerId("customer-1");
+        order.setItems(orderItems);
+        request = objectMapper.writeValueAsBytes(order);
+        response = new InvoiceResponse(invoiceItems, grandTotal);
+        response.setOrderId(1L);
+
+        System.out.printf("%n%s, %d lines: request %d bytes, response %d bytes%n",
+                format, orderSize, request.length, objectMapper.writeValueAsBytes(response).length);
+    }
+
+    @Benchmark
+    public OrderRequest readRequest() throws Exception {
+        return objectMapper.readValue(request, OrderRequest.class);
+    }
+
+    @Benchmark
+    public byte[] writeResponse() throws Exception {
+        return objectMapper.writeValueAsBytes(response);
+    }
+}
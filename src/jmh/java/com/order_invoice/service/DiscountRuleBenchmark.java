@@ -0,0 +1,69 @@
+package com.order_invoice.service;
+
+import com.order_invoice.config.InvoiceProperties;
+import com.order_invoice.entity.DiscountRule;
+import com.order_invoice.entity.InvoiceResponse;
+import com.order_invoice.entity.OrderItem;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prices a 100-line order for a customer with rules of its own against growing rule sets
+ * (per-category tiers, any-category tiers and customer-specific rules). Per-order time should
+ * stay flat as the rule count grows, since the rules are compiled into tiers at load time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DiscountRuleBenchmark {
+
+    private static final int ORDER_SIZE = 100;
+
+    private static final int CATEGORIES = 50;
+
+    private static final int CUSTOMERS = 20;
+
+    @Param({"1", "100", "500", "1000"})
+    private int ruleCount;
+
+    private InvoiceService invoiceService;
+
+    private List<OrderItem> items;
+
+    @Setup
+    public void setUp() {
+        InvoiceProperties invoiceProperties = new InvoiceProperties();
+        invoiceProperties.getPricing().setDiscountRules(rules(ruleCount));
+        invoiceService = new InvoiceService(null, null, null, null, new TaxRateRegistry(invoiceProperties),
+                new DiscountRuleRegistry(invoiceProperties), null, null, invoiceProperties,
+                new InvoiceMetrics(new SimpleMeterRegistry()));
+
+        items = new ArrayList<>(ORDER_SIZE);
+        for (int i = 0; i < ORDER_SIZE; i++) {
+            items.add(new OrderItem((long) i, "Product " + i, "Category-" + (i % CATEGORIES), 1 + i % 25, 1_999 + i));
+        }
+    }
+
+    @Benchmark
+    public InvoiceResponse priceOrder() {
+        return invoiceService.price("customer-3", items);
+    }
+
+    private static List<DiscountRule> rules(int count) {
+        List<DiscountRule> rules = new ArrayList<>(count);
+        rules.add(new DiscountRule(null, null, 5, 0.10));
+        for (int i = 1; i < count; i++) {
+            String category = i % 10 == 0 ? null : "category-" + (i % CATEGORIES);
+            String customer = i % 4 == 0 ? "customer-" + (i % CUSTOMERS) : null;
+            rules.add(new DiscountRule(category, customer, 1 + (i * 7) % 20, (1 + i % 30) / 100.0));
+        }
+        return rules;
+    }
+}
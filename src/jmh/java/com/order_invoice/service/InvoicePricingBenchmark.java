@@ -0,0 +1,56 @@
+package com.order_invoice.service;
+
+import com.order_invoice.config.InvoiceProperties;
+import com.order_invoice.entity.InvoiceItem;
+import com.order_invoice.entity.OrderItem;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prices whole orders through {@link InvoiceService#processItem} for increasing order sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InvoicePricingBenchmark {
+
+    private static final String[] CATEGORIES = {"Electronics", "clothing", "GROCERY", "Furniture"};
+
+    @Param({"1", "10", "100", "1000"})
+    private int orderSize;
+
+    private InvoiceService invoiceService;
+
+    private List<OrderItem> items;
+
+    @Setup
+    public void setUp() {
+        invoiceService = new InvoiceService(null, null, null, null, new TaxRateRegistry(new InvoiceProperties()),
+                new DiscountRuleRegistry(new InvoiceProperties()), null, null, new InvoiceProperties(),
+                new InvoiceMetrics(new SimpleMeterRegistry()));
+
+        items = new ArrayList<>(orderSize);
+        for (int i = 0; i < orderSize; i++) {
+            items.add(new OrderItem((long) i, "Product " + i, CATEGORIES[i % CATEGORIES.length], 1 + i % 9, 1_999 + i));
+        }
+    }
+
+    @Benchmark
+    public long priceOrder(Blackhole blackhole) {
+        long grandTotal = 0;
+        for (OrderItem item : items) {
+            InvoiceItem invoiceItem = invoiceService.processItem(item);
+            blackhole.consume(invoiceItem);
+            grandTotal += invoiceItem.getLineTotal();
+        }
+        return grandTotal;
+    }
+}
@@ -0,0 +1,38 @@
+package com.order_invoice.service;
+
+import com.order_invoice.config.InvoiceProperties;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Case-insensitive tax-rate lookups across known, differently-cased and unknown categories.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaxRateLookupBenchmark {
+
+    @Param({"Electronics", "CLOTHING", "grocery", "Furniture"})
+    private String category;
+
+    private TaxRateRegistry taxRateRegistry;
+
+    @Setup
+    public void setUp() {
+        taxRateRegistry = new TaxRateRegistry(new InvoiceProperties());
+    }
+
+    @Benchmark
+    public double getTaxRate() {
+        return taxRateRegistry.getTaxRate(category);
+    }
+
+    @Benchmark
+    public long getTaxRatePpm() {
+        return taxRateRegistry.getTaxRatePpm(category);
+    }
+}
@@ -0,0 +1,66 @@
+package com.order_invoice.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.config.Customizer;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.util.matcher.OrServerWebExchangeMatcher;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatchers;
+import org.springframework.security.web.servlet.util.matcher.PathPatternRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+
+import java.util.Arrays;
+
+/**
+ * Requires HTTP Basic credentials ({@code spring.security.user.*}) for the admin routes, the
+ * requests that change pricing or reprice stored invoices. These chains match those routes only; every other request, the
+ * rest of the {@code /orders} API included, does not pass through Spring Security at all.
+ */
+@Configuration(proxyBeanMethods = false)
+public class AdminSecurityConfig {
+
+    private static final AdminRoute[] ADMIN_ROUTES = {
+            new AdminRoute(HttpMethod.PUT, "/tax-rates"),
+            new AdminRoute(HttpMethod.PUT, "/discount-rules"),
+            new AdminRoute(HttpMethod.POST, "/orders/invoice/rebuild")
+    };
+
+
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    SecurityFilterChain adminSecurity(HttpSecurity http) throws Exception {
+        return http.securityMatcher(new OrRequestMatcher(Arrays.stream(ADMIN_ROUTES)
+                        .<RequestMatcher>map(route -> PathPatternRequestMatcher.withDefaults().matcher(route.method(), route.path()))
+                        .toList()))
+                .authorizeHttpRequests(requests -> requests.anyRequest().authenticated())
+                .httpBasic(Customizer.withDefaults())
+                .csrf(AbstractHttpConfigurer::disable)
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .build();
+    }
+
+
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    SecurityWebFilterChain adminWebSecurity(ServerHttpSecurity http) {
+        return http.securityMatcher(new OrServerWebExchangeMatcher(Arrays.stream(ADMIN_ROUTES)
+                        .map(route -> ServerWebExchangeMatchers.pathMatchers(route.method(), route.path()))
+                        .toList()))
+                .authorizeExchange(exchanges -> exchanges.anyExchange().authenticated())
+                .httpBasic(Customizer.withDefaults())
+                .csrf(ServerHttpSecurity.CsrfSpec::disable)
+                .build();
+    }
+
+
+    private record AdminRoute(HttpMethod method, String path) {
+    }
+}
@@ -0,0 +1,80 @@
+package com.order_invoice.config;
+
+import com.order_invoice.controller.InvoiceController;
+import com.order_invoice.entity.OrderRequest;
+import com.order_invoice.service.AdmissionLimiter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdviceAdapter;
+
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Applies {@link AdmissionLimiter} to order submissions as soon as their body is read, before
+ * validation and before anything reaches the services, weighting each request by its item
+ * count. Rejected requests are answered 429, or 413 when larger than a burst, by the global
+ * exception handler.
+ */
+@ControllerAdvice(assignableTypes = InvoiceController.class)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class AdmissionControlAdvice extends RequestBodyAdviceAdapter {
+
+    private final AdmissionLimiter admissionLimiter;
+
+    // Null unless configured: the header is only trusted when a proxy in front sets it
+    private final String clientHeader;
+
+    public AdmissionControlAdvice(AdmissionLimiter admissionLimiter, InvoiceProperties invoiceProperties) {
+        this.admissionLimiter = admissionLimiter;
+        String header = invoiceProperties.getAdmission().getClientHeader();
+        this.clientHeader = StringUtils.hasText(header) ? header : null;
+    }
+
+    @Override
+    public boolean supports(MethodParameter methodParameter, Type targetType,
+                            Class<? extends HttpMessageConverter<?>> converterType) {
+        return targetType == OrderRequest.class || targetType == InvoiceController.BulkOrderRequest.class;
+    }
+
+    @Override
+    public Object afterBodyRead(Object body, HttpInputMessage inputMessage, MethodParameter parameter, Type targetType,
+                                Class<? extends HttpMessageConverter<?>> converterType) {
+        admissionLimiter.admit(client(inputMessage), itemCount(body));
+        return body;
+    }
+
+    // The body arrives wrapped, not as the servlet request, so the remote address is read from the request context
+    private String client(HttpInputMessage inputMessage) {
+        String client = clientHeader == null ? null : AdmissionLimiter.lastHop(inputMessage.getHeaders().get(clientHeader));
+        if (client == null && RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes request) {
+            client = request.getRequest().getRemoteAddr();
+        }
+        return client;
+    }
+
+    private static int itemCount(Object body) {
+        if (body instanceof OrderRequest order) {
+            return itemCount(order);
+        }
+
+        List<OrderRequest> orders = ((InvoiceController.BulkOrderRequest) body).getOrders();
+        int items = 0;
+        if (orders != null) {
+            for (OrderRequest order : orders) {
+                items += order == null ? 0 : itemCount(order);
+            }
+        }
+        return items;
+    }
+
+    private static int itemCount(OrderRequest order) {
+        return order.getItems() == null ? 0 : order.getItems().size();
+    }
+}
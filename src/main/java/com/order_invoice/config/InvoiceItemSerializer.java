@@ -0,0 +1,48 @@
+package com.order_invoice.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.order_invoice.entity.InvoiceItem;
+import java.io.IOException;
+
+/**
+ * Serializes invoice lines field by field so the money amounts are written from their
+ * primitive values, without boxing per line. Field names are pre-encoded once and copied
+ * as bytes, in JSON as well as in the binary formats.
+ */
+public class InvoiceItemSerializer extends JsonSerializer<InvoiceItem> {
+
+    private static final SerializableString PRODUCT_NAME = new SerializedString("productName");
+
+    private static final SerializableString CATEGORY = new SerializedString("category");
+
+    private static final SerializableString QUANTITY = new SerializedString("quantity");
+
+    private static final SerializableString UNIT_PRICE = new SerializedString("unitPrice");
+
+    private static final SerializableString LINE_TOTAL = new SerializedString("lineTotal");
+
+    @Override
+    public void serialize(InvoiceItem item, JsonGenerator gen, SerializerProvider provider)
+            throws IOException {
+        write(item, gen);
+    }
+
+    public static void write(InvoiceItem item, JsonGenerator gen) throws IOException {
+        gen.writeStartObject(item);
+        gen.writeFieldName(PRODUCT_NAME);
+        gen.writeString(item.getProductName());
+        gen.writeFieldName(CATEGORY);
+        gen.writeString(item.getCategory());
+        gen.writeFieldName(QUANTITY);
+        gen.writeNumber(item.getQuantity());
+        gen.writeFieldName(UNIT_PRICE);
+        MoneySerializer.write(item.getUnitPrice(), gen);
+        gen.writeFieldName(LINE_TOTAL);
+        MoneySerializer.write(item.getLineTotal(), gen);
+        gen.writeEndObject();
+    }
+}
@@ -0,0 +1,229 @@
+package com.order_invoice.config;
+
+import com.order_invoice.entity.DiscountRule;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "invoice")
+public class InvoiceProperties {
+
+    private final Persistence persistence = new Persistence();
+
+    private final Bulk bulk = new Bulk();
+
+    private final Tax tax = new Tax();
+
+    private final Pricing pricing = new Pricing();
+
+    private final Pagination pagination = new Pagination();
+
+    private final Idempotency idempotency = new Idempotency();
+
+    private final Export export = new Export();
+
+    private final Snapshot snapshot = new Snapshot();
+
+    private final Admission admission = new Admission();
+
+    private final Reactive reactive = new Reactive();
+
+    private final Rebuild rebuild = new Rebuild();
+
+
+    @Getter
+    @Setter
+    public static class Persistence {
+        // JDBC batch size applied by Hibernate on saveAll
+        private int batchSize = 50;
+
+        // SYNC saves an order before responding; WRITE_BEHIND responds once it is queued and journaled
+        private Mode mode = Mode.SYNC;
+
+        private final WriteBehind writeBehind = new WriteBehind();
+
+        public enum Mode {
+            SYNC,
+            WRITE_BEHIND
+        }
+    }
+
+
+    @Getter
+    @Setter
+    public static class WriteBehind {
+        // Orders accepted but not yet written; when full, submissions wait up to offerTimeout and are then rejected
+        private int queueCapacity = 10_000;
+
+        private Duration offerTimeout = Duration.ofMillis(100);
+
+        // Orders written per transaction by the drain thread
+        private int batchSize = 500;
+
+        // Append-only log of accepted orders, replayed on startup for any not marked as written
+        private Path journal = Path.of("data/invoice-journal.ndjson");
+
+        // Rewrite the journal with only its unwritten orders once it grows past this
+        private DataSize journalCompactSize = DataSize.ofMegabytes(64);
+
+        // An order that fails for any other reason, such as the database being down, is retried after this
+        // delay, doubling up to maxRetryBackoff; the drain thread writes nothing else meanwhile
+        private Duration retryBackoff = Duration.ofMillis(100);
+
+        private Duration maxRetryBackoff = Duration.ofSeconds(30);
+
+        // Orders the database rejects outright are moved here, in journal format, instead of being replayed forever
+        private Path deadLetter = Path.of("data/invoice-dead-letter.ndjson");
+
+        // Force each journal append to disk; without it the journal survives a process crash but not power loss
+        private boolean fsync = false;
+    }
+
+
+    @Getter
+    @Setter
+    public static class Bulk {
+        // Upper bound on orders accepted by a single bulk request
+        private int maxOrders = 10_000;
+
+        // Valid orders are grouped into saveAll calls of roughly this many items
+        private int persistChunkSize = 1_000;
+    }
+
+
+    @Getter
+    @Setter
+    public static class Tax {
+        // Category (case-insensitive) to tax rate, e.g. 0.18 for 18%; unlisted categories are untaxed
+        private Map<String, Double> rates = new LinkedHashMap<>(Map.of(
+                "electronics", 0.18,
+                "clothing", 0.12,
+                "grocery", 0.05
+        ));
+    }
+
+
+    @Getter
+    @Setter
+    public static class Pricing {
+        // Compiled into per-customer, per-category discount tiers; the best matching rule applies
+        private List<DiscountRule> discountRules = new ArrayList<>(List.of(
+                new DiscountRule(null, null, 5, 0.10)
+        ));
+    }
+
+
+    @Getter
+    @Setter
+    public static class Pagination {
+        // Page size used when a listing request has no limit parameter
+        private int defaultLimit = 100;
+
+        // Larger limits are clamped to this
+        private int maxLimit = 1_000;
+    }
+
+
+    @Getter
+    @Setter
+    public static class Idempotency {
+        // Recently used keys kept in memory so replays skip the database
+        private int maxCachedKeys = 100_000;
+
+        // How long a key is remembered, in memory and in the idempotency_keys table
+        private Duration retention = Duration.ofHours(24);
+
+        // A key still unanswered after this long is treated as abandoned and can be claimed again
+        private Duration inProgressTimeout = Duration.ofMinutes(1);
+
+        // How often expired keys are purged from the table
+        private Duration purgeInterval = Duration.ofHours(1);
+    }
+
+
+    @Getter
+    @Setter
+    public static class Export {
+        // Rows fetched from the database per round trip while exporting
+        private int fetchSize = 1_000;
+
+        // Export output is written to the response in chunks of this size
+        private DataSize bufferSize = DataSize.ofKilobytes(64);
+    }
+
+
+    @Getter
+    @Setter
+    public static class Snapshot {
+        // Take columnar snapshots of order_items for GET /reports/*
+        private boolean enabled = true;
+
+        // Snapshot files are written here; the latest one is kept and memory-mapped
+        private Path directory = Path.of("data/snapshot");
+
+        // Delay between the end of one snapshot and the start of the next
+        private Duration interval = Duration.ofMinutes(5);
+    }
+
+
+    @Getter
+    @Setter
+    public static class Admission {
+        // Answer POST /orders/invoice and /orders/invoices/bulk with 429 once a rate below is exceeded
+        private boolean enabled = true;
+
+        // Order items admitted per second across all clients, and how many may arrive at once above that
+        // rate; a request with more items than either burst is rejected with 413
+        private double globalRate = 20_000;
+
+        private int globalBurst = 20_000;
+
+        // Order items admitted per second for each client, and its burst
+        private double clientRate = 2_000;
+
+        private int clientBurst = 5_000;
+
+        // Requests are attributed to their remote address; set this only behind a trusted proxy that
+        // sets the header, as clients could otherwise send a new value with every request. Of a list
+        // such as X-Forwarded-For only the last entry, appended by the proxy, is used
+        private String clientHeader = "";
+
+        // Client limits are kept in this many hashed stripes; clients that share a stripe share a limit
+        private int clientStripes = 4_096;
+    }
+
+
+    @Getter
+    @Setter
+    public static class Reactive {
+        // R2DBC database used by the reactive /orders API; must be the database the JDBC datasource points at
+        private String url = "r2dbc:h2:mem:///invoice?options=DB_CLOSE_DELAY=-1";
+
+        private String username = "sa";
+
+        private String password = "";
+
+        // Upper bound on pooled R2DBC connections
+        private int poolSize = 20;
+    }
+
+
+    @Getter
+    @Setter
+    public static class Rebuild {
+        // Stored lines are repriced in ranges of this many item IDs, each range in its own transaction
+        private int chunkSize = 10_000;
+        // Ranges repriced at once, each holding a JDBC connection; keep it below the connection pool size
+        private int parallelism = 4;
+    }
+}
@@ -0,0 +1,48 @@
+package com.order_invoice.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.order_invoice.entity.InvoiceItem;
+import com.order_invoice.entity.InvoiceResponse;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Serializes an invoice without bean introspection: the lines go straight through
+ * {@link InvoiceItemSerializer#write} instead of a serializer lookup per element.
+ */
+public class InvoiceResponseSerializer extends JsonSerializer<InvoiceResponse> {
+
+    private static final SerializableString ORDER_ID = new SerializedString("orderId");
+
+    private static final SerializableString INVOICE = new SerializedString("invoice");
+
+    private static final SerializableString GRAND_TOTAL = new SerializedString("grandTotal");
+
+    @Override
+    public void serialize(InvoiceResponse response, JsonGenerator gen, SerializerProvider provider)
+            throws IOException {
+        gen.writeStartObject(response);
+        if (response.getOrderId() != null) {
+            gen.writeFieldName(ORDER_ID);
+            gen.writeNumber(response.getOrderId());
+        }
+        gen.writeFieldName(INVOICE);
+        List<InvoiceItem> items = response.getInvoice();
+        if (items == null) {
+            gen.writeNull();
+        } else {
+            gen.writeStartArray(items, items.size());
+            for (InvoiceItem item : items) {
+                InvoiceItemSerializer.write(item, gen);
+            }
+            gen.writeEndArray();
+        }
+        gen.writeFieldName(GRAND_TOTAL);
+        MoneySerializer.write(response.getGrandTotal(), gen);
+        gen.writeEndObject();
+    }
+}
@@ -0,0 +1,30 @@
+package com.order_invoice.config;
+
+import com.order_invoice.service.AdmissionLimiter;
+import com.order_invoice.service.DiscountRuleRegistry;
+import com.order_invoice.service.IdempotencyService;
+import com.order_invoice.service.InvoiceMetrics;
+import com.order_invoice.service.OrderSnapshotService;
+import com.order_invoice.service.TaxRateRegistry;
+import com.order_invoice.service.WriteBehindQueue;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class LazyInitializationConfig {
+
+    /**
+     * Beans created at startup even with {@code spring.main.lazy-initialization=true}: the
+     * write-behind queue replays its journal before requests are served, the idempotency purge
+     * and order snapshots are only scheduled once their beans exist, meters should be scrapeable
+     * before the first order, and bad tax, discount or admission configuration should fail
+     * startup, not the first request.
+     */
+    @Bean
+    static LazyInitializationExcludeFilter eagerInvoiceBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(WriteBehindQueue.class, IdempotencyService.class,
+                InvoiceMetrics.class, TaxRateRegistry.class, DiscountRuleRegistry.class,
+                OrderSnapshotService.class, AdmissionLimiter.class);
+    }
+}
@@ -0,0 +1,38 @@
+package com.order_invoice.config;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.order_invoice.service.Money;
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * Reads a decimal amount such as {@code 1180.5} into minor units ({@code 118050}),
+ * rounding half-up past the second decimal.
+ */
+public class MoneyDeserializer extends JsonDeserializer<Long> {
+
+    @Override
+    public Long deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        BigDecimal value;
+        if (p.hasToken(JsonToken.VALUE_NUMBER_INT) || p.hasToken(JsonToken.VALUE_NUMBER_FLOAT)) {
+            value = p.getDecimalValue();
+        } else if (p.hasToken(JsonToken.VALUE_STRING)) {
+            try {
+                value = new BigDecimal(p.getText().trim());
+            } catch (NumberFormatException ex) {
+                return (Long) ctxt.handleWeirdStringValue(Long.class, p.getText(), "not a valid amount");
+            }
+        } else {
+            return (Long) ctxt.handleUnexpectedToken(Long.class, p);
+        }
+
+        try {
+            return Money.fromDecimal(value);
+        } catch (ArithmeticException ex) {
+            return (Long) ctxt.handleWeirdNumberValue(Long.class, value, "amount out of range");
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.order_invoice.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.order_invoice.service.Money;
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * Writes an amount held in minor units as a JSON number with exactly two decimals
+ * (e.g. {@code 118000} as {@code 1180.00}), formatting straight into the generator.
+ * Binary formats (Smile, CBOR) cannot take preformatted text, so they get a decimal with
+ * scale 2, which keeps the same two decimals on the wire.
+ */
+public class MoneySerializer extends JsonSerializer<Long> {
+
+    private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial(() -> new char[24]);
+
+    @Override
+    public void serialize(Long value, JsonGenerator gen, SerializerProvider provider)
+            throws IOException {
+        write(value != null ? value : 0L, gen);
+    }
+
+    public static void write(long minorUnits, JsonGenerator gen) throws IOException {
+        if (!gen.canWriteFormattedNumbers()) {
+            gen.writeNumber(BigDecimal.valueOf(minorUnits, 2));
+            return;
+        }
+        char[] buffer = BUFFER.get();
+        int offset = Money.format(minorUnits, buffer);
+        gen.writeNumber(buffer, offset, buffer.length - offset);
+    }
+}
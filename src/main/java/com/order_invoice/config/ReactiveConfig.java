@@ -0,0 +1,95 @@
+package com.order_invoice.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import io.r2dbc.spi.Option;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+/**
+ * Server and R2DBC access for the reactive stack. WebFlux runs on Netty's event loops; without
+ * an explicit factory Boot would pick Tomcat, which the servlet stack keeps on the classpath.
+ * <p>
+ * R2DBC goes to the same database as JPA.
+ * The connection pool is deliberately not exposed as a {@code ConnectionFactory} bean: Spring
+ * Boot backs the JDBC datasource off when one exists, and the schema, the admin endpoints and
+ * the background jobs still run on JPA. For the same reason R2DBC auto-configuration is
+ * excluded in {@code application.properties}, and the transaction manager stays private so
+ * {@code @Transactional} keeps meaning the JPA one.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveConfig implements DisposableBean {
+
+    private final ConnectionPool connectionPool;
+
+    private final boolean h2;
+
+    public ReactiveConfig(InvoiceProperties invoiceProperties) {
+        InvoiceProperties.Reactive settings = invoiceProperties.getReactive();
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(settings.getUrl()).mutate()
+                .option(ConnectionFactoryOptions.USER, settings.getUsername())
+                .option(ConnectionFactoryOptions.PASSWORD, settings.getPassword())
+                .build();
+        this.h2 = "h2".equals(options.getValue(ConnectionFactoryOptions.DRIVER));
+        this.connectionPool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+                .maxSize(settings.getPoolSize())
+                .build());
+    }
+
+    @Bean
+    NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    @Bean
+    DatabaseClient reactiveDatabaseClient() {
+        return DatabaseClient.create(connectionPool);
+    }
+
+    @Bean
+    TransactionalOperator reactiveTransactionalOperator() {
+        return TransactionalOperator.create(h2
+                ? new H2TransactionManager(connectionPool)
+                : new R2dbcTransactionManager(connectionPool));
+    }
+
+    @Override
+    public void destroy() {
+        connectionPool.dispose();
+    }
+
+
+    /**
+     * Leaves the read-only attribute out of every transaction it begins. Spring always sets it,
+     * false included, and R2DBC H2 logs a warning for any value because H2 only takes read-only
+     * mode from the connection URL. Isolation, name and timeout are passed through.
+     */
+    private static final class H2TransactionManager extends R2dbcTransactionManager {
+
+        H2TransactionManager(ConnectionFactory connectionFactory) {
+            super(connectionFactory);
+        }
+
+        @Override
+        protected io.r2dbc.spi.TransactionDefinition createTransactionDefinition(TransactionDefinition definition) {
+            io.r2dbc.spi.TransactionDefinition r2dbcDefinition = super.createTransactionDefinition(definition);
+            return new io.r2dbc.spi.TransactionDefinition() {
+                @Override
+                public <T> T getAttribute(Option<T> option) {
+                    return io.r2dbc.spi.TransactionDefinition.READ_ONLY.equals(option) ? null : r2dbcDefinition.getAttribute(option);
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.order_invoice.controller;
+import com.order_invoice.entity.DiscountRule;
+import com.order_invoice.service.DiscountRuleRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import java.util.List;
+
+@RestController
+@RequestMapping("/discount-rules")
+public class DiscountRuleController {
+
+    @Autowired
+    private DiscountRuleRegistry discountRuleRegistry;
+
+
+    @GetMapping
+    public ResponseEntity<List<DiscountRule>> getDiscountRules() {
+        return ResponseEntity.ok(discountRuleRegistry.getRules());
+    }
+
+
+    @PutMapping
+    public ResponseEntity<List<DiscountRule>> replaceDiscountRules(@RequestBody List<DiscountRule> rules) {
+        return ResponseEntity.ok(discountRuleRegistry.reload(rules).rules());
+    }
+}
@@ -0,0 +1,70 @@
+package com.order_invoice.controller;
+import com.order_invoice.service.ExportFormat;
+import com.order_invoice.service.ExportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.UncheckedIOException;
+
+/**
+ * Full-ledger exports for finance. Rows are streamed from the database as they are read, so
+ * exports of any size run in constant memory; {@code minId}/{@code maxId} (inclusive) allow
+ * an export to be split or resumed. Parameters are checked before the body starts streaming,
+ * so a bad request gets a plain 400. Invoice lines are exported as CSV only: as NDJSON they are
+ * served by {@code /orders/invoice/stream}.
+ */
+@RestController
+@RequestMapping("/orders")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ExportController {
+
+    @Autowired
+    private ExportService exportService;
+
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportItems(@RequestParam(defaultValue = "ndjson") String format,
+                                                             @RequestParam(required = false) String category,
+                                                             @RequestParam(required = false) Long minId,
+                                                             @RequestParam(required = false) Long maxId) {
+        ExportFormat exportFormat = ExportFormat.of(format);
+        ExportService.checkRange(minId, maxId);
+        return export(exportFormat, "orders", out -> exportService.exportItems(exportFormat, category, minId, maxId, out));
+    }
+
+
+    @GetMapping("/invoice/export")
+    public ResponseEntity<StreamingResponseBody> exportInvoiceItems(@RequestParam(defaultValue = "csv") String format,
+                                                                    @RequestParam(required = false) String category,
+                                                                    @RequestParam(required = false) Long minId,
+                                                                    @RequestParam(required = false) Long maxId) {
+        if (ExportFormat.of(format) != ExportFormat.CSV) {
+            throw new IllegalArgumentException("Invoice lines are exported as csv; stream them as NDJSON from /orders/invoice/stream");
+        }
+        ExportService.checkRange(minId, maxId);
+        return export(ExportFormat.CSV, "invoices", out -> exportService.exportInvoiceItems(category, minId, maxId, out));
+    }
+
+
+    private static ResponseEntity<StreamingResponseBody> export(ExportFormat format, String name, StreamingResponseBody body) {
+        ContentDisposition disposition = ContentDisposition.attachment()
+                .filename(name + "." + format.getExtension())
+                .build();
+        StreamingResponseBody unwrapping = out -> {
+            try {
+                body.writeTo(out);
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getMediaType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, disposition.toString())
+                .body(unwrapping);
+    }
+}
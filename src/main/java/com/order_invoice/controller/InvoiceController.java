@@ -1,47 +1,139 @@
 
 package com.order_invoice.controller;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.order_invoice.entity.BulkInvoiceResponse;
+import com.order_invoice.entity.CategorySummary;
+import com.order_invoice.entity.InvoiceItem;
+import com.order_invoice.entity.InvoicePage;
+import com.order_invoice.entity.InvoiceRebuildResult;
 import com.order_invoice.entity.InvoiceResponse;
-import com.order_invoice.entity.OrderItem;
+import com.order_invoice.entity.InvoiceTotal;
+import com.order_invoice.entity.OrderItemView;
+import com.order_invoice.entity.OrderPage;
+import com.order_invoice.entity.OrderRequest;
+import com.order_invoice.service.BulkInvoiceService;
+import com.order_invoice.service.CategorySummaryService;
+import com.order_invoice.service.IdempotencyService;
+import com.order_invoice.service.InvoiceRebuildService;
 import com.order_invoice.service.InvoiceService;
-import jakarta.validation.Valid;
+import com.order_invoice.service.OrderETagService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriComponents;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @RestController
 @RequestMapping("/orders")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class InvoiceController {
 
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+    public static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType(APPLICATION_NDJSON_VALUE);
+
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
     @Autowired
     private InvoiceService invoiceService;
 
+    @Autowired
+    private BulkInvoiceService bulkInvoiceService;
+
+    @Autowired
+    private CategorySummaryService categorySummaryService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private InvoiceRebuildService invoiceRebuildService;
+
+    @Autowired
+    private OrderETagService orderETagService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
 
+
+    /**
+     * Retries carrying the same {@code Idempotency-Key} get the original invoice back instead
+     * of creating another order. Items are validated while they are priced; an invalid order
+     * gets 400 listing every line error.
+     */
     @PostMapping("/invoice")
-    public ResponseEntity<InvoiceResponse> generateInvoice(@Valid @RequestBody OrderRequest request) {
-        InvoiceResponse response = invoiceService.generateInvoice(request.getItems());
+    public ResponseEntity<InvoiceResponse> generateInvoice(@RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                                           @RequestBody OrderRequest request) {
+        InvoiceResponse response = idempotencyKey == null
+                ? invoiceService.generateInvoice(request)
+                : idempotencyService.generateOnce(idempotencyKey, request,
+                        () -> invoiceService.generateInvoice(request));
+        return ResponseEntity.ok(response);
+    }
+
+
+    @PostMapping("/invoices/bulk")
+    public ResponseEntity<BulkInvoiceResponse> generateInvoices(@RequestBody BulkOrderRequest request) {
+        BulkInvoiceResponse response = bulkInvoiceService.generateInvoices(request.getOrders());
         return ResponseEntity.ok(response);
     }
 
 
     @GetMapping
-    public ResponseEntity<List<OrderItem>> getAllOrders() {
-        List<OrderItem> orders = invoiceService.getAllOrders();
-        return ResponseEntity.ok(orders);
+    public ResponseEntity<List<OrderItemView>> getAllOrders(@RequestParam(required = false) Long after,
+                                                            @RequestParam(required = false) Integer limit,
+                                                            WebRequest webRequest) {
+        if (notModified(webRequest)) {
+            return null;
+        }
+        OrderPage orders = invoiceService.getAllOrders(after, limit);
+        return page(orders);
     }
 
 
     @GetMapping("/category/{category}")
-    public ResponseEntity<List<OrderItem>> getOrdersByCategory(@PathVariable String category) {
-        List<OrderItem> orders = invoiceService.getOrdersByCategory(category);
-        return ResponseEntity.ok(orders);
+    public ResponseEntity<List<OrderItemView>> getOrdersByCategory(@PathVariable String category,
+                                                                   @RequestParam(required = false) Long after,
+                                                                   @RequestParam(required = false) Integer limit,
+                                                                   WebRequest webRequest) {
+        if (notModified(webRequest)) {
+            return null;
+        }
+        OrderPage orders = invoiceService.getOrdersByCategory(category, after, limit);
+        return page(orders);
     }
 
 
     @GetMapping("/bulk")
-    public ResponseEntity<List<OrderItem>> getBulkOrders() {
-        List<OrderItem> bulkOrders = invoiceService.getBulkOrders();
-        return ResponseEntity.ok(bulkOrders);
+    public ResponseEntity<List<OrderItemView>> getBulkOrders(@RequestParam(required = false) Long after,
+                                                             @RequestParam(required = false) Integer limit,
+                                                             WebRequest webRequest) {
+        if (notModified(webRequest)) {
+            return null;
+        }
+        OrderPage bulkOrders = invoiceService.getBulkOrders(after, limit);
+        return page(bulkOrders);
+    }
+
+
+    @GetMapping("/summary")
+    public ResponseEntity<List<CategorySummary>> getCategorySummaries(WebRequest webRequest) {
+        if (notModified(webRequest)) {
+            return null;
+        }
+        List<CategorySummary> summaries = categorySummaryService.getSummaries();
+        return ResponseEntity.ok(summaries);
     }
 
 
@@ -52,17 +144,106 @@ public class InvoiceController {
     }
 
 
+    /**
+     * One page of stored invoice lines with the grand total of all of them; the full ledger is
+     * at {@code /invoice/stream} and {@code /invoice/export}.
+     */
     @GetMapping("/invoice")
-    public ResponseEntity<InvoiceResponse> getAllInvoices() {
-        InvoiceResponse allInvoices = invoiceService.getAllInvoices();
-        return ResponseEntity.ok(allInvoices);
+    public ResponseEntity<InvoiceResponse> getAllInvoices(@RequestParam(required = false) Long after,
+                                                          @RequestParam(required = false) Integer limit,
+                                                          WebRequest webRequest) {
+        if (notModified(webRequest)) {
+            return null;
+        }
+        InvoicePage invoices = invoiceService.getAllInvoices(after, limit);
+        return page(invoices.getInvoice(), invoices.getNextCursor());
+    }
+
+
+    /**
+     * Reprices every stored invoice line against the current tax rates and discount rules, and
+     * the order totals and category summaries with them.
+     */
+    @PostMapping("/invoice/rebuild")
+    public ResponseEntity<InvoiceRebuildResult> rebuildInvoices() {
+        InvoiceRebuildResult result = invoiceRebuildService.rebuild();
+        return ResponseEntity.ok(result);
+    }
+
+
+    /**
+     * Streams every invoice line as one JSON object per line, followed by a final
+     * {@link InvoiceTotal} line carrying the item count and grand total.
+     */
+    @GetMapping(value = "/invoice/stream", produces = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllInvoices(WebRequest webRequest) {
+        if (notModified(webRequest)) {
+            return null;
+        }
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = writer.createGenerator(out)) {
+                generator.setRootValueSeparator(new SerializedString("\n"));
+
+                InvoiceTotal total = invoiceService.streamAllInvoices(item -> writeLine(writer, generator, item));
+                writer.writeValue(generator, total);
+                generator.writeRaw('\n');
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause();
+            }
+        };
+        return ResponseEntity.ok().contentType(APPLICATION_NDJSON).body(body);
+    }
+
+
+    /**
+     * Checks {@code If-None-Match} against the current tag of the requested representation,
+     * setting the {@code ETag} header either way; true means 304 has been sent. Listings stay
+     * unmodified until the next order is saved.
+     */
+    private boolean notModified(WebRequest webRequest) {
+        UriComponents uri = ServletUriComponentsBuilder.fromCurrentRequest().build();
+        return webRequest.checkNotModified(orderETagService.etag(
+                uri.getPath() + '?' + uri.getQuery() + ' ' + webRequest.getHeader(HttpHeaders.ACCEPT)));
+    }
+
+
+    /**
+     * Returns the page items; when more rows follow, a {@code Link: <...?after=<id>>; rel="next"} header points at them.
+     */
+    private static ResponseEntity<List<OrderItemView>> page(OrderPage page) {
+        return page(page.getItems(), page.getNextCursor());
+    }
+
+
+    private static <T> ResponseEntity<T> page(T body, Long nextCursor) {
+        if (nextCursor == null) {
+            return ResponseEntity.ok(body);
+        }
+
+        String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("after", nextCursor)
+                .toUriString();
+        return ResponseEntity.ok()
+                .header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"")
+                .body(body);
+    }
+
+
+    private static void writeLine(ObjectWriter writer, JsonGenerator generator, InvoiceItem item) {
+        try {
+            writer.writeValue(generator, item);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
     }
 
 
-    public static class OrderRequest {
-        private List<OrderItem> items;
+    public static class BulkOrderRequest {
+        private List<OrderRequest> orders;
 
-        public List<OrderItem> getItems() { return items; }
-        public void setItems(List<OrderItem> items) { this.items = items; }
+        public List<OrderRequest> getOrders() { return orders; }
+        public void setOrders(List<OrderRequest> orders) { this.orders = orders; }
     }
 }
\ No newline at end of file
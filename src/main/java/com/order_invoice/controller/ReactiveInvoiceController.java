@@ -0,0 +1,196 @@
+package com.order_invoice.controller;
+import com.order_invoice.config.InvoiceProperties;
+import com.order_invoice.entity.BulkInvoiceResponse;
+import com.order_invoice.entity.CategorySummary;
+import com.order_invoice.entity.InvoiceRebuildResult;
+import com.order_invoice.entity.InvoiceResponse;
+import com.order_invoice.entity.OrderItemView;
+import com.order_invoice.entity.OrderPage;
+import com.order_invoice.entity.OrderRequest;
+import com.order_invoice.service.AdmissionLimiter;
+import com.order_invoice.service.InvoiceRebuildService;
+import com.order_invoice.service.ReactiveInvoiceService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * The {@code /orders} API of {@link InvoiceController} on WebFlux, served instead of it with
+ * {@code spring.profiles.active=reactive}. Routes, parameters and bodies are the same; storage
+ * goes through R2DBC and no request holds a thread while waiting on the database.
+ */
+@RestController
+@RequestMapping("/orders")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveInvoiceController {
+
+    @Autowired
+    private ReactiveInvoiceService reactiveInvoiceService;
+
+    @Autowired
+    private InvoiceRebuildService invoiceRebuildService;
+
+    @Autowired
+    private AdmissionLimiter admissionLimiter;
+
+    @Autowired
+    private InvoiceProperties invoiceProperties;
+
+
+    @PostMapping("/invoice")
+    public Mono<ResponseEntity<InvoiceResponse>> generateInvoice(@RequestHeader(name = InvoiceController.IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                                                 @RequestBody OrderRequest request,
+                                                                 ServerHttpRequest httpRequest) {
+        admit(httpRequest, request.getItems() == null ? 0 : request.getItems().size());
+        Mono<InvoiceResponse> response = idempotencyKey == null
+                ? reactiveInvoiceService.generateInvoice(request)
+                : reactiveInvoiceService.generateInvoiceOnce(idempotencyKey, request);
+        return response.map(ResponseEntity::ok);
+    }
+
+
+    @PostMapping("/invoices/bulk")
+    public Mono<ResponseEntity<BulkInvoiceResponse>> generateInvoices(@RequestBody InvoiceController.BulkOrderRequest request,
+                                                                      ServerHttpRequest httpRequest) {
+        List<OrderRequest> orders = request.getOrders();
+        int items = 0;
+        if (orders != null) {
+            for (OrderRequest order : orders) {
+                items += order == null || order.getItems() == null ? 0 : order.getItems().size();
+            }
+        }
+        admit(httpRequest, items);
+        return reactiveInvoiceService.generateInvoices(orders).map(ResponseEntity::ok);
+    }
+
+
+    @GetMapping
+    public Mono<ResponseEntity<List<OrderItemView>>> getAllOrders(@RequestParam(required = false) Long after,
+                                                                  @RequestParam(required = false) Integer limit,
+                                                                  ServerWebExchange exchange) {
+        return ifModified(exchange, () -> reactiveInvoiceService.getAllOrders(after, limit)
+                .map(page -> page(page, exchange.getRequest())));
+    }
+
+
+    @GetMapping("/category/{category}")
+    public Mono<ResponseEntity<List<OrderItemView>>> getOrdersByCategory(@PathVariable String category,
+                                                                         @RequestParam(required = false) Long after,
+                                                                         @RequestParam(required = false) Integer limit,
+                                                                         ServerWebExchange exchange) {
+        return ifModified(exchange, () -> reactiveInvoiceService.getOrdersByCategory(category, after, limit)
+                .map(page -> page(page, exchange.getRequest())));
+    }
+
+
+    @GetMapping("/bulk")
+    public Mono<ResponseEntity<List<OrderItemView>>> getBulkOrders(@RequestParam(required = false) Long after,
+                                                                   @RequestParam(required = false) Integer limit,
+                                                                   ServerWebExchange exchange) {
+        return ifModified(exchange, () -> reactiveInvoiceService.getBulkOrders(after, limit)
+                .map(page -> page(page, exchange.getRequest())));
+    }
+
+
+    @GetMapping("/summary")
+    public Mono<ResponseEntity<List<CategorySummary>>> getCategorySummaries(ServerWebExchange exchange) {
+        return ifModified(exchange, () -> reactiveInvoiceService.getSummaries().collectList().map(ResponseEntity::ok));
+    }
+
+
+    @GetMapping("/invoice/{orderId}")
+    public Mono<ResponseEntity<InvoiceResponse>> getInvoiceByOrderId(@PathVariable Long orderId) {
+        return reactiveInvoiceService.getInvoiceByOrderId(orderId).map(ResponseEntity::ok);
+    }
+
+
+    @GetMapping("/invoice")
+    public Mono<ResponseEntity<InvoiceResponse>> getAllInvoices(@RequestParam(required = false) Long after,
+                                                                @RequestParam(required = false) Integer limit,
+                                                                ServerWebExchange exchange) {
+        return ifModified(exchange, () -> reactiveInvoiceService.getAllInvoices(after, limit)
+                .map(page -> page(page.getInvoice(), page.getNextCursor(), exchange.getRequest())));
+    }
+
+
+    /**
+     * Same as {@link InvoiceController#rebuildInvoices()}; the rebuild goes through JDBC, so it
+     * runs on the bounded-elastic scheduler and its own worker threads.
+     */
+    @PostMapping("/invoice/rebuild")
+    public Mono<ResponseEntity<InvoiceRebuildResult>> rebuildInvoices() {
+        return Mono.fromCallable(invoiceRebuildService::rebuild)
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(ResponseEntity::ok);
+    }
+
+
+    /**
+     * Streams every invoice line as one JSON object per line, with backpressure from the client
+     * connection, followed by a final {@code InvoiceTotal} line.
+     */
+    @GetMapping(value = "/invoice/stream", produces = InvoiceController.APPLICATION_NDJSON_VALUE)
+    public Flux<Object> streamAllInvoices(ServerWebExchange exchange) {
+        return etag(exchange).flatMapMany(etag -> exchange.checkNotModified(etag)
+                ? Flux.empty()
+                : reactiveInvoiceService.streamAllInvoices());
+    }
+
+
+    /**
+     * Answers {@code If-None-Match} with 304 while no order has been saved, and sets the
+     * {@code ETag} header either way.
+     */
+    private <T> Mono<ResponseEntity<T>> ifModified(ServerWebExchange exchange, Supplier<Mono<ResponseEntity<T>>> response) {
+        return etag(exchange).flatMap(etag -> exchange.checkNotModified(etag) ? Mono.empty() : response.get());
+    }
+
+
+    private Mono<String> etag(ServerWebExchange exchange) {
+        ServerHttpRequest request = exchange.getRequest();
+        return reactiveInvoiceService.etag(request.getURI().getRawPath() + '?' + request.getURI().getRawQuery()
+                + ' ' + request.getHeaders().getFirst(HttpHeaders.ACCEPT));
+    }
+
+
+    private void admit(ServerHttpRequest httpRequest, int items) {
+        String clientHeader = invoiceProperties.getAdmission().getClientHeader();
+        String client = StringUtils.hasText(clientHeader) ? AdmissionLimiter.lastHop(httpRequest.getHeaders().get(clientHeader)) : null;
+        InetSocketAddress remoteAddress = httpRequest.getRemoteAddress();
+        if (client == null && remoteAddress != null) {
+            client = remoteAddress.getHostString();
+        }
+        admissionLimiter.admit(client, items);
+    }
+
+
+    private static ResponseEntity<List<OrderItemView>> page(OrderPage page, ServerHttpRequest httpRequest) {
+        return page(page.getItems(), page.getNextCursor(), httpRequest);
+    }
+
+
+    private static <T> ResponseEntity<T> page(T body, Long nextCursor, ServerHttpRequest httpRequest) {
+        if (nextCursor == null) {
+            return ResponseEntity.ok(body);
+        }
+
+        String next = UriComponentsBuilder.fromUri(httpRequest.getURI())
+                .replaceQueryParam("after", nextCursor)
+                .toUriString();
+        return ResponseEntity.ok()
+                .header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"")
+                .body(body);
+    }
+}
@@ -0,0 +1,24 @@
+package com.order_invoice.controller;
+import com.order_invoice.entity.SalesReport;
+import com.order_invoice.service.OrderSnapshotService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Aggregate reports over all stored orders, answered from the latest order snapshot; see
+ * {@code snapshotTakenAt} in each report for how current it is.
+ */
+@RestController
+@RequestMapping("/reports")
+public class ReportController {
+
+    @Autowired
+    private OrderSnapshotService orderSnapshotService;
+
+
+    @GetMapping("/sales")
+    public ResponseEntity<SalesReport> getSalesReport(@RequestParam(required = false) Integer bulkQuantity) {
+        return ResponseEntity.ok(orderSnapshotService.getSalesReport(bulkQuantity));
+    }
+}
@@ -0,0 +1,27 @@
+
+package com.order_invoice.controller;
+import com.order_invoice.service.TaxRateRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/tax-rates")
+public class TaxRateController {
+
+    @Autowired
+    private TaxRateRegistry taxRateRegistry;
+
+
+    @GetMapping
+    public ResponseEntity<Map<String, Double>> getTaxRates() {
+        return ResponseEntity.ok(taxRateRegistry.getRates());
+    }
+
+
+    @PutMapping
+    public ResponseEntity<Map<String, Double>> replaceTaxRates(@RequestBody Map<String, Double> rates) {
+        return ResponseEntity.ok(taxRateRegistry.reload(rates).asMap());
+    }
+}
@@ -0,0 +1,21 @@
+
+package com.order_invoice.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkInvoiceResponse {
+    private int succeeded;
+
+    private int failed;
+
+    private List<BulkInvoiceResult> results;
+
+}
@@ -0,0 +1,46 @@
+
+package com.order_invoice.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkInvoiceResult {
+    // Position of the order in the bulk request
+    private int index;
+
+    private InvoiceResponse invoice;
+
+    private String error;
+
+    // Per-line validation errors, when the order was rejected by validation
+    private List<LineError> errors;
+
+
+    public static BulkInvoiceResult success(int index, InvoiceResponse invoice) {
+        return new BulkInvoiceResult(index, invoice, null, null);
+    }
+
+    public static BulkInvoiceResult failure(int index, String error) {
+        return new BulkInvoiceResult(index, null, error, null);
+    }
+
+    public static BulkInvoiceResult failure(int index, String error, List<LineError> errors) {
+        return new BulkInvoiceResult(index, null, error, errors);
+    }
+
+    @JsonIgnore
+    public boolean isSuccessful() {
+        return error == null;
+    }
+}
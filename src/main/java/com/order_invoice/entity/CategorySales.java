@@ -0,0 +1,33 @@
+package com.order_invoice.entity;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.order_invoice.config.MoneySerializer;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Sales of one category in a {@link SalesReport}.
+ */
+@Getter
+@AllArgsConstructor
+public class CategorySales {
+    private String category;
+
+    private long itemCount;
+
+    private long totalQuantity;
+
+    // Quantity times unit price, before discounts and tax, in minor units (cents)
+    @JsonSerialize(using = MoneySerializer.class)
+    private long listRevenue;
+
+    // Invoiced line totals, after discounts and tax
+    @JsonSerialize(using = MoneySerializer.class)
+    private long revenue;
+
+    // Lines at or above the bulk quantity
+    private long bulkItemCount;
+
+    @JsonSerialize(using = MoneySerializer.class)
+    private long bulkRevenue;
+}
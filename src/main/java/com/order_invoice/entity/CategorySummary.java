@@ -0,0 +1,48 @@
+
+package com.order_invoice.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.order_invoice.config.MoneyDeserializer;
+import com.order_invoice.config.MoneySerializer;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Running totals per category, maintained incrementally as invoices are generated.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "category_summary")
+public class CategorySummary {
+    @Id
+    private String category;
+
+    private long itemCount;
+
+    private long totalQuantity;
+
+    // In minor units (cents)
+    @JsonSerialize(using = MoneySerializer.class)
+    @JsonDeserialize(using = MoneyDeserializer.class)
+    private long totalInvoiced;
+
+    // Bumped by every increment, even one that nets to zero; the sum over all rows versions the listing ETags
+    @JsonIgnore
+    @Column(columnDefinition = "bigint default 0 not null")
+    private long revision;
+
+
+    public CategorySummary(String category, long itemCount, long totalQuantity, long totalInvoiced) {
+        this.category = category;
+        this.itemCount = itemCount;
+        this.totalQuantity = totalQuantity;
+        this.totalInvoiced = totalInvoiced;
+    }
+
+}
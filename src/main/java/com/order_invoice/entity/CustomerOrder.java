@@ -0,0 +1,44 @@
+package com.order_invoice.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.BatchSize;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Order header owning its invoice lines. The grand total is fixed when the invoice is
+ * generated, alongside each line's stored total, so reading an invoice back needs no repricing.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "orders")
+public class CustomerOrder {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_seq")
+    @SequenceGenerator(name = "order_seq", sequenceName = "order_seq", allocationSize = 50)
+    private Long id;
+
+    // Selects customer-specific discount rules; null for anonymous orders
+    private String customerId;
+
+    // In minor units (cents)
+    private long grandTotal;
+
+    @OneToMany(mappedBy = "order")
+    @OrderBy("id")
+    @BatchSize(size = 50)
+    private List<OrderItem> items = new ArrayList<>();
+
+    public CustomerOrder(String customerId, List<OrderItem> items, long grandTotal) {
+        this.customerId = customerId;
+        this.grandTotal = grandTotal;
+        this.items = items;
+        items.forEach(item -> item.setOrder(this));
+    }
+}
@@ -0,0 +1,23 @@
+package com.order_invoice.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * One configured discount: lines of {@code category} with at least {@code minQuantity} units,
+ * ordered by {@code customerId}, get {@code discount} (a fraction, e.g. 0.10 for 10%) off.
+ * A blank category or customer matches any. When several rules match a line the largest
+ * discount applies.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class DiscountRule {
+    private String category;
+    private String customerId;
+    private int minQuantity = 1;
+    private double discount;
+}
@@ -0,0 +1,34 @@
+package com.order_invoice.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * An {@code Idempotency-Key} seen on {@code POST /orders/invoice}, with a fingerprint of the
+ * request it arrived with and, once generated, the serialized invoice to replay.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "idempotency_keys")
+public class IdempotencyRecord {
+    @Id
+    @Column(name = "idempotency_key")
+    private String key;
+
+    private long fingerprint;
+
+    // JSON of the InvoiceResponse; null while the first request is still being processed
+    @Lob
+    private String response;
+
+    private Instant createdAt;
+
+}
@@ -1,9 +1,10 @@
 
 package com.order_invoice.entity;
 
-import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
-import com.order_invoice.config.DoubleSerializer;
+import com.order_invoice.config.InvoiceItemSerializer;
+import com.order_invoice.config.MoneyDeserializer;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -13,13 +14,16 @@ import lombok.Setter;
 @Setter
 @AllArgsConstructor
 @NoArgsConstructor
+@JsonSerialize(using = InvoiceItemSerializer.class)
 public class InvoiceItem {
     private String productName;
     private String category;
     private int quantity;
-    private double unitPrice;
-    @JsonSerialize(using = DoubleSerializer.class)
-    private double lineTotal;
+    // Amounts are in minor units (cents)
+    @JsonDeserialize(using = MoneyDeserializer.class)
+    private long unitPrice;
+    @JsonDeserialize(using = MoneyDeserializer.class)
+    private long lineTotal;
     
 
 }
\ No newline at end of file
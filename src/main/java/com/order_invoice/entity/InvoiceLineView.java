@@ -0,0 +1,23 @@
+package com.order_invoice.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Read-only projection of a stored invoice line for the paginated invoice listing.
+ */
+@Getter
+@AllArgsConstructor
+public class InvoiceLineView {
+    private Long id;
+    private String productName;
+    private String category;
+    private int quantity;
+    // Amounts are in minor units (cents)
+    private long unitPrice;
+    private long lineTotal;
+
+    public InvoiceItem toInvoiceItem() {
+        return new InvoiceItem(productName, category, quantity, unitPrice, lineTotal);
+    }
+}
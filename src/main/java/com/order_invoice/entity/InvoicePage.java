@@ -0,0 +1,18 @@
+package com.order_invoice.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * One keyset page of stored invoice lines, with the grand total of every stored invoice;
+ * {@code nextCursor} is the {@code after} value for the following page, or null when this is
+ * the last one.
+ */
+@Getter
+@AllArgsConstructor
+public class InvoicePage {
+    private InvoiceResponse invoice;
+
+    private Long nextCursor;
+
+}
@@ -0,0 +1,27 @@
+package com.order_invoice.entity;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.order_invoice.config.MoneyDeserializer;
+import com.order_invoice.config.MoneySerializer;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class InvoiceRebuildResult {
+    // Stored lines repriced, and how many of them got a different total
+    private long itemCount;
+
+    private long changedItems;
+
+    // Grand total over all stored lines afterwards, in minor units (cents)
+    @JsonSerialize(using = MoneySerializer.class)
+    @JsonDeserialize(using = MoneyDeserializer.class)
+    private long grandTotal;
+
+}
@@ -1,9 +1,10 @@
 
 package com.order_invoice.entity;
 
-import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
-import com.order_invoice.config.DoubleSerializer;
+import com.order_invoice.config.InvoiceResponseSerializer;
+import com.order_invoice.config.MoneyDeserializer;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -15,11 +16,21 @@ import java.util.List;
 @Setter
 @AllArgsConstructor
 @NoArgsConstructor
+@JsonSerialize(using = InvoiceResponseSerializer.class)
 public class InvoiceResponse {
+    // Set once the order is persisted; absent for invoices that were not stored
+    private Long orderId;
+
     private List<InvoiceItem> invoice;
 
-    @JsonSerialize(using = DoubleSerializer.class)
-    private double grandTotal;
+    // In minor units (cents)
+    @JsonDeserialize(using = MoneyDeserializer.class)
+    private long grandTotal;
+
+    public InvoiceResponse(List<InvoiceItem> invoice, long grandTotal) {
+        this.invoice = invoice;
+        this.grandTotal = grandTotal;
+    }
     
 
 }
\ No newline at end of file
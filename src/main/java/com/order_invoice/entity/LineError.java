@@ -0,0 +1,25 @@
+package com.order_invoice.entity;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * One validation failure in a submitted order: the position of the offending item (absent when
+ * the order as a whole is invalid), the field at fault and a machine-readable code.
+ */
+@Getter
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class LineError {
+    public static final String REQUIRED = "required";
+    public static final String NOT_POSITIVE = "not_positive";
+    public static final String TOO_LARGE = "too_large";
+
+    // Position of the item in the order, from 0
+    private Integer line;
+
+    private String field;
+
+    private String code;
+}
@@ -1,23 +1,37 @@
 
 package com.order_invoice.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.order_invoice.config.MoneyDeserializer;
+import com.order_invoice.config.MoneySerializer;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Immutable;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
-import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 @Getter
 @Setter
-@AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table(name = "order_items")
+@Immutable
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY)
+@Table(name = "order_items", indexes = {
+        @Index(name = "idx_order_items_category", columnList = "category, id"),
+        @Index(name = "idx_order_items_quantity", columnList = "quantity, id"),
+        @Index(name = "idx_order_items_order", columnList = "order_id, id")
+})
 public class OrderItem {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_item_seq")
+    @SequenceGenerator(name = "order_item_seq", sequenceName = "order_item_seq", allocationSize = 50)
     private Long id;
     
     @NotNull(message = "Product name is required")
@@ -29,7 +43,27 @@ public class OrderItem {
     @Min(value = 1, message = "Quantity must be at least 1")
     private int quantity;
     
+    // In minor units (cents); exchanged as a two-decimal amount in JSON
     @Min(value = 0, message = "Unit price must be positive")
-    private double unitPrice;
+    @JsonSerialize(using = MoneySerializer.class)
+    @JsonDeserialize(using = MoneyDeserializer.class)
+    private long unitPrice;
+
+    // Priced total in minor units, stored when the invoice is generated
+    @JsonIgnore
+    private long lineTotal;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "order_id")
+    @JsonIgnore
+    private CustomerOrder order;
+
+    public OrderItem(Long id, String productName, String category, int quantity, long unitPrice) {
+        this.id = id;
+        this.productName = productName;
+        this.category = category;
+        this.quantity = quantity;
+        this.unitPrice = unitPrice;
+    }
 
 }
\ No newline at end of file
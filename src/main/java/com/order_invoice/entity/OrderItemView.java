@@ -0,0 +1,24 @@
+
+package com.order_invoice.entity;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.order_invoice.config.MoneySerializer;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Read-only projection of an {@link OrderItem} row, used by the paginated listing endpoints
+ * so pages never enter the persistence context.
+ */
+@Getter
+@AllArgsConstructor
+public class OrderItemView {
+    private Long id;
+    private String productName;
+    private String category;
+    private int quantity;
+    // In minor units (cents)
+    @JsonSerialize(using = MoneySerializer.class)
+    private long unitPrice;
+
+}
@@ -0,0 +1,22 @@
+package com.order_invoice.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Row count and highest ID of {@code order_items}, which change whenever an item is saved, and
+ * the sum of the {@code category_summary} revisions, which grows with every summary increment,
+ * including those of a repricing whose changes cancel out. Read from the primary key index and
+ * {@code category_summary} instead of the rows themselves, in separate statements: H2 only
+ * answers the count and maximum from the index when nothing else shares the statement.
+ */
+@Getter
+@AllArgsConstructor
+public class OrderItemsVersion {
+    private long rows;
+
+    private long lastId;
+
+    private long summaryRevision;
+
+}
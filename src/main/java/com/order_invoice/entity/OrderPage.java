@@ -0,0 +1,19 @@
+
+package com.order_invoice.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import java.util.List;
+
+/**
+ * One keyset page of order items; {@code nextCursor} is the {@code after} value for the
+ * following page, or null when this is the last one.
+ */
+@Getter
+@AllArgsConstructor
+public class OrderPage {
+    private List<OrderItemView> items;
+
+    private Long nextCursor;
+
+}
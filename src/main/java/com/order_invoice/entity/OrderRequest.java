@@ -0,0 +1,21 @@
+package com.order_invoice.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * An order submitted for invoicing. The customer ID is optional and only selects
+ * customer-specific discount rules.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderRequest {
+    private String customerId;
+    private List<OrderItem> items;
+}
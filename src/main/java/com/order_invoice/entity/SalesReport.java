@@ -0,0 +1,37 @@
+package com.order_invoice.entity;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.order_invoice.config.MoneySerializer;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Revenue and bulk-order share by category, computed from the latest order snapshot rather
+ * than the live tables; {@code snapshotTakenAt} says how current it is.
+ */
+@Getter
+@AllArgsConstructor
+public class SalesReport {
+    private Instant snapshotTakenAt;
+
+    // Highest order item ID included in the snapshot
+    private long lastItemId;
+
+    private int bulkQuantity;
+
+    private long itemCount;
+
+    // In minor units (cents)
+    @JsonSerialize(using = MoneySerializer.class)
+    private long revenue;
+
+    // Fractions of lines, and of revenue, from lines at or above the bulk quantity
+    private double bulkItemShare;
+
+    private double bulkRevenueShare;
+
+    private List<CategorySales> categories;
+}
@@ -0,0 +1,23 @@
+package com.order_invoice.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Body of a 400 for an invalid order: the usual error fields plus each line error.
+ */
+@Getter
+@AllArgsConstructor
+public class ValidationErrorResponse {
+    private String error;
+
+    private String message;
+
+    private String status;
+
+    private int errorCount;
+
+    private List<LineError> errors;
+}
@@ -0,0 +1,19 @@
+package com.order_invoice.exception;
+
+/**
+ * Thrown when an order would exceed a client's or the global admission rate;
+ * surfaced to clients as 429 with the number of seconds to wait before retrying.
+ */
+public class AdmissionRejectedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public AdmissionRejectedException(String message, long retryAfterSeconds) {
+        super(message, null, false, false);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,12 @@
+package com.order_invoice.exception;
+
+/**
+ * Thrown when a single request carries more order items than a client's or the global
+ * admission burst, so no amount of waiting would admit it; surfaced to clients as 413.
+ */
+public class AdmissionTooLargeException extends RuntimeException {
+
+    public AdmissionTooLargeException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -1,10 +1,16 @@
 
 package com.order_invoice.exception;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.order_invoice.entity.ValidationErrorResponse;
+import org.springframework.core.NestedRuntimeException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.server.ServerWebInputException;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -12,6 +18,12 @@ import java.util.Map;
 @RestControllerAdvice
 public class GlobalExceptionHandler {
     
+    @ExceptionHandler(InvoiceValidationException.class)
+    public ResponseEntity<ValidationErrorResponse> handleInvoiceValidationException(InvoiceValidationException ex) {
+        return ResponseEntity.badRequest().body(new ValidationErrorResponse("Validation Error", ex.getMessage(),
+                HttpStatus.BAD_REQUEST.toString(), ex.getErrorCount(), ex.getErrors()));
+    }
+    
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<Map<String, String>> handleIllegalArgumentException(IllegalArgumentException ex) {
         Map<String, String> errorResponse = new HashMap<>();
@@ -22,6 +34,75 @@ public class GlobalExceptionHandler {
         return ResponseEntity.badRequest().body(errorResponse);
     }
     
+    // Bodies that do not parse or bind, such as amounts out of range; WebFlux reports them as input exceptions
+    @ExceptionHandler({HttpMessageNotReadableException.class, ServerWebInputException.class})
+    public ResponseEntity<Map<String, String>> handleUnreadableRequest(NestedRuntimeException ex) {
+        Map<String, String> errorResponse = new HashMap<>();
+        errorResponse.put("error", "Validation Error");
+        errorResponse.put("message", ex.getMostSpecificCause() instanceof JsonProcessingException cause
+                ? cause.getOriginalMessage()
+                : "The request could not be read");
+        errorResponse.put("status", HttpStatus.BAD_REQUEST.toString());
+        
+        return ResponseEntity.badRequest().body(errorResponse);
+    }
+    
+    @ExceptionHandler(IdempotencyKeyConflictException.class)
+    public ResponseEntity<Map<String, String>> handleIdempotencyKeyConflictException(IdempotencyKeyConflictException ex) {
+        Map<String, String> errorResponse = new HashMap<>();
+        errorResponse.put("error", "Conflict");
+        errorResponse.put("message", ex.getMessage());
+        errorResponse.put("status", HttpStatus.CONFLICT.toString());
+        
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+    }
+    
+    @ExceptionHandler(WriteBehindQueueFullException.class)
+    public ResponseEntity<Map<String, String>> handleWriteBehindQueueFullException(WriteBehindQueueFullException ex) {
+        Map<String, String> errorResponse = new HashMap<>();
+        errorResponse.put("error", "Service Unavailable");
+        errorResponse.put("message", ex.getMessage());
+        errorResponse.put("status", HttpStatus.SERVICE_UNAVAILABLE.toString());
+        
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(errorResponse);
+    }
+    
+    @ExceptionHandler(AdmissionRejectedException.class)
+    public ResponseEntity<Map<String, String>> handleAdmissionRejectedException(AdmissionRejectedException ex) {
+        Map<String, String> errorResponse = new HashMap<>();
+        errorResponse.put("error", "Too Many Requests");
+        errorResponse.put("message", ex.getMessage());
+        errorResponse.put("status", HttpStatus.TOO_MANY_REQUESTS.toString());
+        
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(ex.getRetryAfterSeconds()))
+                .body(errorResponse);
+    }
+    
+    @ExceptionHandler(AdmissionTooLargeException.class)
+    public ResponseEntity<Map<String, String>> handleAdmissionTooLargeException(AdmissionTooLargeException ex) {
+        Map<String, String> errorResponse = new HashMap<>();
+        errorResponse.put("error", "Payload Too Large");
+        errorResponse.put("message", ex.getMessage());
+        errorResponse.put("status", HttpStatus.PAYLOAD_TOO_LARGE.toString());
+        
+        return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(errorResponse);
+    }
+    
+    @ExceptionHandler(SnapshotUnavailableException.class)
+    public ResponseEntity<Map<String, String>> handleSnapshotUnavailableException(SnapshotUnavailableException ex) {
+        Map<String, String> errorResponse = new HashMap<>();
+        errorResponse.put("error", "Service Unavailable");
+        errorResponse.put("message", ex.getMessage());
+        errorResponse.put("status", HttpStatus.SERVICE_UNAVAILABLE.toString());
+        
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .body(errorResponse);
+    }
+    
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Map<String, String>> handleGenericException(Exception ex) {
         Map<String, String> errorResponse = new HashMap<>();
@@ -0,0 +1,12 @@
+package com.order_invoice.exception;
+
+/**
+ * Thrown when an {@code Idempotency-Key} is reused with a different request, or while the
+ * request that first used it is still being processed; surfaced to clients as 409.
+ */
+public class IdempotencyKeyConflictException extends RuntimeException {
+
+    public IdempotencyKeyConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,37 @@
+package com.order_invoice.exception;
+
+import com.order_invoice.entity.LineError;
+
+import java.util.List;
+
+/**
+ * Thrown when an order fails validation, carrying every line error found in the pricing pass
+ * (up to a cap) with the message of the first. It is stackless: the errors say everything a
+ * client needs, so rejecting an order does not pay for capturing a stack trace.
+ */
+public class InvoiceValidationException extends IllegalArgumentException {
+
+    private final List<LineError> errors;
+
+    private final int errorCount;
+
+    public InvoiceValidationException(String message, List<LineError> errors, int errorCount) {
+        super(message);
+        this.errors = errors;
+        this.errorCount = errorCount;
+    }
+
+    public List<LineError> getErrors() {
+        return errors;
+    }
+
+    // Total errors found, which can exceed the number of errors kept
+    public int getErrorCount() {
+        return errorCount;
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
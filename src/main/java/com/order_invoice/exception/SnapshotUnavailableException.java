@@ -0,0 +1,12 @@
+package com.order_invoice.exception;
+
+/**
+ * Thrown when a report is requested before the first order snapshot has been taken;
+ * surfaced to clients as 503 so they retry shortly.
+ */
+public class SnapshotUnavailableException extends RuntimeException {
+
+    public SnapshotUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package com.order_invoice.exception;
+
+/**
+ * Thrown when the write-behind queue stays full for the configured offer timeout;
+ * surfaced to clients as 503 so they back off and retry.
+ */
+public class WriteBehindQueueFullException extends RuntimeException {
+
+    public WriteBehindQueueFullException(String message) {
+        super(message);
+    }
+}
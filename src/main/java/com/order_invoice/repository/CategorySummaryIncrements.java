@@ -0,0 +1,14 @@
+package com.order_invoice.repository;
+
+
+/**
+ * The summary upsert of {@link CategorySummaryRepository}, implemented over plain JDBC.
+ */
+public interface CategorySummaryIncrements {
+
+    /**
+     * Adds the deltas to the totals of {@code category}, creating it if needed, and bumps its
+     * revision. Returns the number of rows written, always 1.
+     */
+    int increment(String category, long itemCount, long quantity, long invoiced);
+}
@@ -0,0 +1,50 @@
+package com.order_invoice.repository;
+
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+
+/**
+ * Single-statement upsert so concurrent invoices never lose an increment. Two transactions
+ * adding the first lines of a new category both find no row and both insert one; the second
+ * fails on the key once the first commits. That failure only undoes the statement in H2, so
+ * the increment is retried in the same transaction and then matches the committed row. It goes
+ * through JDBC rather than a JPA query because Hibernate would mark the whole transaction
+ * rollback-only on the first failure.
+ */
+public class CategorySummaryIncrementsImpl implements CategorySummaryIncrements {
+
+    private static final String MERGE = """
+            MERGE INTO category_summary s
+            USING (VALUES (CAST(? AS VARCHAR(255)), CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS BIGINT)))
+                AS d(category, item_count, total_quantity, total_invoiced)
+            ON s.category = d.category
+            WHEN MATCHED THEN UPDATE SET
+                item_count = s.item_count + d.item_count,
+                total_quantity = s.total_quantity + d.total_quantity,
+                total_invoiced = s.total_invoiced + d.total_invoiced,
+                revision = s.revision + 1
+            WHEN NOT MATCHED THEN INSERT (category, item_count, total_quantity, total_invoiced, revision)
+                VALUES (d.category, d.item_count, d.total_quantity, d.total_invoiced, 1)
+            """;
+
+
+    private final JdbcTemplate jdbcTemplate;
+
+
+    public CategorySummaryIncrementsImpl(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+
+    @Override
+    public int increment(String category, long itemCount, long quantity, long invoiced) {
+        try {
+            return jdbcTemplate.update(MERGE, category, itemCount, quantity, invoiced);
+        } catch (DataIntegrityViolationException ex) {
+            return jdbcTemplate.update(MERGE, category, itemCount, quantity, invoiced);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+
+package com.order_invoice.repository;
+
+
+import com.order_invoice.entity.CategorySummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CategorySummaryRepository extends JpaRepository<CategorySummary, String>, CategorySummaryIncrements {
+
+    @Query("select coalesce(sum(s.totalInvoiced), 0) from CategorySummary s")
+    long sumTotalInvoiced();
+}
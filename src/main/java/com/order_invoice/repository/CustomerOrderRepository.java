@@ -0,0 +1,19 @@
+
+package com.order_invoice.repository;
+
+
+import com.order_invoice.entity.CustomerOrder;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface CustomerOrderRepository extends JpaRepository<CustomerOrder, Long> {
+
+    // Header and lines in a single select
+    @Query("select o from CustomerOrder o left join fetch o.items where o.id = :id")
+    Optional<CustomerOrder> findWithItemsById(@Param("id") long id);
+}
@@ -0,0 +1,82 @@
+package com.order_invoice.repository;
+
+
+import com.order_invoice.config.InvoiceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Plain JDBC reads of {@code order_items} for exports and reporting snapshots. Rows are handed
+ * to the callback one at a time as the driver fetches them, {@code invoice.export.fetch-size}
+ * rows per round trip, so nothing is materialized or tracked by the persistence context.
+ */
+@Repository
+public class ExportRepository {
+
+    private static final String ITEMS = "select id, product_name, category, quantity, unit_price from order_items";
+
+    private static final String INVOICE_ITEMS = "select id, order_id, product_name, category, quantity, unit_price, line_total "
+            + "from order_items";
+
+
+    private final JdbcTemplate jdbcTemplate;
+
+
+    public ExportRepository(DataSource dataSource, InvoiceProperties invoiceProperties) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(invoiceProperties.getExport().getFetchSize());
+    }
+
+
+    /**
+     * Columns: id, product_name, category, quantity, unit_price.
+     */
+    public void forEachItem(String category, Long minId, Long maxId, RowCallbackHandler handler) {
+        query(ITEMS, category, minId, maxId, handler);
+    }
+
+
+    /**
+     * Columns: id, order_id, product_name, category, quantity, unit_price, line_total.
+     */
+    public void forEachInvoiceItem(String category, Long minId, Long maxId, RowCallbackHandler handler) {
+        query(INVOICE_ITEMS, category, minId, maxId, handler);
+    }
+
+
+    /**
+     * Every row in no particular order. Columns: id, category, quantity, unit_price, line_total.
+     */
+    public void forEachSnapshotRow(RowCallbackHandler handler) {
+        jdbcTemplate.query("select id, category, quantity, unit_price, line_total from order_items", handler);
+    }
+
+
+    // Optional filters; the id range is inclusive at both ends
+    private void query(String select, String category, Long minId, Long maxId, RowCallbackHandler handler) {
+        List<String> conditions = new ArrayList<>(3);
+        List<Object> args = new ArrayList<>(3);
+        if (category != null) {
+            conditions.add("category = ?");
+            args.add(category);
+        }
+        if (minId != null) {
+            conditions.add("id >= ?");
+            args.add(minId);
+        }
+        if (maxId != null) {
+            conditions.add("id <= ?");
+            args.add(maxId);
+        }
+
+        String sql = select
+                + (conditions.isEmpty() ? "" : " where " + String.join(" and ", conditions))
+                + " order by id";
+        jdbcTemplate.query(sql, handler, args.toArray());
+    }
+}
@@ -0,0 +1,51 @@
+package com.order_invoice.repository;
+
+
+import com.order_invoice.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    // Insert-if-absent: returns 0 when the key is already taken, without raising a constraint violation
+    @Transactional
+    @Modifying
+    @Query(value = """
+            MERGE INTO idempotency_keys k
+            USING (VALUES (CAST(:key AS VARCHAR(255)), CAST(:fingerprint AS BIGINT), CAST(:createdAt AS TIMESTAMP(6) WITH TIME ZONE)))
+                AS r(idempotency_key, fingerprint, created_at)
+            ON k.idempotency_key = r.idempotency_key
+            WHEN NOT MATCHED THEN INSERT (idempotency_key, fingerprint, created_at)
+                VALUES (r.idempotency_key, r.fingerprint, r.created_at)
+            """, nativeQuery = true)
+    int reserve(@Param("key") String key, @Param("fingerprint") long fingerprint, @Param("createdAt") Instant createdAt);
+
+    @Transactional
+    @Modifying
+    @Query("update IdempotencyRecord r set r.response = :response where r.key = :key")
+    void complete(@Param("key") String key, @Param("response") String response);
+
+    // Frees the key of a request that failed, so the client can retry with it
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.key = :key and r.response is null")
+    void release(@Param("key") String key);
+
+    // Frees a key whose first request was abandoned (e.g. the instance died) before completing
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.key = :key and r.response is null and r.createdAt < :before")
+    int releaseStale(@Param("key") String key, @Param("before") Instant before);
+
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") Instant before);
+}
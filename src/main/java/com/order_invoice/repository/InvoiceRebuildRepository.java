@@ -0,0 +1,54 @@
+package com.order_invoice.repository;
+
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Plain JDBC access to stored line and order totals for repricing. {@code OrderItem} is mapped
+ * immutable, so its totals are rewritten here rather than through the persistence context.
+ */
+@Repository
+public class InvoiceRebuildRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+
+    public InvoiceRebuildRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+
+    /**
+     * Lines with {@code after < id <= upTo}, each with the customer of its order. Columns: id,
+     * order_id, customer_id, category, quantity, unit_price, line_total.
+     */
+    public void forEachLine(long after, long upTo, RowCallbackHandler handler) {
+        jdbcTemplate.query("select i.id, i.order_id, o.customer_id, i.category, i.quantity, i.unit_price, i.line_total "
+                + "from order_items i left join orders o on o.id = i.order_id "
+                + "where i.id > ? and i.id <= ?", handler, after, upTo);
+    }
+
+
+    /**
+     * Sets line totals from {id, expected total, new total} triples, leaving lines whose total is
+     * no longer the expected one. Returns 1 for each line updated and 0 for each line left.
+     */
+    public int[] updateLineTotals(List<long[]> totals) {
+        return jdbcTemplate.batchUpdate("update order_items set line_total = ? where id = ? and line_total = ?",
+                totals.stream().map(line -> new Object[]{line[2], line[0], line[1]}).toList());
+    }
+
+
+    /**
+     * Adds each {order ID, delta} pair to that order's grand total.
+     */
+    public void addToGrandTotals(List<long[]> deltas) {
+        jdbcTemplate.batchUpdate("update orders set grand_total = grand_total + ? where id = ?",
+                deltas.stream().map(delta -> new Object[]{delta[1], delta[0]}).toList());
+    }
+}
@@ -2,14 +2,59 @@
 package com.order_invoice.repository;
 
 
+import com.order_invoice.entity.InvoiceLineView;
 import com.order_invoice.entity.OrderItem;
+import com.order_invoice.entity.OrderItemView;
+import com.order_invoice.entity.OrderItemsVersion;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface OrderRepository extends JpaRepository<OrderItem, Long> {
-    List<OrderItem> findByCategory(String category);
-    List<OrderItem> findByQuantityGreaterThanEqual(int quantity);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<OrderItem> streamAllByOrderByIdAsc();
+
+    // Two statements: H2 answers count and max of the primary key from the index alone, but scans
+    // every row once anything else, such as a subquery, shares the statement
+    default OrderItemsVersion findVersion() {
+        OrderItemsVersion items = findRowsAndLastId();
+        return new OrderItemsVersion(items.getRows(), items.getLastId(), findSummaryRevision());
+    }
+
+    @Query("select new com.order_invoice.entity.OrderItemsVersion(count(o), coalesce(max(o.id), 0), 0L) from OrderItem o")
+    OrderItemsVersion findRowsAndLastId();
+
+    @Query("select coalesce(sum(s.revision), 0) from CategorySummary s")
+    long findSummaryRevision();
+
+    // Keyset pages: rows with id > after, in id order, as unmanaged projections
+
+    @Query("select new com.order_invoice.entity.OrderItemView(o.id, o.productName, o.category, o.quantity, o.unitPrice) "
+            + "from OrderItem o where o.id > :after order by o.id")
+    List<OrderItemView> findPageAfter(@Param("after") long after, Limit limit);
+
+    @Query("select new com.order_invoice.entity.OrderItemView(o.id, o.productName, o.category, o.quantity, o.unitPrice) "
+            + "from OrderItem o where o.category = :category and o.id > :after order by o.id")
+    List<OrderItemView> findPageByCategoryAfter(@Param("category") String category, @Param("after") long after, Limit limit);
+
+    @Query("select new com.order_invoice.entity.OrderItemView(o.id, o.productName, o.category, o.quantity, o.unitPrice) "
+            + "from OrderItem o where o.quantity >= :quantity and o.id > :after order by o.id")
+    List<OrderItemView> findPageByQuantityAtLeastAfter(@Param("quantity") int quantity, @Param("after") long after, Limit limit);
+
+    @Query("select new com.order_invoice.entity.InvoiceLineView(o.id, o.productName, o.category, o.quantity, o.unitPrice, o.lineTotal) "
+            + "from OrderItem o where o.id > :after order by o.id")
+    List<InvoiceLineView> findInvoicePageAfter(@Param("after") long after, Limit limit);
 }
\ No newline at end of file
@@ -0,0 +1,281 @@
+package com.order_invoice.repository;
+
+
+import com.order_invoice.entity.CategorySummary;
+import com.order_invoice.entity.InvoiceItem;
+import com.order_invoice.entity.InvoiceLineView;
+import com.order_invoice.entity.InvoiceResponse;
+import com.order_invoice.entity.OrderItem;
+import com.order_invoice.entity.OrderItemView;
+import com.order_invoice.entity.OrderItemsVersion;
+import io.r2dbc.spi.Readable;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.util.List;
+
+/**
+ * R2DBC counterpart of {@link OrderRepository}, {@link CustomerOrderRepository} and
+ * {@link CategorySummaryRepository} for the reactive stack, over the tables JPA maps.
+ * <p>
+ * IDs are drawn from the same sequences as Hibernate's pooled optimizer and used the same way:
+ * a sequence value {@code v} reserves IDs {@code v - 49} to {@code v}, so rows written by
+ * either stack never collide.
+ */
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveOrderRepository {
+
+    // allocationSize of the order_seq and order_item_seq generators
+    private static final int ALLOCATION_SIZE = 50;
+
+    private static final String VIEW_COLUMNS = "select id, product_name, category, quantity, unit_price from order_items ";
+
+    private static final String INVOICE_COLUMNS = "select product_name, category, quantity, unit_price, line_total from order_items ";
+
+
+    private final DatabaseClient databaseClient;
+
+
+    public ReactiveOrderRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+
+    // Keyset pages: rows with id > after, in id order
+
+    public Flux<OrderItemView> findPageAfter(long after, int limit) {
+        return databaseClient.sql(VIEW_COLUMNS + "where id > :after order by id limit :limit")
+                .bind("after", after)
+                .bind("limit", limit)
+                .map(ReactiveOrderRepository::toView)
+                .all();
+    }
+
+
+    public Flux<OrderItemView> findPageByCategoryAfter(String category, long after, int limit) {
+        return databaseClient.sql(VIEW_COLUMNS + "where category = :category and id > :after order by id limit :limit")
+                .bind("category", category)
+                .bind("after", after)
+                .bind("limit", limit)
+                .map(ReactiveOrderRepository::toView)
+                .all();
+    }
+
+
+    public Flux<OrderItemView> findPageByQuantityAtLeastAfter(int quantity, long after, int limit) {
+        return databaseClient.sql(VIEW_COLUMNS + "where quantity >= :quantity and id > :after order by id limit :limit")
+                .bind("quantity", quantity)
+                .bind("after", after)
+                .bind("limit", limit)
+                .map(ReactiveOrderRepository::toView)
+                .all();
+    }
+
+
+    // Same as OrderRepository.findInvoicePageAfter
+    public Flux<InvoiceLineView> findInvoicePageAfter(long after, int limit) {
+        return databaseClient.sql("select id, product_name, category, quantity, unit_price, line_total "
+                        + "from order_items where id > :after order by id limit :limit")
+                .bind("after", after)
+                .bind("limit", limit)
+                .map(row -> new InvoiceLineView(row.get("id", Long.class), row.get("product_name", String.class),
+                        row.get("category", String.class), row.get("quantity", Integer.class),
+                        row.get("unit_price", Long.class), row.get("line_total", Long.class)))
+                .all();
+    }
+
+
+    public Flux<InvoiceItem> findAllInvoiceItems() {
+        return databaseClient.sql(INVOICE_COLUMNS + "order by id")
+                .map(ReactiveOrderRepository::toInvoiceItem)
+                .all();
+    }
+
+
+    /**
+     * The stored invoice of an order, or empty when there is no such order.
+     */
+    public Mono<InvoiceResponse> findInvoiceByOrderId(long orderId) {
+        Mono<Long> grandTotal = databaseClient.sql("select grand_total from orders where id = :id")
+                .bind("id", orderId)
+                .map(row -> row.get("grand_total", Long.class))
+                .one();
+        Mono<List<InvoiceItem>> items = databaseClient.sql(INVOICE_COLUMNS + "where order_id = :id order by id")
+                .bind("id", orderId)
+                .map(ReactiveOrderRepository::toInvoiceItem)
+                .all()
+                .collectList();
+
+        return grandTotal.zipWith(items, (total, invoiceItems) -> {
+            InvoiceResponse invoice = new InvoiceResponse(invoiceItems, total);
+            invoice.setOrderId(orderId);
+            return invoice;
+        });
+    }
+
+
+    // Two statements, as in OrderRepository#findVersion, so the item count and highest ID come from
+    // the index. H2 sums BIGINT columns as NUMERIC, hence the cast
+    public Mono<OrderItemsVersion> findVersion() {
+        Mono<long[]> items = databaseClient.sql("select count(*) as row_count, coalesce(max(id), 0) as last_id from order_items")
+                .map(row -> new long[]{row.get("row_count", Long.class), row.get("last_id", Long.class)})
+                .one();
+        Mono<Long> summaryRevision = databaseClient.sql("select cast(coalesce(sum(revision), 0) as bigint) as summary_revision from category_summary")
+                .map(row -> row.get("summary_revision", Long.class))
+                .one();
+        return Mono.zip(items, summaryRevision,
+                (rows, revision) -> new OrderItemsVersion(rows[0], rows[1], revision));
+    }
+
+
+    public Mono<Long> findGrandTotal() {
+        return databaseClient.sql("select cast(coalesce(sum(total_invoiced), 0) as bigint) as grand_total from category_summary")
+                .map(row -> row.get("grand_total", Long.class))
+                .one();
+    }
+
+
+    public Flux<CategorySummary> findSummaries() {
+        return databaseClient.sql("select category, item_count, total_quantity, total_invoiced from category_summary order by category")
+                .map(row -> new CategorySummary(row.get("category", String.class), row.get("item_count", Long.class),
+                        row.get("total_quantity", Long.class), row.get("total_invoiced", Long.class)))
+                .all();
+    }
+
+
+    /**
+     * Inserts an order header and its already-priced items, returning the new order ID. Run it
+     * in a transaction together with the summary increments.
+     */
+    public Mono<Long> insertOrder(String customerId, long grandTotal, List<OrderItem> items) {
+        return nextIds("order_seq", 1)
+                .flatMap(orderIds -> bindNullable(databaseClient.sql("insert into orders (id, customer_id, grand_total) values (:id, :customerId, :grandTotal)")
+                                .bind("id", orderIds[0])
+                                .bind("grandTotal", grandTotal), "customerId", customerId)
+                        .then()
+                        .then(nextIds("order_item_seq", items.size()))
+                        .flatMap(itemIds -> insertItems(orderIds[0], items, itemIds))
+                        .thenReturn(orderIds[0]));
+    }
+
+
+    // Same single-statement upsert as CategorySummaryIncrementsImpl, retried once when a concurrent
+    // first insert of the category wins the key
+    public Mono<Void> incrementSummary(CategorySummary delta) {
+        return databaseClient.sql("""
+                        MERGE INTO category_summary s
+                        USING (VALUES (CAST(:category AS VARCHAR(255)), CAST(:itemCount AS BIGINT),
+                                       CAST(:quantity AS BIGINT), CAST(:invoiced AS BIGINT)))
+                            AS d(category, item_count, total_quantity, total_invoiced)
+                        ON s.category = d.category
+                        WHEN MATCHED THEN UPDATE SET
+                            item_count = s.item_count + d.item_count,
+                            total_quantity = s.total_quantity + d.total_quantity,
+                            total_invoiced = s.total_invoiced + d.total_invoiced,
+                            revision = s.revision + 1
+                        WHEN NOT MATCHED THEN INSERT (category, item_count, total_quantity, total_invoiced, revision)
+                            VALUES (d.category, d.item_count, d.total_quantity, d.total_invoiced, 1)
+                        """)
+                .bind("category", delta.getCategory())
+                .bind("itemCount", delta.getItemCount())
+                .bind("quantity", delta.getTotalQuantity())
+                .bind("invoiced", delta.getTotalInvoiced())
+                .then()
+                .retryWhen(Retry.max(1).filter(DataIntegrityViolationException.class::isInstance));
+    }
+
+
+    // Same as IdempotencyRecordRepository.complete, inside the transaction that inserts the order
+    public Mono<Void> completeIdempotencyKey(String key, String response) {
+        return databaseClient.sql("update idempotency_keys set response = :response where idempotency_key = :key")
+                .bind("response", response)
+                .bind("key", key)
+                .then();
+    }
+
+
+    // One batched statement for all items of the order
+    private Mono<Void> insertItems(long orderId, List<OrderItem> items, long[] ids) {
+        return databaseClient.inConnectionMany(connection -> {
+            Statement statement = connection.createStatement("insert into order_items "
+                    + "(id, product_name, category, quantity, unit_price, line_total, order_id) values ($1, $2, $3, $4, $5, $6, $7)");
+            for (int i = 0; i < items.size(); i++) {
+                OrderItem item = items.get(i);
+                if (i > 0) {
+                    statement.add();
+                }
+                statement.bind("$1", ids[i]).bind("$4", item.getQuantity()).bind("$5", item.getUnitPrice())
+                        .bind("$6", item.getLineTotal()).bind("$7", orderId);
+                bindNullable(statement, "$2", item.getProductName());
+                bindNullable(statement, "$3", item.getCategory());
+            }
+            return Flux.from(statement.execute()).flatMap(Result::getRowsUpdated);
+        }).then();
+    }
+
+
+    /**
+     * Reserves {@code count} IDs from a pooled sequence, drawing as many sequence values as it
+     * takes. A value below the allocation size, such as the sequence's first value 1, only
+     * reserves the IDs from 1 up to it.
+     */
+    private Mono<long[]> nextIds(String sequence, int count) {
+        int values = (count + ALLOCATION_SIZE - 1) / ALLOCATION_SIZE;
+        return databaseClient.sql("select next value for " + sequence + " as v from system_range(1, :values)")
+                .bind("values", values)
+                .map(row -> row.get("v", Long.class))
+                .all()
+                .collectList()
+                .flatMap(highs -> {
+                    long[] ids = new long[count];
+                    int filled = 0;
+                    for (long high : highs) {
+                        for (long id = Math.max(1, high - ALLOCATION_SIZE + 1); id <= high && filled < count; id++) {
+                            ids[filled++] = id;
+                        }
+                    }
+                    if (filled == count) {
+                        return Mono.just(ids);
+                    }
+                    int reserved = filled;
+                    return nextIds(sequence, count - reserved).map(rest -> {
+                        System.arraycopy(rest, 0, ids, reserved, rest.length);
+                        return ids;
+                    });
+                });
+    }
+
+
+    private static void bindNullable(Statement statement, String name, String value) {
+        if (value == null) {
+            statement.bindNull(name, String.class);
+        } else {
+            statement.bind(name, value);
+        }
+    }
+
+
+    private static DatabaseClient.GenericExecuteSpec bindNullable(DatabaseClient.GenericExecuteSpec spec, String name, String value) {
+        return value == null ? spec.bindNull(name, String.class) : spec.bind(name, value);
+    }
+
+
+    private static OrderItemView toView(Readable row) {
+        return new OrderItemView(row.get("id", Long.class), row.get("product_name", String.class),
+                row.get("category", String.class), row.get("quantity", Integer.class), row.get("unit_price", Long.class));
+    }
+
+
+    private static InvoiceItem toInvoiceItem(Readable row) {
+        return new InvoiceItem(row.get("product_name", String.class), row.get("category", String.class),
+                row.get("quantity", Integer.class), row.get("unit_price", Long.class), row.get("line_total", Long.class));
+    }
+}
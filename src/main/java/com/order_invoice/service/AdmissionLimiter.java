@@ -0,0 +1,174 @@
+package com.order_invoice.service;
+
+
+import com.order_invoice.config.InvoiceProperties;
+import com.order_invoice.exception.AdmissionRejectedException;
+import com.order_invoice.exception.AdmissionTooLargeException;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Token-bucket admission for order submissions, one bucket per client stripe plus one shared
+ * by all clients, each weighted by the number of items submitted.
+ * <p>
+ * Buckets use the generic cell rate algorithm: a bucket is a single "theoretical arrival time"
+ * that advances by {@code weight / rate} per admission, and a request is admitted while that
+ * time stays within {@code burst / rate} of now. Admitting is one compare-and-set per bucket,
+ * with no locks and no refill thread. Client buckets live in a fixed array indexed by a hash of
+ * the client key, so memory stays bounded however many clients there are; each bucket gets its
+ * own cache line so that busy clients do not contend through false sharing.
+ */
+@Component
+public class AdmissionLimiter {
+
+    // Longs per cache line; only the first slot of each line is used
+    private static final int PADDING = 8;
+
+    private static final int GLOBAL = 0;
+
+
+    private final InvoiceMetrics invoiceMetrics;
+
+    private final boolean enabled;
+
+    private final Rate globalRate;
+
+    private final Rate clientRate;
+
+    private final int stripeMask;
+
+    // Theoretical arrival times in nanos since origin: the global bucket, then the client stripes
+    private final AtomicLongArray buckets;
+
+    private final long origin = System.nanoTime();
+
+
+    public AdmissionLimiter(InvoiceProperties invoiceProperties, InvoiceMetrics invoiceMetrics) {
+        InvoiceProperties.Admission settings = invoiceProperties.getAdmission();
+        this.invoiceMetrics = invoiceMetrics;
+        this.enabled = settings.isEnabled();
+        this.globalRate = new Rate(settings.getGlobalRate(), settings.getGlobalBurst(), "global");
+        this.clientRate = new Rate(settings.getClientRate(), settings.getClientBurst(), "client");
+        if (settings.getClientStripes() < 1) {
+            throw new IllegalArgumentException("invoice.admission.client-stripes must be at least 1");
+        }
+        int stripes = Integer.highestOneBit(settings.getClientStripes() * 2 - 1);
+        this.stripeMask = stripes - 1;
+        this.buckets = new AtomicLongArray((stripes + 1) * PADDING);
+    }
+
+
+    /**
+     * Admits {@code items} order items for {@code client}, or rejects them without using any of
+     * either limit.
+     *
+     * @throws AdmissionRejectedException if the client or global rate would be exceeded
+     * @throws AdmissionTooLargeException if the items exceed the client or global burst, which
+     *                                    even a full bucket could not admit
+     */
+    public void admit(String client, int items) {
+        if (enabled) {
+            admit(client, items, System.nanoTime() - origin);
+        }
+    }
+
+
+    void admit(String client, int items, long now) {
+        int clientSlot = (stripe(client) + 1) * PADDING;
+
+        if (items > clientRate.burst || items > globalRate.burst) {
+            invoiceMetrics.admissionRejected(items <= clientRate.burst);
+            throw new AdmissionTooLargeException("At most " + Math.min(clientRate.burst, globalRate.burst)
+                    + " items can be submitted in one request, split the orders");
+        }
+
+        long clientWait = clientRate.tryAcquire(buckets, clientSlot, items, now);
+        if (clientWait > 0) {
+            invoiceMetrics.admissionRejected(false);
+            throw new AdmissionRejectedException("Too many items submitted by this client, retry later", seconds(clientWait));
+        }
+
+        long globalWait = globalRate.tryAcquire(buckets, GLOBAL, items, now);
+        if (globalWait > 0) {
+            clientRate.release(buckets, clientSlot, items);
+            invoiceMetrics.admissionRejected(true);
+            throw new AdmissionRejectedException("Too many items are being submitted, retry later", seconds(globalWait));
+        }
+    }
+
+
+    /**
+     * The client named by a header that a trusted proxy sets, given its values in order. Proxies
+     * append to a list such as {@code X-Forwarded-For}, whose earlier entries come from the
+     * client itself, so only the last entry, the one the nearest proxy added, identifies it.
+     */
+    public static String lastHop(List<String> headerValues) {
+        if (headerValues == null || headerValues.isEmpty()) {
+            return null;
+        }
+        String value = headerValues.get(headerValues.size() - 1);
+        String hop = value.substring(value.lastIndexOf(',') + 1).strip();
+        return hop.isEmpty() ? null : hop;
+    }
+
+
+    private int stripe(String client) {
+        int hash = (client == null ? 0 : client.hashCode()) * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & stripeMask;
+    }
+
+
+    private static long seconds(long nanos) {
+        return Math.max(1, (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+
+
+    /**
+     * A configured rate and burst, as the nanos one item advances a bucket and the most a
+     * bucket may run ahead of now.
+     */
+    private static final class Rate {
+
+        private final long nanosPerItem;
+
+        private final long tolerance;
+
+        private final int burst;
+
+
+        Rate(double itemsPerSecond, int burst, String name) {
+            if (!(itemsPerSecond > 0) || burst < 1) {
+                throw new IllegalArgumentException("invoice.admission." + name + "-rate must be positive and "
+                        + name + "-burst at least 1");
+            }
+            this.nanosPerItem = Math.max(1, Math.round(TimeUnit.SECONDS.toNanos(1) / itemsPerSecond));
+            this.tolerance = Math.multiplyExact(nanosPerItem, (long) burst);
+            this.burst = burst;
+        }
+
+
+        // Returns 0 once admitted, or how many nanos to wait before the items would be; items are at most burst
+        long tryAcquire(AtomicLongArray buckets, int slot, int items, long now) {
+            long cost = nanosPerItem * Math.max(1, items);
+            while (true) {
+                long arrival = buckets.get(slot);
+                long next = Math.max(arrival, now) + cost;
+                long wait = next - now - tolerance;
+                if (wait > 0) {
+                    return wait;
+                }
+                if (buckets.compareAndSet(slot, arrival, next)) {
+                    return 0;
+                }
+            }
+        }
+
+
+        void release(AtomicLongArray buckets, int slot, int items) {
+            buckets.addAndGet(slot, -nanosPerItem * Math.max(1, items));
+        }
+    }
+}
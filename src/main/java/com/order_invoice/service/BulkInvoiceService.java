@@ -0,0 +1,127 @@
+
+package com.order_invoice.service;
+
+
+import com.order_invoice.config.InvoiceProperties;
+import com.order_invoice.entity.BulkInvoiceResponse;
+import com.order_invoice.entity.BulkInvoiceResult;
+import com.order_invoice.entity.CustomerOrder;
+import com.order_invoice.entity.InvoiceItem;
+import com.order_invoice.entity.InvoiceResponse;
+import com.order_invoice.entity.OrderRequest;
+import com.order_invoice.exception.InvoiceValidationException;
+import lombok.AllArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Invoices many independent orders in one call. Orders are validated and priced in parallel
+ * on the common fork-join pool, then persisted in grouped {@code saveAll} batches; a failure
+ * in one order (or one persistence group) is reported against that order only.
+ */
+@Service
+@AllArgsConstructor
+public class BulkInvoiceService {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkInvoiceService.class);
+
+
+    private InvoiceService invoiceService;
+
+    private OrderWriter orderWriter;
+
+    private InvoiceProperties invoiceProperties;
+
+
+    public BulkInvoiceResponse generateInvoices(List<OrderRequest> orders) {
+        if (orders == null || orders.isEmpty()) {
+            throw new IllegalArgumentException("Orders list cannot be null or empty");
+        }
+        int maxOrders = invoiceProperties.getBulk().getMaxOrders();
+        if (orders.size() > maxOrders) {
+            throw new IllegalArgumentException("A bulk request cannot contain more than " + maxOrders + " orders");
+        }
+
+
+        BulkInvoiceResult[] results = new BulkInvoiceResult[orders.size()];
+        IntStream.range(0, orders.size())
+                .parallel()
+                .forEach(index -> results[index] = price(index, orders.get(index)));
+
+
+        persist(orders, results);
+
+
+        int succeeded = (int) Arrays.stream(results).filter(BulkInvoiceResult::isSuccessful).count();
+        return new BulkInvoiceResponse(succeeded, results.length - succeeded, Arrays.asList(results));
+    }
+
+
+    private BulkInvoiceResult price(int index, OrderRequest order) {
+        try {
+            return order == null
+                    ? BulkInvoiceResult.success(index, invoiceService.price(null, null))
+                    : BulkInvoiceResult.success(index, invoiceService.price(order.getCustomerId(), order.getItems()));
+        } catch (InvoiceValidationException ex) {
+            return BulkInvoiceResult.failure(index, ex.getMessage(), ex.getErrors());
+        } catch (IllegalArgumentException ex) {
+            return BulkInvoiceResult.failure(index, ex.getMessage());
+        } catch (RuntimeException ex) {
+            log.warn("Failed to price order {} of bulk request", index, ex);
+            return BulkInvoiceResult.failure(index, "An unexpected error occurred");
+        }
+    }
+
+
+    private void persist(List<OrderRequest> orders, BulkInvoiceResult[] results) {
+        int chunkSize = invoiceProperties.getBulk().getPersistChunkSize();
+
+        List<Integer> chunkOrders = new ArrayList<>();
+        List<CustomerOrder> chunkHeaders = new ArrayList<>();
+        List<InvoiceItem> chunkInvoiceItems = new ArrayList<>();
+        for (int index = 0; index < results.length; index++) {
+            if (!results[index].isSuccessful()) {
+                continue;
+            }
+
+            InvoiceResponse invoice = results[index].getInvoice();
+            chunkOrders.add(index);
+            OrderRequest order = orders.get(index);
+            chunkHeaders.add(new CustomerOrder(order.getCustomerId(), order.getItems(), invoice.getGrandTotal()));
+            chunkInvoiceItems.addAll(invoice.getInvoice());
+            if (chunkInvoiceItems.size() >= chunkSize) {
+                saveChunk(chunkOrders, chunkHeaders, chunkInvoiceItems, results);
+                chunkOrders.clear();
+                chunkHeaders.clear();
+                chunkInvoiceItems.clear();
+            }
+        }
+
+        if (!chunkInvoiceItems.isEmpty()) {
+            saveChunk(chunkOrders, chunkHeaders, chunkInvoiceItems, results);
+        }
+    }
+
+
+    private void saveChunk(List<Integer> chunkOrders, List<CustomerOrder> chunkHeaders,
+                           List<InvoiceItem> chunkInvoiceItems, BulkInvoiceResult[] results) {
+        try {
+            orderWriter.persist(chunkHeaders, chunkInvoiceItems);
+            for (int i = 0; i < chunkOrders.size(); i++) {
+                results[chunkOrders.get(i)].getInvoice().setOrderId(chunkHeaders.get(i).getId());
+            }
+        } catch (DataAccessException ex) {
+            log.warn("Failed to persist {} orders of bulk request", chunkOrders.size(), ex);
+            for (int index : chunkOrders) {
+                results[index] = BulkInvoiceResult.failure(index, "Failed to persist order");
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+
+package com.order_invoice.service;
+
+
+import com.order_invoice.entity.CategorySummary;
+import com.order_invoice.entity.InvoiceItem;
+import com.order_invoice.repository.CategorySummaryRepository;
+import lombok.AllArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+@AllArgsConstructor
+public class CategorySummaryService {
+
+    // Summary key for items submitted without a category
+    public static final String UNCATEGORIZED = "(none)";
+
+
+    private CategorySummaryRepository categorySummaryRepository;
+
+
+    /**
+     * Folds freshly invoiced lines into the per-category totals: one upsert per distinct
+     * category in the batch, regardless of how many lines it has.
+     */
+    public void record(List<InvoiceItem> invoiceItems) {
+        adjust(deltas(invoiceItems));
+    }
+
+
+    /**
+     * Adds each delta to the totals of its category, creating the category if needed.
+     */
+    public void adjust(Collection<CategorySummary> deltas) {
+        deltas.forEach(delta -> categorySummaryRepository.increment(
+                delta.getCategory(), delta.getItemCount(), delta.getTotalQuantity(), delta.getTotalInvoiced()));
+    }
+
+
+    /**
+     * Sums invoiced lines per category, the increments {@link #record(List)} applies.
+     */
+    public static Collection<CategorySummary> deltas(List<InvoiceItem> invoiceItems) {
+        Map<String, CategorySummary> deltas = new HashMap<>();
+        for (InvoiceItem item : invoiceItems) {
+            String category = item.getCategory() == null ? UNCATEGORIZED : item.getCategory();
+            CategorySummary delta = deltas.computeIfAbsent(category, key -> new CategorySummary(key, 0, 0, 0));
+            delta.setItemCount(delta.getItemCount() + 1);
+            delta.setTotalQuantity(delta.getTotalQuantity() + item.getQuantity());
+            delta.setTotalInvoiced(delta.getTotalInvoiced() + item.getLineTotal());
+        }
+        return deltas.values();
+    }
+
+
+    @Transactional(readOnly = true)
+    public List<CategorySummary> getSummaries() {
+        return categorySummaryRepository.findAll(Sort.by("category"));
+    }
+
+
+    /**
+     * Invoiced total over all categories, which is the grand total of every stored line.
+     */
+    public long getGrandTotal() {
+        return categorySummaryRepository.sumTotalInvoiced();
+    }
+}
@@ -0,0 +1,52 @@
+package com.order_invoice.service;
+
+
+import com.order_invoice.config.InvoiceProperties;
+import com.order_invoice.entity.DiscountRule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Holds the current {@link DiscountRuleTable}, compiled from {@code invoice.pricing.discount-rules}
+ * at startup. {@link #reload(List)} compiles and swaps in a new table atomically.
+ */
+@Component
+public class DiscountRuleRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(DiscountRuleRegistry.class);
+
+
+    private volatile DiscountRuleTable table;
+
+
+    public DiscountRuleRegistry(InvoiceProperties invoiceProperties) {
+        this.table = DiscountRuleTable.of(invoiceProperties.getPricing().getDiscountRules());
+    }
+
+
+    public DiscountRuleTable.Schedule forCustomer(String customerId) {
+        return table.forCustomer(customerId);
+    }
+
+
+    public DiscountRuleTable getTable() {
+        return table;
+    }
+
+
+    public List<DiscountRule> getRules() {
+        return table.rules();
+    }
+
+
+    public DiscountRuleTable reload(List<DiscountRule> rules) {
+        DiscountRuleTable reloaded = DiscountRuleTable.of(rules);
+        table = reloaded;
+
+        log.info("Reloaded {} discount rules", reloaded.size());
+        return reloaded;
+    }
+}
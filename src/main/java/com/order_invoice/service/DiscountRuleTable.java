@@ -0,0 +1,217 @@
+package com.order_invoice.service;
+
+
+import com.order_invoice.entity.DiscountRule;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable set of discount rules, compiled when it is built so that pricing a line costs the
+ * same however many rules are configured.
+ * <p>
+ * Every customer with rules of its own gets a {@link Schedule} with the general rules folded in,
+ * and every other customer shares the general one. Within a schedule each category, with the
+ * any-category rules folded in, is reduced to a step function from quantity to the best
+ * discount, so a line is priced with two {@link KeyIndex} lookups and a binary search over a
+ * handful of thresholds.
+ */
+public final class DiscountRuleTable {
+
+    public static final long BASIS_POINTS = 10_000;
+
+
+    private final List<DiscountRule> rules;
+
+    private final KeyIndex customers;
+
+    private final Schedule[] customerSchedules;
+
+    private final Schedule defaultSchedule;
+
+
+    private DiscountRuleTable(List<DiscountRule> rules) {
+        this.rules = rules;
+
+        List<DiscountRule> general = new ArrayList<>();
+        Map<String, List<DiscountRule>> byCustomer = new LinkedHashMap<>();
+        for (DiscountRule rule : rules) {
+            if (rule.getCustomerId() == null) {
+                general.add(rule);
+            } else {
+                byCustomer.computeIfAbsent(rule.getCustomerId(), customerId -> new ArrayList<>()).add(rule);
+            }
+        }
+
+        this.defaultSchedule = Schedule.compile(general);
+
+        String[] customerIds = byCustomer.keySet().toArray(new String[0]);
+        this.customerSchedules = new Schedule[customerIds.length];
+        for (int id = 0; id < customerIds.length; id++) {
+            List<DiscountRule> applicable = new ArrayList<>(general);
+            applicable.addAll(byCustomer.get(customerIds[id]));
+            customerSchedules[id] = Schedule.compile(applicable);
+        }
+        this.customers = new KeyIndex(customerIds);
+    }
+
+
+    public static DiscountRuleTable of(List<DiscountRule> rules) {
+        List<DiscountRule> normalized = new ArrayList<>(rules.size());
+        for (DiscountRule rule : rules) {
+            if (rule == null) {
+                throw new IllegalArgumentException("Discount rule cannot be null");
+            }
+            if (rule.getMinQuantity() < 1) {
+                throw new IllegalArgumentException("Minimum quantity of a discount rule must be at least 1");
+            }
+            if (!(rule.getDiscount() >= 0 && rule.getDiscount() < 1)) {
+                throw new IllegalArgumentException("Discount must be between 0 and 1");
+            }
+            normalized.add(new DiscountRule(normalize(rule.getCategory()), normalize(rule.getCustomerId()),
+                    rule.getMinQuantity(), rule.getDiscount()));
+        }
+        return new DiscountRuleTable(List.copyOf(normalized));
+    }
+
+
+    /**
+     * Returns the discounts that apply to {@code customerId}; unknown or null customers get the
+     * general rules only. Resolve this once per order and reuse it for every line.
+     */
+    public Schedule forCustomer(String customerId) {
+        int id = customers.idOf(customerId);
+        return id == KeyIndex.MISSING ? defaultSchedule : customerSchedules[id];
+    }
+
+
+    public int size() {
+        return rules.size();
+    }
+
+
+    public List<DiscountRule> rules() {
+        return rules;
+    }
+
+
+    private static String normalize(String key) {
+        return key == null || key.isBlank() ? null : key.trim().toLowerCase(Locale.ROOT);
+    }
+
+
+    private static long basisPoints(DiscountRule rule) {
+        return Math.round(rule.getDiscount() * BASIS_POINTS);
+    }
+
+
+    /**
+     * The compiled discounts of one customer, by category.
+     */
+    public static final class Schedule {
+
+        private final KeyIndex categories;
+
+        private final Tiers[] categoryTiers;
+
+        private final Tiers anyCategory;
+
+
+        private Schedule(String[] categories, Tiers[] categoryTiers, Tiers anyCategory) {
+            this.categories = new KeyIndex(categories);
+            this.categoryTiers = categoryTiers;
+            this.anyCategory = anyCategory;
+        }
+
+
+        static Schedule compile(List<DiscountRule> rules) {
+            List<DiscountRule> wildcard = new ArrayList<>();
+            for (DiscountRule rule : rules) {
+                if (rule.getCategory() == null) {
+                    wildcard.add(rule);
+                }
+            }
+
+            Map<String, List<DiscountRule>> byCategory = new LinkedHashMap<>();
+            for (DiscountRule rule : rules) {
+                if (rule.getCategory() != null) {
+                    byCategory.computeIfAbsent(rule.getCategory(), category -> new ArrayList<>(wildcard)).add(rule);
+                }
+            }
+
+            String[] categories = byCategory.keySet().toArray(new String[0]);
+            Tiers[] categoryTiers = new Tiers[categories.length];
+            for (int id = 0; id < categories.length; id++) {
+                categoryTiers[id] = Tiers.compile(byCategory.get(categories[id]));
+            }
+            return new Schedule(categories, categoryTiers, Tiers.compile(wildcard));
+        }
+
+
+        public long discountBasisPoints(String category, int quantity) {
+            int id = categories.idOf(category);
+            return (id == KeyIndex.MISSING ? anyCategory : categoryTiers[id]).discountAt(quantity);
+        }
+    }
+
+
+    /**
+     * Step function from quantity to discount: {@code discounts[i]} applies from
+     * {@code minQuantities[i]} up to the next threshold. Both arrays strictly increase, since a
+     * threshold that does not raise the discount is dropped at compile time.
+     */
+    private static final class Tiers {
+
+        private final int[] minQuantities;
+
+        private final long[] discounts;
+
+
+        private Tiers(int[] minQuantities, long[] discounts) {
+            this.minQuantities = minQuantities;
+            this.discounts = discounts;
+        }
+
+
+        static Tiers compile(List<DiscountRule> rules) {
+            TreeMap<Integer, Long> best = new TreeMap<>();
+            for (DiscountRule rule : rules) {
+                best.merge(rule.getMinQuantity(), basisPoints(rule), Math::max);
+            }
+
+            int[] minQuantities = new int[best.size()];
+            long[] discounts = new long[best.size()];
+            int size = 0;
+            long current = 0;
+            for (Map.Entry<Integer, Long> step : best.entrySet()) {
+                if (step.getValue() > current) {
+                    current = step.getValue();
+                    minQuantities[size] = step.getKey();
+                    discounts[size] = current;
+                    size++;
+                }
+            }
+            return new Tiers(Arrays.copyOf(minQuantities, size), Arrays.copyOf(discounts, size));
+        }
+
+
+        long discountAt(int quantity) {
+            int low = 0;
+            int high = minQuantities.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (minQuantities[mid] <= quantity) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low == 0 ? 0 : discounts[low - 1];
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.order_invoice.service;
+
+
+/**
+ * Output formats of the {@code /orders} export endpoints.
+ */
+public enum ExportFormat {
+
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+
+    private final String mediaType;
+
+    private final String extension;
+
+
+    ExportFormat(String mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+
+    public static ExportFormat of(String format) {
+        for (ExportFormat candidate : values()) {
+            if (candidate.extension.equalsIgnoreCase(format)) {
+                return candidate;
+            }
+        }
+        throw new IllegalArgumentException("Export format must be ndjson or csv");
+    }
+
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+
+    public String getExtension() {
+        return extension;
+    }
+}
@@ -0,0 +1,116 @@
+package com.order_invoice.service;
+
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.order_invoice.config.InvoiceProperties;
+import com.order_invoice.repository.ExportRepository;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Streams stored order items to an output stream as NDJSON or CSV, and their invoice lines as
+ * CSV, reading from a JDBC cursor. Heap use stays constant whatever the number of rows: each row
+ * goes from the result set into a fixed-size write buffer.
+ */
+@Service
+@AllArgsConstructor
+public class ExportService {
+
+    private static final String[] ITEM_COLUMNS = {"id", "productName", "category", "quantity", "unitPrice"};
+
+    private static final String[] INVOICE_COLUMNS = {"id", "orderId", "productName", "category", "quantity", "unitPrice", "lineTotal"};
+
+
+    private ExportRepository exportRepository;
+
+    private ObjectMapper objectMapper;
+
+    private InvoiceProperties invoiceProperties;
+
+
+    /**
+     * Writes every stored item matching the filters, in ID order, and returns how many were written.
+     */
+    @Transactional(readOnly = true)
+    public long exportItems(ExportFormat format, String category, Long minId, Long maxId, OutputStream out) throws IOException {
+        checkRange(minId, maxId);
+
+        long[] rows = new long[1];
+        try (ExportWriter writer = writer(format, ITEM_COLUMNS, out)) {
+            exportRepository.forEachItem(category, minId, maxId, rs -> {
+                writeRow(writer, rs, false);
+                rows[0]++;
+            });
+        }
+        return rows[0];
+    }
+
+
+    /**
+     * Writes the stored invoice line of every item matching the filters as CSV, in ID order, and
+     * returns how many were written. {@link InvoiceService#streamAllInvoices} is the NDJSON form.
+     */
+    @Transactional(readOnly = true)
+    public long exportInvoiceItems(String category, Long minId, Long maxId, OutputStream out) throws IOException {
+        checkRange(minId, maxId);
+
+        long[] rows = new long[1];
+        try (ExportWriter writer = writer(ExportFormat.CSV, INVOICE_COLUMNS, out)) {
+            exportRepository.forEachInvoiceItem(category, minId, maxId, rs -> {
+                writeRow(writer, rs, true);
+                rows[0]++;
+            });
+        }
+        return rows[0];
+    }
+
+
+    private ExportWriter writer(ExportFormat format, String[] columns, OutputStream out) throws IOException {
+        int bufferSize = (int) invoiceProperties.getExport().getBufferSize().toBytes();
+        return ExportWriter.create(format, columns, objectMapper.getFactory(), out, bufferSize);
+    }
+
+
+    private static void writeRow(ExportWriter writer, ResultSet rs, boolean invoice) throws SQLException {
+        try {
+            writer.startRow();
+            writer.number(rs.getLong("id"));
+            if (invoice) {
+                long orderId = rs.getLong("order_id");
+                if (rs.wasNull()) {
+                    writer.nullValue();
+                } else {
+                    writer.number(orderId);
+                }
+            }
+            writer.text(rs.getString("product_name"));
+            writer.text(rs.getString("category"));
+            writer.number(rs.getInt("quantity"));
+            writer.money(rs.getLong("unit_price"));
+            if (invoice) {
+                writer.money(rs.getLong("line_total"));
+            }
+            writer.endRow();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+
+    /**
+     * Rejects an inverted ID range; callers streaming the export check it before the response
+     * is committed.
+     */
+    public static void checkRange(Long minId, Long maxId) {
+        if (minId != null && maxId != null && minId > maxId) {
+            throw new IllegalArgumentException("minId cannot be greater than maxId");
+        }
+    }
+}
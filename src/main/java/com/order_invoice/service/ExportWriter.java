@@ -0,0 +1,179 @@
+package com.order_invoice.service;
+
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.order_invoice.config.MoneySerializer;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes export rows field by field, straight from primitive column values, into a buffer of
+ * fixed size that is handed to the response stream each time it fills.
+ */
+abstract class ExportWriter implements Closeable {
+
+    static ExportWriter create(ExportFormat format, String[] columns, JsonFactory jsonFactory,
+                               OutputStream out, int bufferSize) throws IOException {
+        OutputStream buffered = new BufferedOutputStream(out, bufferSize);
+        return switch (format) {
+            case NDJSON -> new Ndjson(columns, jsonFactory.createGenerator(buffered));
+            case CSV -> new Csv(columns, new OutputStreamWriter(buffered, StandardCharsets.UTF_8));
+        };
+    }
+
+
+    // Column names, in the order each row supplies its fields
+    protected final String[] columns;
+
+    protected int column;
+
+
+    protected ExportWriter(String[] columns) {
+        this.columns = columns;
+    }
+
+
+    abstract void startRow() throws IOException;
+
+    abstract void text(String value) throws IOException;
+
+    abstract void number(long value) throws IOException;
+
+    abstract void money(long minorUnits) throws IOException;
+
+    abstract void nullValue() throws IOException;
+
+    abstract void endRow() throws IOException;
+
+
+    /**
+     * One JSON object per line, with the same field names and two-decimal amounts as the JSON endpoints.
+     */
+    private static final class Ndjson extends ExportWriter {
+
+        private final JsonGenerator generator;
+
+        Ndjson(String[] columns, JsonGenerator generator) {
+            super(columns);
+            this.generator = generator;
+            generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        void startRow() throws IOException {
+            column = 0;
+            generator.writeStartObject();
+        }
+
+        @Override
+        void text(String value) throws IOException {
+            generator.writeStringField(columns[column++], value);
+        }
+
+        @Override
+        void number(long value) throws IOException {
+            generator.writeNumberField(columns[column++], value);
+        }
+
+        @Override
+        void money(long minorUnits) throws IOException {
+            generator.writeFieldName(columns[column++]);
+            MoneySerializer.write(minorUnits, generator);
+        }
+
+        @Override
+        void nullValue() throws IOException {
+            generator.writeNullField(columns[column++]);
+        }
+
+        @Override
+        void endRow() throws IOException {
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.close();
+        }
+    }
+
+
+    /**
+     * RFC 4180 CSV with a header row; text fields are quoted only when they need to be.
+     */
+    private static final class Csv extends ExportWriter {
+
+        private final Writer writer;
+
+        private final char[] moneyBuffer = new char[24];
+
+        Csv(String[] columns, Writer writer) throws IOException {
+            super(columns);
+            this.writer = writer;
+            writer.write(String.join(",", columns));
+            writer.write("\r\n");
+        }
+
+        @Override
+        void startRow() {
+            column = 0;
+        }
+
+        @Override
+        void text(String value) throws IOException {
+            separate();
+            if (value == null) {
+                return;
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+
+        @Override
+        void number(long value) throws IOException {
+            separate();
+            writer.write(Long.toString(value));
+        }
+
+        @Override
+        void money(long minorUnits) throws IOException {
+            separate();
+            int offset = Money.format(minorUnits, moneyBuffer);
+            writer.write(moneyBuffer, offset, moneyBuffer.length - offset);
+        }
+
+        @Override
+        void nullValue() throws IOException {
+            separate();
+        }
+
+        @Override
+        void endRow() throws IOException {
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
+
+        private void separate() throws IOException {
+            if (column++ > 0) {
+                writer.write(',');
+            }
+        }
+    }
+}
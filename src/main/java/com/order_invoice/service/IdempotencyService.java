@@ -0,0 +1,252 @@
+package com.order_invoice.service;
+
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.order_invoice.config.InvoiceProperties;
+import com.order_invoice.entity.IdempotencyRecord;
+import com.order_invoice.entity.InvoiceResponse;
+import com.order_invoice.entity.OrderItem;
+import com.order_invoice.entity.OrderRequest;
+import com.order_invoice.exception.IdempotencyKeyConflictException;
+import com.order_invoice.repository.IdempotencyRecordRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Deduplicates {@code POST /orders/invoice} submissions carrying an {@code Idempotency-Key}.
+ * <p>
+ * Answered keys are looked up in a bounded in-memory index first and in the
+ * {@code idempotency_keys} table on a miss, so a retry is replayed without pricing or saving
+ * anything. A new key is claimed with a primary-key insert before the invoice is generated,
+ * which makes concurrent submissions of the same key, on any instance, get 409 rather than a
+ * second order. The response is stored against the key in the transaction that saves the
+ * order, so a key still in progress after {@code in-progress-timeout} never has an order behind
+ * it and can safely be released for the client's retry.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+
+    private final ObjectMapper objectMapper;
+
+    private final InvoiceProperties.Idempotency settings;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Cache<String, StoredInvoice> index;
+
+
+    public IdempotencyService(IdempotencyRecordRepository idempotencyRecordRepository, ObjectMapper objectMapper,
+                              PlatformTransactionManager transactionManager, InvoiceProperties invoiceProperties) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.settings = invoiceProperties.getIdempotency();
+        this.index = Caffeine.newBuilder()
+                .maximumSize(settings.getMaxCachedKeys())
+                .expireAfterWrite(settings.getRetention())
+                .build();
+    }
+
+
+    /**
+     * Returns the invoice already generated for {@code key}, or runs {@code generator} once and
+     * remembers its result. The generator runs in a transaction that also stores its result, so
+     * an order it saves through {@link OrderWriter} commits together with the response.
+     *
+     * @throws IdempotencyKeyConflictException if the key was used with a different customer or
+     *                                         items, or its first request has not finished yet
+     */
+    public InvoiceResponse generateOnce(String key, OrderRequest request, Supplier<InvoiceResponse> generator) {
+        return claimAndGenerate(key, request, () -> transactionTemplate.execute(status -> {
+            InvoiceResponse response = generator.get();
+            store(key, response);
+            return response;
+        }));
+    }
+
+
+    /**
+     * Same as {@link #generateOnce}, for a generator that saves its order outside JPA: it must
+     * {@link #store} the response itself, in the transaction that saves the order.
+     */
+    public InvoiceResponse generateOnceStoredByGenerator(String key, OrderRequest request, Supplier<InvoiceResponse> generator) {
+        return claimAndGenerate(key, request, generator);
+    }
+
+
+    /**
+     * Stores the response to replay for a key claimed by {@link #generateOnce}, joining the
+     * caller's transaction if there is one.
+     */
+    public void store(String key, InvoiceResponse response) {
+        idempotencyRecordRepository.complete(key, serialize(response));
+    }
+
+
+    /**
+     * The stored form of a response, for a generator writing it with its own connection.
+     */
+    public String serialize(InvoiceResponse response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Cannot serialize invoice for idempotent replay", ex);
+        }
+    }
+
+
+    private InvoiceResponse claimAndGenerate(String key, OrderRequest request, Supplier<InvoiceResponse> generateAndStore) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must be between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+        long fingerprint = fingerprint(request.getCustomerId(), request.getItems());
+
+        StoredInvoice stored = index.getIfPresent(key);
+        if (stored == null) {
+            stored = load(key);
+        }
+        if (stored == null && !claim(key, fingerprint)) {
+            // Another request claimed the key between our lookup and insert
+            stored = load(key);
+            if (stored == null) {
+                throw new IdempotencyKeyConflictException("A request with this Idempotency-Key is still being processed");
+            }
+        }
+        if (stored != null) {
+            return stored.replay(fingerprint);
+        }
+
+        InvoiceResponse response;
+        try {
+            response = generateAndStore.get();
+        } catch (RuntimeException ex) {
+            idempotencyRecordRepository.release(key);
+            throw ex;
+        }
+
+        index.put(key, new StoredInvoice(fingerprint, response));
+        return response;
+    }
+
+
+    @Scheduled(fixedDelayString = "${invoice.idempotency.purge-interval:1h}")
+    public void purgeExpired() {
+        idempotencyRecordRepository.deleteCreatedBefore(Instant.now().minus(settings.getRetention()));
+    }
+
+
+    /**
+     * First 64 bits of a SHA-256 over the submitted customer and items, used to detect a key
+     * being reused for a different request. Strings are hashed as length-prefixed UTF-8, so no
+     * two different requests share an encoding.
+     */
+    static long fingerprint(String customerId, List<OrderItem> items) {
+        MessageDigest digest = sha256();
+        update(digest, customerId);
+        if (items != null) {
+            for (OrderItem item : items) {
+                update(digest, item.getProductName());
+                update(digest, item.getCategory());
+                digest.update(ByteBuffer.allocate(Integer.BYTES + Long.BYTES)
+                        .putInt(item.getQuantity())
+                        .putLong(item.getUnitPrice())
+                        .flip());
+            }
+        } else {
+            digest.update((byte) 0);
+        }
+        return ByteBuffer.wrap(digest.digest()).getLong();
+    }
+
+
+    // -1 marks null, which no string length can be
+    private static void update(MessageDigest digest, String value) {
+        if (value == null) {
+            digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(-1).flip());
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(bytes.length).flip());
+        digest.update(bytes);
+    }
+
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is required of every Java platform", ex);
+        }
+    }
+
+
+    // Returns null when the key is unknown (or was abandoned and has just been released)
+    private StoredInvoice load(String key) {
+        IdempotencyRecord record = idempotencyRecordRepository.findById(key).orElse(null);
+        if (record == null) {
+            return null;
+        }
+
+        if (record.getResponse() == null) {
+            Instant abandonedBefore = Instant.now().minus(settings.getInProgressTimeout());
+            if (record.getCreatedAt().isBefore(abandonedBefore)
+                    && idempotencyRecordRepository.releaseStale(key, abandonedBefore) > 0) {
+                return null;
+            }
+            throw new IdempotencyKeyConflictException("A request with this Idempotency-Key is still being processed");
+        }
+
+        StoredInvoice stored = new StoredInvoice(record.getFingerprint(), read(record.getResponse()));
+        index.put(key, stored);
+        return stored;
+    }
+
+
+    private boolean claim(String key, long fingerprint) {
+        try {
+            return idempotencyRecordRepository.reserve(key, fingerprint, Instant.now()) == 1;
+        } catch (DataIntegrityViolationException ex) {
+            // Two first submissions raced past the MERGE's existence check; the other one won
+            return false;
+        }
+    }
+
+
+    private InvoiceResponse read(String response) {
+        try {
+            return objectMapper.readValue(response, InvoiceResponse.class);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Cannot read stored invoice for idempotent replay", ex);
+        }
+    }
+
+
+    private record StoredInvoice(long fingerprint, InvoiceResponse response) {
+
+        InvoiceResponse replay(long requestFingerprint) {
+            if (fingerprint != requestFingerprint) {
+                throw new IdempotencyKeyConflictException("Idempotency-Key was already used with a different request");
+            }
+            return response;
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package com.order_invoice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Append-only NDJSON log behind the write-behind queue. Each accepted order is written as
+ * one line before it is queued; once written to the database (or rejected) its sequence
+ * number is appended in a {@code {"done":[...]}} marker line. On open, orders without a
+ * marker are returned for replay. Whenever nothing is outstanding the file is truncated;
+ * otherwise, once it grows past {@code compactSize}, it is rewritten with only the outstanding
+ * orders, so neither the file nor the replay scan grows with the number of orders written.
+ * Orders that can never be written are moved to a dead-letter file in the same format, from
+ * which they can be appended back to the journal by hand once fixed.
+ * <p>
+ * Appends are serialized by a {@link ReentrantLock} rather than the object monitor, so request
+ * threads waiting on it do not pin virtual-thread carriers. With fsync on, the force runs outside
+ * that lock as a group commit: one caller forces everything written so far while the others wait
+ * for it and return without forcing again.
+ */
+class InvoiceJournal implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(InvoiceJournal.class);
+
+    private static final String DONE = "done";
+
+
+    private final Path path;
+
+    private final Path deadLetter;
+
+    private final ObjectMapper objectMapper;
+
+    private final boolean fsync;
+
+    private final long compactSize;
+
+    private final List<PendingOrder> pending;
+
+    // Guards the channel and the outstanding orders
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // Held by the caller forcing or replacing the channel; taken before lock when both are needed
+    private final ReentrantLock syncLock = new ReentrantLock();
+
+    // Journal lines of the orders without a done marker, by sequence number
+    private final Map<Long, byte[]> outstanding = new LinkedHashMap<>();
+
+    private long outstandingBytes;
+
+    private FileChannel channel;
+
+    private long lastSeq;
+
+    // Bytes appended since open, and how many of those are known to be on disk
+    private volatile long written;
+
+    private long synced;
+
+
+    private InvoiceJournal(Path path, Path deadLetter, ObjectMapper objectMapper, boolean fsync, long compactSize,
+                           List<PendingOrder> pending, long lastSeq) {
+        this.path = path;
+        this.deadLetter = deadLetter;
+        this.objectMapper = objectMapper;
+        this.fsync = fsync;
+        this.compactSize = compactSize;
+        this.pending = pending;
+        this.lastSeq = lastSeq;
+        pending.forEach(order -> track(order.seq(), toLine(order)));
+    }
+
+
+    /**
+     * Opens the journal at {@code path}, collecting the orders it holds without a done marker and
+     * rewriting it with only those.
+     */
+    static InvoiceJournal open(Path path, Path deadLetter, ObjectMapper objectMapper, boolean fsync,
+                               long compactSize) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+
+        Map<Long, PendingOrder> unwritten = new LinkedHashMap<>();
+        long lastSeq = 0;
+        if (Files.exists(path)) {
+            try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    try {
+                        JsonNode node = objectMapper.readTree(line);
+                        if (node.has(DONE)) {
+                            node.get(DONE).forEach(seq -> unwritten.remove(seq.asLong()));
+                        } else {
+                            PendingOrder order = objectMapper.treeToValue(node, PendingOrder.class);
+                            unwritten.put(order.seq(), order);
+                            lastSeq = Math.max(lastSeq, order.seq());
+                        }
+                    } catch (JsonProcessingException ex) {
+                        // A crash mid-append leaves a torn last line; that order was never acknowledged
+                        log.warn("Skipping unreadable journal line in {}", path, ex);
+                    }
+                }
+            }
+        }
+
+        InvoiceJournal journal = new InvoiceJournal(path, deadLetter, objectMapper, fsync, compactSize,
+                new ArrayList<>(unwritten.values()), lastSeq);
+        journal.rewrite();
+        return journal;
+    }
+
+
+    /**
+     * Orders found in the journal without a done marker when it was opened, in append order.
+     */
+    List<PendingOrder> pending() {
+        return pending;
+    }
+
+
+    long lastSeq() {
+        return lastSeq;
+    }
+
+
+    void append(PendingOrder order) {
+        byte[] line = toLine(order);
+        long end;
+        lock.lock();
+        try {
+            write(line);
+            track(order.seq(), line);
+            end = written;
+        } finally {
+            lock.unlock();
+        }
+        sync(end);
+    }
+
+
+    void done(List<Long> seqs) {
+        byte[] line = toLine(Map.of(DONE, seqs));
+        long end;
+        boolean compact;
+        lock.lock();
+        try {
+            write(line);
+            for (Long seq : seqs) {
+                byte[] removed = outstanding.remove(seq);
+                outstandingBytes -= removed == null ? 0 : removed.length;
+            }
+            end = written;
+            if (outstanding.isEmpty()) {
+                channel.truncate(0);
+            }
+            compact = needsCompaction();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            lock.unlock();
+        }
+
+        if (compact) {
+            compact();
+        } else {
+            sync(end);
+        }
+    }
+
+
+    /**
+     * Appends the order to the dead-letter file and marks it done, for an order the database
+     * will not accept however often it is replayed.
+     */
+    void deadLetter(PendingOrder order) {
+        try (FileChannel out = FileChannel.open(deadLetter,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            writeFully(out, toLine(order));
+            if (fsync) {
+                out.force(false);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        done(List.of(order.seq()));
+    }
+
+
+    @Override
+    public void close() throws IOException {
+        syncLock.lock();
+        lock.lock();
+        try {
+            channel.close();
+        } finally {
+            lock.unlock();
+            syncLock.unlock();
+        }
+    }
+
+
+    private void compact() {
+        syncLock.lock();
+        lock.lock();
+        try {
+            // Another caller may have compacted or truncated it meanwhile
+            if (needsCompaction()) {
+                log.info("Compacting write-behind journal {} to {} outstanding orders", path, outstanding.size());
+                rewrite();
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            lock.unlock();
+            syncLock.unlock();
+        }
+    }
+
+
+    // At least half the file must be done orders, so a large outstanding set is not rewritten on every marker
+    private boolean needsCompaction() throws IOException {
+        long size = channel.size();
+        return size > compactSize && size > 2 * outstandingBytes;
+    }
+
+
+    // Called with lock held, or before the journal is shared
+    private void track(long seq, byte[] line) {
+        outstanding.put(seq, line);
+        outstandingBytes += line.length;
+    }
+
+
+    // Replaces the file with the outstanding orders' lines; called with both locks held, or before the journal is shared
+    private void rewrite() throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".compact");
+        try (FileChannel out = FileChannel.open(temp,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (byte[] line : outstanding.values()) {
+                writeFully(out, line);
+            }
+            out.force(false);
+        }
+        if (channel != null) {
+            channel.close();
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        // Everything appended so far is either in the forced copy or marked done
+        synced = written;
+    }
+
+
+    private byte[] toLine(Object record) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(record);
+            byte[] line = new byte[json.length + 1];
+            System.arraycopy(json, 0, line, 0, json.length);
+            line[json.length] = '\n';
+            return line;
+        } catch (JsonProcessingException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+
+    // Called with lock held
+    private void write(byte[] line) {
+        try {
+            writeFully(channel, line);
+            written += line.length;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+
+    private static void writeFully(FileChannel out, byte[] line) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(line);
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+
+    // Returns once everything up to end is on disk, forcing it unless another caller already has
+    private void sync(long end) {
+        if (!fsync) {
+            return;
+        }
+        syncLock.lock();
+        try {
+            if (synced >= end) {
+                return;
+            }
+            long upTo = written;
+            channel.force(false);
+            synced = upTo;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            syncLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.order_invoice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters for each stage of the invoice pipeline. They are registered once up front so the
+ * hot path only takes {@link System#nanoTime()} readings and records into existing meters,
+ * with no registry lookups or tag allocation per invoice.
+ */
+@Component
+public class InvoiceMetrics {
+
+    private final Counter validationFailures;
+
+    private final Timer pricing;
+
+    private final Timer persist;
+
+    private final DistributionSummary itemsPerInvoice;
+
+    private final DistributionSummary responseBytes;
+
+    private final Counter writeBehindRejections;
+
+    private final Counter clientAdmissionRejections;
+
+    private final Counter globalAdmissionRejections;
+
+    private final MeterRegistry registry;
+
+
+    public InvoiceMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        validationFailures = Counter.builder("invoice.validation.failures")
+                .description("Orders rejected by validation")
+                .register(registry);
+        pricing = Timer.builder("invoice.pricing")
+                .description("Time spent validating and pricing the items of an order")
+                .register(registry);
+        persist = Timer.builder("invoice.persist")
+                .description("Time spent saving orders, items and category totals")
+                .register(registry);
+        itemsPerInvoice = DistributionSummary.builder("invoice.items")
+                .description("Items per priced order")
+                .baseUnit("items")
+                .register(registry);
+        responseBytes = DistributionSummary.builder("invoice.response.bytes")
+                .description("Serialized size of /orders responses")
+                .baseUnit("bytes")
+                .register(registry);
+        writeBehindRejections = Counter.builder("invoice.writebehind.rejections")
+                .description("Orders rejected because the write-behind queue stayed full")
+                .register(registry);
+        clientAdmissionRejections = Counter.builder("invoice.admission.rejections")
+                .description("Order submissions rejected by admission control, with 429 or 413")
+                .tag("limit", "client")
+                .register(registry);
+        globalAdmissionRejections = Counter.builder("invoice.admission.rejections")
+                .description("Order submissions rejected by admission control, with 429 or 413")
+                .tag("limit", "global")
+                .register(registry);
+    }
+
+
+    public void validationFailed() {
+        validationFailures.increment();
+    }
+
+    public void recordPricing(long startNanos, int itemCount) {
+        pricing.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        itemsPerInvoice.record(itemCount);
+    }
+
+    public void recordPersist(long startNanos) {
+        persist.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordResponseBytes(long bytes) {
+        responseBytes.record(bytes);
+    }
+
+    public void writeBehindRejected() {
+        writeBehindRejections.increment();
+    }
+
+    public void admissionRejected(boolean global) {
+        (global ? globalAdmissionRejections : clientAdmissionRejections).increment();
+    }
+
+    public void gaugeWriteBehindQueue(Collection<?> queue) {
+        Gauge.builder("invoice.writebehind.queue", queue, Collection::size)
+                .description("Orders accepted but not yet written")
+                .baseUnit("orders")
+                .register(registry);
+    }
+}
@@ -0,0 +1,167 @@
+package com.order_invoice.service;
+
+
+import com.order_invoice.config.CacheConfig;
+import com.order_invoice.config.InvoiceProperties;
+import com.order_invoice.entity.CategorySummary;
+import com.order_invoice.entity.InvoiceRebuildResult;
+import com.order_invoice.entity.OrderItem;
+import com.order_invoice.repository.InvoiceRebuildRepository;
+import com.order_invoice.repository.OrderRepository;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.AllArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.LongStream;
+
+/**
+ * Reprices stored invoice lines against the current tax rates and discount rules, for when
+ * either has been reloaded and stored invoices are to follow. Reloading alone leaves them as
+ * they were priced.
+ * <p>
+ * Lines are repriced in ranges of item IDs, each range in its own transaction, by a pool of
+ * {@code invoice.rebuild.parallelism} worker threads. Each worker holds one JDBC connection
+ * while it reprices a range, and rebuilds run one at a time, so a rebuild never takes more
+ * connections than that. Every change is applied as a difference: a line total is only
+ * overwritten if it still holds the value it was repriced from, and its order's grand total and
+ * its category summary are incremented by the change. Orders saved meanwhile keep their own
+ * increments.
+ */
+@Service
+@AllArgsConstructor
+public class InvoiceRebuildService {
+
+    private static final Logger log = LoggerFactory.getLogger(InvoiceRebuildService.class);
+
+
+    private OrderRepository orderRepository;
+
+    private InvoiceRebuildRepository invoiceRebuildRepository;
+
+    private CategorySummaryService categorySummaryService;
+
+    private TaxRateRegistry taxRateRegistry;
+
+    private DiscountRuleRegistry discountRuleRegistry;
+
+    private PlatformTransactionManager transactionManager;
+
+    private EntityManagerFactory entityManagerFactory;
+
+    private InvoiceProperties invoiceProperties;
+
+
+    /**
+     * Reprices every line saved before the call; lines saved since were priced with the
+     * current rules already. Cached invoices are dropped afterwards.
+     */
+    @CacheEvict(cacheNames = CacheConfig.INVOICES, allEntries = true)
+    public synchronized InvoiceRebuildResult rebuild() {
+        long start = System.nanoTime();
+        TaxRateTable taxRates = taxRateRegistry.getTable();
+        DiscountRuleTable discounts = discountRuleRegistry.getTable();
+        long lastId = orderRepository.findVersion().getLastId();
+        long chunkSize = invoiceProperties.getRebuild().getChunkSize();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        long[] counts = new long[2];
+        try (ExecutorService workers = Executors.newFixedThreadPool(invoiceProperties.getRebuild().getParallelism(),
+                Thread.ofPlatform().name("invoice-rebuild-", 0).daemon().factory())) {
+            List<Future<long[]>> chunks = LongStream.range(0, (lastId + chunkSize - 1) / chunkSize)
+                    .mapToObj(chunk -> workers.submit(() -> transaction.execute(status ->
+                            reprice(chunk * chunkSize, Math.min(lastId, (chunk + 1) * chunkSize), discounts, taxRates))))
+                    .toList();
+            for (Future<long[]> chunk : chunks) {
+                long[] chunkCounts = join(chunk, workers);
+                counts[0] += chunkCounts[0];
+                counts[1] += chunkCounts[1];
+            }
+        }
+
+        // The totals were rewritten behind Hibernate's back
+        entityManagerFactory.getCache().evict(OrderItem.class);
+
+        log.info("Repriced {} stored invoice lines, {} changed, in {} ms",
+                counts[0], counts[1], (System.nanoTime() - start) / 1_000_000);
+        return new InvoiceRebuildResult(counts[0], counts[1], categorySummaryService.getGrandTotal());
+    }
+
+
+    // Stops the ranges not started yet when one fails; those already committed stay repriced
+    private static long[] join(Future<long[]> chunk, ExecutorService workers) {
+        try {
+            return chunk.get();
+        } catch (InterruptedException ex) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Invoice rebuild was interrupted", ex);
+        } catch (ExecutionException ex) {
+            workers.shutdownNow();
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Invoice rebuild failed", ex.getCause());
+        }
+    }
+
+
+    // Returns the lines read and the lines changed
+    private long[] reprice(long after, long upTo, DiscountRuleTable discounts, TaxRateTable taxRates) {
+        List<long[]> totals = new ArrayList<>();
+        List<Long> orderIds = new ArrayList<>();
+        List<String> categories = new ArrayList<>();
+        long[] lines = new long[1];
+        invoiceRebuildRepository.forEachLine(after, upTo, rs -> {
+            lines[0]++;
+            long stored = rs.getLong("line_total");
+            long repriced = InvoiceService.lineTotal(rs.getString("category"), rs.getInt("quantity"),
+                    rs.getLong("unit_price"), discounts.forCustomer(rs.getString("customer_id")), taxRates);
+            if (repriced != stored) {
+                totals.add(new long[]{rs.getLong("id"), stored, repriced});
+                long orderId = rs.getLong("order_id");
+                orderIds.add(rs.wasNull() ? null : orderId);
+                categories.add(rs.getString("category"));
+            }
+        });
+        if (totals.isEmpty()) {
+            return new long[]{lines[0], 0};
+        }
+
+        int[] updated = invoiceRebuildRepository.updateLineTotals(totals);
+        Map<Long, Long> orderDeltas = new HashMap<>();
+        Map<String, CategorySummary> categoryDeltas = new HashMap<>();
+        long changed = 0;
+        for (int i = 0; i < totals.size(); i++) {
+            if (updated[i] == 0) {
+                continue;
+            }
+            long delta = totals.get(i)[2] - totals.get(i)[1];
+            if (orderIds.get(i) != null) {
+                orderDeltas.merge(orderIds.get(i), delta, Long::sum);
+            }
+            String category = categories.get(i) == null ? CategorySummaryService.UNCATEGORIZED : categories.get(i);
+            CategorySummary categoryDelta = categoryDeltas.computeIfAbsent(category, key -> new CategorySummary(key, 0, 0, 0));
+            categoryDelta.setTotalInvoiced(categoryDelta.getTotalInvoiced() + delta);
+            changed++;
+        }
+
+        invoiceRebuildRepository.addToGrandTotals(orderDeltas.entrySet().stream()
+                .map(entry -> new long[]{entry.getKey(), entry.getValue()})
+                .toList());
+        categorySummaryService.adjust(categoryDeltas.values());
+        return new long[]{lines[0], changed};
+    }
+}
@@ -2,134 +2,364 @@
 package com.order_invoice.service;
 
 
+import com.order_invoice.config.CacheConfig;
+import com.order_invoice.config.InvoiceProperties;
+import com.order_invoice.entity.CustomerOrder;
 import com.order_invoice.entity.InvoiceItem;
+import com.order_invoice.entity.InvoiceLineView;
+import com.order_invoice.entity.InvoicePage;
 import com.order_invoice.entity.InvoiceResponse;
+import com.order_invoice.entity.InvoiceTotal;
+import com.order_invoice.entity.LineError;
 import com.order_invoice.entity.OrderItem;
+import com.order_invoice.entity.OrderItemView;
+import com.order_invoice.entity.OrderPage;
+import com.order_invoice.entity.OrderRequest;
+import com.order_invoice.exception.InvoiceValidationException;
+import com.order_invoice.repository.CustomerOrderRepository;
 import com.order_invoice.repository.OrderRepository;
+import jakarta.persistence.EntityManager;
 import lombok.AllArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @AllArgsConstructor
 public class InvoiceService {
 
+    // Listed by GET /orders/bulk
+    static final int BULK_QUANTITY = 5;
+
+    // Line errors kept per rejected order; further errors are only counted
+    static final int MAX_LINE_ERRORS = 100;
+
+    static final String EMPTY_ITEMS = "Items list cannot be null or empty";
+
+    private static final String NULL_ITEM = "Items cannot be null";
+
+    private static final String INVALID_QUANTITY = "Quantity must be greater than 0 for all items";
+
+    private static final String INVALID_UNIT_PRICE = "Unit price must be greater than 0 for all items";
+
+    private static final String TOTAL_TOO_LARGE = "Invoice totals must not exceed the largest invoice amount";
+
 
     private OrderRepository orderRepository;
 
+    private CustomerOrderRepository customerOrderRepository;
+
+    private CategorySummaryService categorySummaryService;
+
+    private EntityManager entityManager;
+
+    private TaxRateRegistry taxRateRegistry;
+
+    private DiscountRuleRegistry discountRuleRegistry;
+
+    private OrderWriter orderWriter;
+
+    private WriteBehindQueue writeBehindQueue;
+
+    private InvoiceProperties invoiceProperties;
+
+    private InvoiceMetrics invoiceMetrics;
+
+
+    /**
+     * Prices and stores an order. In write-behind mode the invoice is returned as soon as the
+     * order is queued and journaled, without an order ID since it has not been saved yet.
+     */
+    public InvoiceResponse generateInvoice(OrderRequest request) {
+        List<OrderItem> items = request.getItems();
 
-    public InvoiceResponse generateInvoice(List<OrderItem> items) {
+        InvoiceResponse invoice = price(request.getCustomerId(), items);
 
-        validateItems(items);
 
+        if (writeBehindQueue.isEnabled()) {
+            writeBehindQueue.submit(request.getCustomerId(), invoice);
+            return invoice;
+        }
 
-        List<OrderItem> savedItems = orderRepository.saveAll(items);
+        CustomerOrder order = new CustomerOrder(request.getCustomerId(), items, invoice.getGrandTotal());
+        orderWriter.persist(List.of(order), invoice.getInvoice());
 
+        invoice.setOrderId(order.getId());
+        return invoice;
+    }
 
-        List<InvoiceItem> invoiceItems = savedItems.stream()
-                .map(this::processItem)
-                .collect(Collectors.toList());
 
+    /**
+     * Validates and prices every item in one pass, storing each line total on its item for
+     * persistence. The customer's discounts and the tax rates are resolved once, so the order is
+     * priced against one consistent rule set even if either is reloaded meanwhile.
+     * <p>
+     * Once a line fails validation the rest are only checked, not priced, so that the caller
+     * gets every line error at once.
+     *
+     * @throws InvoiceValidationException if the order has no items or any item is invalid
+     */
+    InvoiceResponse price(String customerId, List<OrderItem> items) {
+        long start = System.nanoTime();
+        checkOrder(items);
+
+        DiscountRuleTable.Schedule discounts = discountRuleRegistry.forCustomer(customerId);
+        TaxRateTable taxRates = taxRateRegistry.getTable();
+        List<InvoiceItem> invoiceItems = new ArrayList<>(items.size());
+        List<LineError> errors = null;
+        int errorCount = 0;
+        String firstError = null;
+        long grandTotal = 0;
+        for (int line = 0; line < items.size(); line++) {
+            OrderItem item = items.get(line);
+            if (!isValid(item)) {
+                if (errors == null) {
+                    errors = new ArrayList<>();
+                    firstError = firstError(item);
+                }
+                errorCount += addLineErrors(errors, line, item);
+                continue;
+            }
+            if (errors != null) {
+                continue;
+            }
 
-        double grandTotal = invoiceItems.stream()
-                .mapToDouble(InvoiceItem::getLineTotal)
-                .sum();
+            InvoiceItem invoiceItem;
+            try {
+                invoiceItem = processItem(item, discounts, taxRates);
+            } catch (ArithmeticException ex) {
+                errors = tooLarge(line, "lineTotal");
+                firstError = TOTAL_TOO_LARGE;
+                errorCount++;
+                continue;
+            }
+            try {
+                grandTotal = Math.addExact(grandTotal, invoiceItem.getLineTotal());
+            } catch (ArithmeticException ex) {
+                errors = tooLarge(line, "grandTotal");
+                firstError = TOTAL_TOO_LARGE;
+                errorCount++;
+                continue;
+            }
+            item.setLineTotal(invoiceItem.getLineTotal());
+            invoiceItems.add(invoiceItem);
+        }
 
+        if (errors != null) {
+            invoiceMetrics.validationFailed();
+            throw new InvoiceValidationException(firstError, errors, errorCount);
+        }
+        invoiceMetrics.recordPricing(start, items.size());
         return new InvoiceResponse(invoiceItems, grandTotal);
     }
 
 
-    public List<OrderItem> getAllOrders() {
-        return orderRepository.findAll();
+    @Transactional(readOnly = true)
+    public OrderPage getAllOrders(Long after, Integer limit) {
+        int pageSize = pageSize(limit);
+        return page(orderRepository.findPageAfter(cursor(after), Limit.of(pageSize + 1)), pageSize);
     }
 
 
-    public List<OrderItem> getOrdersByCategory(String category) {
-        return orderRepository.findByCategory(category);
+    @Transactional(readOnly = true)
+    public OrderPage getOrdersByCategory(String category, Long after, Integer limit) {
+        int pageSize = pageSize(limit);
+        return page(orderRepository.findPageByCategoryAfter(category, cursor(after), Limit.of(pageSize + 1)), pageSize);
     }
 
 
-    public List<OrderItem> getBulkOrders() {
-        return orderRepository.findByQuantityGreaterThanEqual(5);
+    @Transactional(readOnly = true)
+    public OrderPage getBulkOrders(Long after, Integer limit) {
+        int pageSize = pageSize(limit);
+        return page(orderRepository.findPageByQuantityAtLeastAfter(BULK_QUANTITY, cursor(after), Limit.of(pageSize + 1)), pageSize);
     }
 
 
+    @Cacheable(cacheNames = CacheConfig.INVOICES)
+    @Transactional(readOnly = true)
     public InvoiceResponse getInvoiceByOrderId(Long orderId) {
-        OrderItem orderItem = orderRepository.findById(orderId)
+        CustomerOrder order = customerOrderRepository.findWithItemsById(orderId)
                 .orElseThrow(() -> new IllegalArgumentException("Order not found with ID: " + orderId));
 
-        InvoiceItem invoiceItem = processItem(orderItem);
+        List<InvoiceItem> invoiceItems = order.getItems().stream()
+                .map(InvoiceService::toInvoiceItem)
+                .toList();
 
-        return new InvoiceResponse(List.of(invoiceItem), invoiceItem.getLineTotal());
+        InvoiceResponse invoice = new InvoiceResponse(invoiceItems, order.getGrandTotal());
+        invoice.setOrderId(order.getId());
+        return invoice;
     }
 
 
-    public InvoiceResponse getAllInvoices() {
-        List<OrderItem> allOrders = orderRepository.findAll();
+    /**
+     * One keyset page of stored lines with their stored totals. The grand total covers every
+     * stored invoice; it is read once from the category summaries, by its own statement in the
+     * page's read-only transaction, rather than alongside every line. The full ledger is served
+     * by {@link #streamAllInvoices} and the export instead.
+     */
+    @Transactional(readOnly = true)
+    public InvoicePage getAllInvoices(Long after, Integer limit) {
+        int pageSize = pageSize(limit);
+        List<InvoiceLineView> rows = orderRepository.findInvoicePageAfter(cursor(after), Limit.of(pageSize + 1));
+        return invoicePage(rows, pageSize, categorySummaryService.getGrandTotal());
+    }
 
-        List<InvoiceItem> invoiceItems = allOrders.stream()
-                .map(this::processItem)
-                .collect(Collectors.toList());
 
-        double grandTotal = invoiceItems.stream()
-                .mapToDouble(InvoiceItem::getLineTotal)
-                .sum();
+    /**
+     * Hands every stored order item to {@code sink} one at a time with its stored total,
+     * detaching each row once processed so memory stays flat regardless of table size.
+     */
+    @Transactional(readOnly = true)
+    public InvoiceTotal streamAllInvoices(Consumer<InvoiceItem> sink) {
+        long itemCount = 0;
+        long grandTotal = 0;
+
+        try (Stream<OrderItem> orders = orderRepository.streamAllByOrderByIdAsc()) {
+            Iterator<OrderItem> iterator = orders.iterator();
+            while (iterator.hasNext()) {
+                OrderItem orderItem = iterator.next();
+                InvoiceItem invoiceItem = toInvoiceItem(orderItem);
+                entityManager.detach(orderItem);
+
+                sink.accept(invoiceItem);
+                itemCount++;
+                grandTotal += invoiceItem.getLineTotal();
+            }
+        }
 
-        return new InvoiceResponse(invoiceItems, grandTotal);
+        return new InvoiceTotal(itemCount, grandTotal);
     }
 
 
     protected InvoiceItem processItem(OrderItem item) {
+        return processItem(item, discountRuleRegistry.forCustomer(null), taxRateRegistry.getTable());
+    }
+
+    private static InvoiceItem processItem(OrderItem item, DiscountRuleTable.Schedule discounts, TaxRateTable taxRates) {
+        return new InvoiceItem(
+                item.getProductName(),
+                item.getCategory(),
+                item.getQuantity(),
+                item.getUnitPrice(),
+                lineTotal(item.getCategory(), item.getQuantity(), item.getUnitPrice(), discounts, taxRates)
+        );
+    }
 
-        double lineTotal = item.getQuantity() * item.getUnitPrice();
+    static long lineTotal(String category, int quantity, long unitPrice,
+                          DiscountRuleTable.Schedule discounts, TaxRateTable taxRates) {
 
+        long lineTotal = Math.multiplyExact((long) quantity, unitPrice);
 
-        if (item.getQuantity() >= 5) {
-            lineTotal *= 0.9;
-        }
 
+        long discountBasisPoints = discounts.discountBasisPoints(category, quantity);
 
-        double taxRate = getTaxRate(item.getCategory());
-        lineTotal *= (1 + taxRate);
 
+        long taxRatePpm = taxRates.ratePpm(taxRates.categoryId(category));
+        return Money.multiply(lineTotal,
+                (DiscountRuleTable.BASIS_POINTS - discountBasisPoints) * (TaxRateTable.PPM + taxRatePpm),
+                DiscountRuleTable.BASIS_POINTS * TaxRateTable.PPM);
+    }
+
+    private static InvoiceItem toInvoiceItem(OrderItem item) {
         return new InvoiceItem(
                 item.getProductName(),
                 item.getCategory(),
                 item.getQuantity(),
                 item.getUnitPrice(),
-                lineTotal
+                item.getLineTotal()
         );
     }
 
     public double getTaxRate(String category) {
-        if (category == null) return 0.0;
-
-        switch (category.toLowerCase()) {
-            case "electronics":
-                return 0.18;
-            case "clothing":
-                return 0.12;
-            case "grocery":
-                return 0.05;
-            default:
-                return 0.0;
+        return taxRateRegistry.getTaxRate(category);
+    }
+
+    static long cursor(Long after) {
+        return after == null ? 0 : after;
+    }
+
+    int pageSize(Integer limit) {
+        InvoiceProperties.Pagination pagination = invoiceProperties.getPagination();
+        if (limit == null) {
+            return pagination.getDefaultLimit();
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be at least 1");
+        }
+        return Math.min(limit, pagination.getMaxLimit());
+    }
+
+    // Pages are fetched with one extra row to tell whether another page follows
+    static OrderPage page(List<OrderItemView> rows, int pageSize) {
+        if (rows.size() <= pageSize) {
+            return new OrderPage(rows, null);
         }
+        List<OrderItemView> items = rows.subList(0, pageSize);
+        return new OrderPage(items, items.get(pageSize - 1).getId());
+    }
+
+    static InvoicePage invoicePage(List<InvoiceLineView> rows, int pageSize, long grandTotal) {
+        List<InvoiceLineView> lines = rows.size() <= pageSize ? rows : rows.subList(0, pageSize);
+        Long nextCursor = rows.size() <= pageSize ? null : lines.get(pageSize - 1).getId();
+        List<InvoiceItem> invoiceItems = lines.stream().map(InvoiceLineView::toInvoiceItem).toList();
+        return new InvoicePage(new InvoiceResponse(invoiceItems, grandTotal), nextCursor);
     }
 
-    private void validateItems(List<OrderItem> items) {
+    // Order-level checks; line checks run inside the pricing pass and are timed with it
+    private void checkOrder(List<OrderItem> items) {
         if (items == null || items.isEmpty()) {
-            throw new IllegalArgumentException("Items list cannot be null or empty");
+            invoiceMetrics.validationFailed();
+            throw new InvoiceValidationException(EMPTY_ITEMS, List.of(new LineError(null, "items", LineError.REQUIRED)), 1);
         }
+    }
 
-        items.forEach(item -> {
-            if (item.getQuantity() <= 0) {
-                throw new IllegalArgumentException("Quantity must be greater than 0 for all items");
-            }
-            if (item.getUnitPrice() <= 0) {
-                throw new IllegalArgumentException("Unit price must be greater than 0 for all items");
-            }
-        });
+    private static boolean isValid(OrderItem item) {
+        return item != null && item.getQuantity() > 0 && item.getUnitPrice() > 0;
+    }
+
+    private static String firstError(OrderItem item) {
+        if (item == null) {
+            return NULL_ITEM;
+        }
+        return item.getQuantity() <= 0 ? INVALID_QUANTITY : INVALID_UNIT_PRICE;
+    }
+
+    // Adds the errors of an invalid item while under the cap and returns how many it has
+    private static int addLineErrors(List<LineError> errors, int line, OrderItem item) {
+        if (item == null) {
+            addLineError(errors, line, null, LineError.REQUIRED);
+            return 1;
+        }
+
+        int count = 0;
+        if (item.getQuantity() <= 0) {
+            addLineError(errors, line, "quantity", LineError.NOT_POSITIVE);
+            count++;
+        }
+        if (item.getUnitPrice() <= 0) {
+            addLineError(errors, line, "unitPrice", LineError.NOT_POSITIVE);
+            count++;
+        }
+        return count;
+    }
+
+    // Starts the error list of an order whose totals overflowed at this line
+    private static List<LineError> tooLarge(int line, String field) {
+        List<LineError> errors = new ArrayList<>();
+        errors.add(new LineError(line, field, LineError.TOO_LARGE));
+        return errors;
+    }
+
+    private static void addLineError(List<LineError> errors, int line, String field, String code) {
+        if (errors.size() < MAX_LINE_ERRORS) {
+            errors.add(new LineError(line, field, code));
+        }
     }
-}
\ No newline at end of file
+}
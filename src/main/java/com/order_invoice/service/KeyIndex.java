@@ -0,0 +1,65 @@
+package com.order_invoice.service;
+
+
+/**
+ * Case-insensitive lookup from a fixed set of keys to their positions. Keys are hashed in
+ * place (no lower-casing copy) into an open-addressing table, so lookups do not allocate.
+ */
+final class KeyIndex {
+
+    static final int MISSING = -1;
+
+
+    private final String[] keys;
+
+    // Open-addressing slots holding (key id + 1), 0 marks an empty slot
+    private final int[] slots;
+
+    private final int mask;
+
+
+    /**
+     * @param keys distinct keys, already normalized so none equal another ignoring case
+     */
+    KeyIndex(String[] keys) {
+        this.keys = keys;
+
+        int capacity = Integer.highestOneBit(Math.max(keys.length, 1) * 4 - 1) << 1;
+        this.slots = new int[capacity];
+        this.mask = capacity - 1;
+
+        for (int id = 0; id < keys.length; id++) {
+            int slot = hash(keys[id]) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id + 1;
+        }
+    }
+
+
+    int idOf(String key) {
+        if (key == null) {
+            return MISSING;
+        }
+
+        int slot = hash(key) & mask;
+        int entry;
+        while ((entry = slots[slot]) != 0) {
+            if (keys[entry - 1].equalsIgnoreCase(key)) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return MISSING;
+    }
+
+
+    private static int hash(String key) {
+        int h = 0;
+        for (int i = 0; i < key.length(); i++) {
+            h = 31 * h + Character.toLowerCase(key.charAt(i));
+        }
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,95 @@
+
+package com.order_invoice.service;
+
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Arithmetic on amounts held as {@code long} minor units (cents). Results are rounded
+ * half-up exactly once, at the end of a calculation.
+ */
+public final class Money {
+
+    public static final int SCALE = 2;
+
+
+    private Money() {
+    }
+
+
+    /**
+     * Returns {@code amount * numerator / denominator} rounded half-up to a whole minor unit.
+     */
+    public static long multiply(long amount, long numerator, long denominator) {
+        long product;
+        try {
+            product = Math.multiplyExact(amount, numerator);
+        } catch (ArithmeticException overflow) {
+            return BigDecimal.valueOf(amount)
+                    .multiply(BigDecimal.valueOf(numerator))
+                    .divide(BigDecimal.valueOf(denominator), 0, RoundingMode.HALF_UP)
+                    .longValueExact();
+        }
+
+        long quotient = product / denominator;
+        long remainder = product % denominator;
+        if (Math.abs(remainder) * 2 >= denominator) {
+            quotient += product < 0 ? -1 : 1;
+        }
+        return quotient;
+    }
+
+
+    // Digits before the decimal point in the largest amount a long holds in minor units
+    private static final int MAX_INTEGER_DIGITS = 17;
+
+
+    /**
+     * Rounds {@code value} half-up to minor units.
+     *
+     * @throws ArithmeticException if the result does not fit in a {@code long}
+     */
+    public static long fromDecimal(BigDecimal value) {
+        // Range is checked on precision and scale first: rescaling 1e999999999 or 1e-999999999
+        // would build a BigInteger with a billion digits before longValueExact could reject it
+        long integerDigits = (long) value.precision() - value.scale();
+        if (value.signum() == 0 || integerDigits < -SCALE) {
+            return 0;
+        }
+        if (integerDigits > MAX_INTEGER_DIGITS) {
+            throw new ArithmeticException("Amount out of range");
+        }
+        return value.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+
+    public static BigDecimal toDecimal(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+
+    /**
+     * Writes the two-decimal representation of {@code minorUnits} right-aligned into {@code buffer}
+     * and returns the offset of its first character; the buffer needs at least 22 chars.
+     */
+    public static int format(long minorUnits, char[] buffer) {
+        int position = buffer.length;
+        long value = Math.absExact(minorUnits);
+
+        long cents = value % 100;
+        value /= 100;
+        buffer[--position] = (char) ('0' + cents % 10);
+        buffer[--position] = (char) ('0' + cents / 10);
+        buffer[--position] = '.';
+        do {
+            buffer[--position] = (char) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+
+        if (minorUnits < 0) {
+            buffer[--position] = '-';
+        }
+        return position;
+    }
+}
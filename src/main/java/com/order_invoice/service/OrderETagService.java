@@ -0,0 +1,40 @@
+package com.order_invoice.service;
+
+
+import com.order_invoice.entity.OrderItemsVersion;
+import com.order_invoice.repository.OrderRepository;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Service;
+
+/**
+ * Entity tags for the order and invoice listings, taken from the {@link OrderItemsVersion} of
+ * {@code order_items} instead of the response body, so answering a conditional GET costs one
+ * index lookup and a read of the small summary table. Items are only ever inserted; with pooled
+ * IDs a late commit can land below the highest ID, but it still changes the row count. Repricing
+ * stored lines bumps the summary revision, even where raised and lowered totals cancel out.
+ * <p>
+ * Tags are weak. The same listing goes out as JSON, Smile or CBOR, compressed or not, and
+ * Tomcat does not compress responses that carry a strong tag.
+ */
+@Service
+@AllArgsConstructor
+public class OrderETagService {
+
+    private OrderRepository orderRepository;
+
+
+    /**
+     * The tag for {@code representation}, which must tell apart every response that can
+     * differ for the same data: the path, query and accepted media types.
+     */
+    public String etag(String representation) {
+        return etag(orderRepository.findVersion(), representation);
+    }
+
+
+    static String etag(OrderItemsVersion version, String representation) {
+        return "W/\"" + Long.toHexString(version.getRows()) + '-' + Long.toHexString(version.getLastId())
+                + '-' + Long.toHexString(version.getSummaryRevision())
+                + '-' + Integer.toHexString(representation.hashCode()) + '"';
+    }
+}
@@ -0,0 +1,323 @@
+package com.order_invoice.service;
+
+
+import com.order_invoice.entity.CategorySales;
+import com.order_invoice.entity.SalesReport;
+import com.order_invoice.repository.ExportRepository;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Read-only, column-oriented copy of {@code order_items} for reporting, stored in one file and
+ * memory-mapped column by column. Each row is a dictionary-encoded category plus quantity,
+ * unit price and stored line total, kept as primitive columns.
+ * <p>
+ * File layout, big-endian: magic, version, taken-at millis, last item ID, row count,
+ * category count, then each category as a length-prefixed UTF-8 string, padding to 8 bytes,
+ * and the columns unitPrice (long), lineTotal (long), category code (int) and quantity (int).
+ */
+final class OrderSnapshot {
+
+    private static final int MAGIC = 0x4F534E50; // "OSNP"
+
+    private static final int VERSION = 1;
+
+    // Each column is mapped separately, and a mapping cannot exceed 2 GB
+    private static final int MAX_ROWS = Integer.MAX_VALUE / Long.BYTES;
+
+    // Rows scanned per parallel task
+    private static final int SCAN_CHUNK_ROWS = 1 << 16;
+
+    private static final int WRITE_BUFFER_BYTES = 1 << 16;
+
+
+    private final Path file;
+
+    private final Instant takenAt;
+
+    private final long lastItemId;
+
+    private final int rows;
+
+    private final String[] categories;
+
+    private final LongBuffer unitPrices;
+
+    private final LongBuffer lineTotals;
+
+    private final IntBuffer categoryCodes;
+
+    private final IntBuffer quantities;
+
+
+    private OrderSnapshot(Path file, Instant takenAt, long lastItemId, int rows, String[] categories,
+                          LongBuffer unitPrices, LongBuffer lineTotals, IntBuffer categoryCodes, IntBuffer quantities) {
+        this.file = file;
+        this.takenAt = takenAt;
+        this.lastItemId = lastItemId;
+        this.rows = rows;
+        this.categories = categories;
+        this.unitPrices = unitPrices;
+        this.lineTotals = lineTotals;
+        this.categoryCodes = categoryCodes;
+        this.quantities = quantities;
+    }
+
+
+    /**
+     * Copies every row of {@code order_items} into a new snapshot file in {@code directory} and
+     * maps it. Columns are first streamed to temporary files, so building takes constant heap
+     * apart from the category dictionary.
+     */
+    static OrderSnapshot take(ExportRepository exportRepository, Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Instant takenAt = Instant.now();
+
+        Path[] columns = new Path[4];
+        DataOutputStream[] out = new DataOutputStream[4];
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+        long[] stats = new long[2]; // rows, last item ID
+        Path file = null;
+        try {
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = Files.createTempFile(directory, "column-", ".tmp");
+                out[i] = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(columns[i]), WRITE_BUFFER_BYTES));
+            }
+
+            exportRepository.forEachSnapshotRow(rs -> {
+                if (stats[0] == MAX_ROWS) {
+                    throw new IllegalStateException("order_items has more rows than a snapshot can hold");
+                }
+                String category = rs.getString("category");
+                int code = dictionary.computeIfAbsent(category == null ? CategorySummaryService.UNCATEGORIZED : category,
+                        key -> dictionary.size());
+                try {
+                    out[0].writeLong(rs.getLong("unit_price"));
+                    out[1].writeLong(rs.getLong("line_total"));
+                    out[2].writeInt(code);
+                    out[3].writeInt(rs.getInt("quantity"));
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+                stats[0]++;
+                stats[1] = Math.max(stats[1], rs.getLong("id"));
+            });
+            for (DataOutputStream column : out) {
+                column.close();
+            }
+
+            file = Files.createTempFile(directory, "order-items-", ".snapshot");
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.write(header(takenAt, stats[1], (int) stats[0], dictionary));
+                for (Path column : columns) {
+                    try (FileChannel source = FileChannel.open(column, StandardOpenOption.READ)) {
+                        long position = 0;
+                        while (position < source.size()) {
+                            position += source.transferTo(position, source.size() - position, channel);
+                        }
+                    }
+                }
+            }
+            return open(file);
+        } catch (IOException | RuntimeException ex) {
+            if (file != null) {
+                Files.deleteIfExists(file);
+            }
+            throw ex;
+        } finally {
+            for (int i = 0; i < columns.length; i++) {
+                if (out[i] != null) {
+                    out[i].close();
+                }
+                if (columns[i] != null) {
+                    Files.deleteIfExists(columns[i]);
+                }
+            }
+        }
+    }
+
+
+    static OrderSnapshot open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer fixed = channel.map(FileChannel.MapMode.READ_ONLY, 0, 32);
+            if (fixed.getInt() != MAGIC || fixed.getInt() != VERSION) {
+                throw new IOException("Not an order snapshot: " + file);
+            }
+            Instant takenAt = Instant.ofEpochMilli(fixed.getLong());
+            long lastItemId = fixed.getLong();
+            int rows = fixed.getInt();
+            int categoryCount = fixed.getInt();
+
+            // The dictionary is small; read it through a mapping of the rest of the header
+            MappedByteBuffer rest = channel.map(FileChannel.MapMode.READ_ONLY, 32,
+                    Math.min(channel.size() - 32, Integer.MAX_VALUE));
+            String[] categories = new String[categoryCount];
+            for (int code = 0; code < categoryCount; code++) {
+                byte[] name = new byte[rest.getInt()];
+                rest.get(name);
+                categories[code] = new String(name, StandardCharsets.UTF_8);
+            }
+            long position = align(32 + rest.position());
+
+            LongBuffer unitPrices = channel.map(FileChannel.MapMode.READ_ONLY, position, (long) rows * Long.BYTES).asLongBuffer();
+            position += (long) rows * Long.BYTES;
+            LongBuffer lineTotals = channel.map(FileChannel.MapMode.READ_ONLY, position, (long) rows * Long.BYTES).asLongBuffer();
+            position += (long) rows * Long.BYTES;
+            IntBuffer categoryCodes = channel.map(FileChannel.MapMode.READ_ONLY, position, (long) rows * Integer.BYTES).asIntBuffer();
+            position += (long) rows * Integer.BYTES;
+            IntBuffer quantities = channel.map(FileChannel.MapMode.READ_ONLY, position, (long) rows * Integer.BYTES).asIntBuffer();
+
+            return new OrderSnapshot(file, takenAt, lastItemId, rows, categories, unitPrices, lineTotals, categoryCodes, quantities);
+        }
+    }
+
+
+    /**
+     * Revenue and bulk share per category, scanned in parallel chunks on the common pool with
+     * absolute (thread-safe) reads of the mapped columns.
+     */
+    SalesReport salesReport(int bulkQuantity) {
+        int chunks = Math.max(1, (rows + SCAN_CHUNK_ROWS - 1) / SCAN_CHUNK_ROWS);
+        Totals totals = IntStream.range(0, chunks)
+                .parallel()
+                .mapToObj(chunk -> scan(chunk * SCAN_CHUNK_ROWS, Math.min(rows, (chunk + 1) * SCAN_CHUNK_ROWS), bulkQuantity))
+                .reduce(new Totals(categories.length), Totals::add);
+
+        List<CategorySales> byCategory = new ArrayList<>(categories.length);
+        long itemCount = 0;
+        long revenue = 0;
+        long bulkItems = 0;
+        long bulkRevenue = 0;
+        for (int code = 0; code < categories.length; code++) {
+            byCategory.add(new CategorySales(categories[code], totals.items[code], totals.quantity[code],
+                    totals.listRevenue[code], totals.revenue[code], totals.bulkItems[code], totals.bulkRevenue[code]));
+            itemCount += totals.items[code];
+            revenue += totals.revenue[code];
+            bulkItems += totals.bulkItems[code];
+            bulkRevenue += totals.bulkRevenue[code];
+        }
+        byCategory.sort((a, b) -> a.getCategory().compareTo(b.getCategory()));
+
+        return new SalesReport(takenAt, lastItemId, bulkQuantity, itemCount, revenue,
+                itemCount == 0 ? 0 : (double) bulkItems / itemCount,
+                revenue == 0 ? 0 : (double) bulkRevenue / revenue,
+                byCategory);
+    }
+
+
+    Path file() {
+        return file;
+    }
+
+
+    int rows() {
+        return rows;
+    }
+
+
+    Instant takenAt() {
+        return takenAt;
+    }
+
+
+    private Totals scan(int from, int to, int bulkQuantity) {
+        Totals totals = new Totals(categories.length);
+        for (int row = from; row < to; row++) {
+            int code = categoryCodes.get(row);
+            int quantity = quantities.get(row);
+            long lineTotal = lineTotals.get(row);
+            totals.items[code]++;
+            totals.quantity[code] += quantity;
+            totals.listRevenue[code] += quantity * unitPrices.get(row);
+            totals.revenue[code] += lineTotal;
+            if (quantity >= bulkQuantity) {
+                totals.bulkItems[code]++;
+                totals.bulkRevenue[code] += lineTotal;
+            }
+        }
+        return totals;
+    }
+
+
+    private static ByteBuffer header(Instant takenAt, long lastItemId, int rows, Map<String, Integer> dictionary) {
+        List<byte[]> names = dictionary.keySet().stream()
+                .map(name -> name.getBytes(StandardCharsets.UTF_8))
+                .toList();
+        int size = 32;
+        for (byte[] name : names) {
+            size += Integer.BYTES + name.length;
+        }
+
+        ByteBuffer header = ByteBuffer.allocate((int) align(size));
+        header.putInt(MAGIC).putInt(VERSION).putLong(takenAt.toEpochMilli()).putLong(lastItemId)
+                .putInt(rows).putInt(names.size());
+        for (byte[] name : names) {
+            header.putInt(name.length).put(name);
+        }
+        return header.position(0);
+    }
+
+
+    private static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+
+
+    /**
+     * Per-category partial sums of one scan chunk, indexed by category code.
+     */
+    private static final class Totals {
+
+        final long[] items;
+
+        final long[] quantity;
+
+        final long[] listRevenue;
+
+        final long[] revenue;
+
+        final long[] bulkItems;
+
+        final long[] bulkRevenue;
+
+        Totals(int categories) {
+            items = new long[categories];
+            quantity = new long[categories];
+            listRevenue = new long[categories];
+            revenue = new long[categories];
+            bulkItems = new long[categories];
+            bulkRevenue = new long[categories];
+        }
+
+        Totals add(Totals other) {
+            Totals sum = new Totals(items.length);
+            for (int code = 0; code < items.length; code++) {
+                sum.items[code] = items[code] + other.items[code];
+                sum.quantity[code] = quantity[code] + other.quantity[code];
+                sum.listRevenue[code] = listRevenue[code] + other.listRevenue[code];
+                sum.revenue[code] = revenue[code] + other.revenue[code];
+                sum.bulkItems[code] = bulkItems[code] + other.bulkItems[code];
+                sum.bulkRevenue[code] = bulkRevenue[code] + other.bulkRevenue[code];
+            }
+            return sum;
+        }
+    }
+}
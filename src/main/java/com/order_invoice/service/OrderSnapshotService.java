@@ -0,0 +1,135 @@
+package com.order_invoice.service;
+
+
+import com.order_invoice.config.InvoiceProperties;
+import com.order_invoice.entity.SalesReport;
+import com.order_invoice.exception.SnapshotUnavailableException;
+import com.order_invoice.repository.ExportRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Keeps a columnar {@link OrderSnapshot} of {@code order_items} for reporting, retaken every
+ * {@code invoice.snapshot.interval}. Reports scan the snapshot instead of the live tables, so
+ * they never compete with invoicing for database connections or locks, at the cost of being
+ * up to one interval behind.
+ */
+@Service
+public class OrderSnapshotService {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderSnapshotService.class);
+
+
+    private final ExportRepository exportRepository;
+
+    private final InvoiceProperties.Snapshot settings;
+
+    private volatile OrderSnapshot current;
+
+
+    public OrderSnapshotService(ExportRepository exportRepository, InvoiceProperties invoiceProperties) {
+        this.exportRepository = exportRepository;
+        this.settings = invoiceProperties.getSnapshot();
+    }
+
+
+    /**
+     * Deletes snapshots and partly written columns left in the directory by a previous run that
+     * did not shut down cleanly. The directory must not be shared with another instance.
+     */
+    @PostConstruct
+    void deleteStaleFiles() {
+        Path directory = settings.getDirectory();
+        if (!settings.isEnabled() || !Files.isDirectory(directory)) {
+            return;
+        }
+
+        try (DirectoryStream<Path> stale = Files.newDirectoryStream(directory, "{order-items-*.snapshot,column-*.tmp}")) {
+            for (Path file : stale) {
+                Files.deleteIfExists(file);
+                log.info("Deleted stale order snapshot file {}", file);
+            }
+        } catch (IOException ex) {
+            log.warn("Failed to delete stale order snapshot files in {}", directory, ex);
+        }
+    }
+
+
+    /**
+     * Takes a new snapshot and swaps it in; the previous snapshot's file is then deleted.
+     * Reports already scanning it keep their mapping, which outlives the file.
+     */
+    @Scheduled(fixedDelayString = "${invoice.snapshot.interval:5m}", initialDelay = 0)
+    public void refresh() {
+        if (!settings.isEnabled()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        OrderSnapshot taken;
+        try {
+            taken = OrderSnapshot.take(exportRepository, settings.getDirectory());
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Failed to snapshot order items into {}; reports keep using the previous snapshot",
+                    settings.getDirectory(), ex);
+            return;
+        }
+
+        OrderSnapshot previous = current;
+        current = taken;
+        log.info("Snapshotted {} order items in {} ms", taken.rows(), (System.nanoTime() - start) / 1_000_000);
+        if (previous != null) {
+            delete(previous);
+        }
+    }
+
+
+    /**
+     * Sales by category from the latest snapshot.
+     *
+     * @param bulkQuantity lines with at least this quantity count as bulk; defaults to the
+     *                     quantity {@code GET /orders/bulk} uses
+     * @throws SnapshotUnavailableException if no snapshot has been taken yet
+     */
+    public SalesReport getSalesReport(Integer bulkQuantity) {
+        if (bulkQuantity != null && bulkQuantity < 1) {
+            throw new IllegalArgumentException("bulkQuantity must be at least 1");
+        }
+
+        OrderSnapshot snapshot = current;
+        if (snapshot == null) {
+            throw new SnapshotUnavailableException(settings.isEnabled()
+                    ? "The first order snapshot has not been taken yet"
+                    : "Order snapshots are disabled");
+        }
+        return snapshot.salesReport(bulkQuantity == null ? InvoiceService.BULK_QUANTITY : bulkQuantity);
+    }
+
+
+    @PreDestroy
+    void close() {
+        OrderSnapshot snapshot = current;
+        current = null;
+        if (snapshot != null) {
+            delete(snapshot);
+        }
+    }
+
+
+    private static void delete(OrderSnapshot snapshot) {
+        try {
+            Files.deleteIfExists(snapshot.file());
+        } catch (IOException ex) {
+            log.warn("Failed to delete order snapshot {}", snapshot.file(), ex);
+        }
+    }
+}
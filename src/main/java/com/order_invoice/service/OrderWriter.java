@@ -0,0 +1,46 @@
+package com.order_invoice.service;
+
+
+import com.order_invoice.entity.CustomerOrder;
+import com.order_invoice.entity.InvoiceItem;
+import com.order_invoice.repository.CustomerOrderRepository;
+import com.order_invoice.repository.OrderRepository;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Single write path for priced orders, shared by synchronous invoicing, bulk invoicing and
+ * the write-behind queue.
+ */
+@Service
+@AllArgsConstructor
+public class OrderWriter {
+
+    private CustomerOrderRepository customerOrderRepository;
+
+    private OrderRepository orderRepository;
+
+    private CategorySummaryService categorySummaryService;
+
+    private InvoiceMetrics invoiceMetrics;
+
+
+    /**
+     * Saves already-priced orders with their items and folds the line totals into the
+     * category summaries atomically.
+     */
+    @Transactional
+    public void persist(List<CustomerOrder> orders, List<InvoiceItem> invoiceItems) {
+        long start = System.nanoTime();
+        try {
+            customerOrderRepository.saveAll(orders);
+            orderRepository.saveAll(orders.stream().flatMap(order -> order.getItems().stream()).toList());
+            categorySummaryService.record(invoiceItems);
+        } finally {
+            invoiceMetrics.recordPersist(start);
+        }
+    }
+}
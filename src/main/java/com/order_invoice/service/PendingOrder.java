@@ -0,0 +1,27 @@
+package com.order_invoice.service;
+
+import com.order_invoice.entity.CustomerOrder;
+import com.order_invoice.entity.InvoiceItem;
+import com.order_invoice.entity.OrderItem;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A priced order accepted for write-behind persistence, as queued and journaled.
+ * Amounts are in minor units (cents).
+ */
+record PendingOrder(long seq, String customerId, long grandTotal, List<InvoiceItem> items) {
+
+    // Fresh entities on every call, so a failed batch can be retried order by order
+    CustomerOrder toOrder() {
+        List<OrderItem> orderItems = new ArrayList<>(items.size());
+        for (InvoiceItem item : items) {
+            OrderItem orderItem = new OrderItem(null, item.getProductName(), item.getCategory(),
+                    item.getQuantity(), item.getUnitPrice());
+            orderItem.setLineTotal(item.getLineTotal());
+            orderItems.add(orderItem);
+        }
+        return new CustomerOrder(customerId, orderItems, grandTotal);
+    }
+}
@@ -0,0 +1,237 @@
+package com.order_invoice.service;
+
+
+import com.order_invoice.config.InvoiceProperties;
+import com.order_invoice.entity.BulkInvoiceResponse;
+import com.order_invoice.entity.BulkInvoiceResult;
+import com.order_invoice.entity.CategorySummary;
+import com.order_invoice.entity.InvoiceItem;
+import com.order_invoice.entity.InvoicePage;
+import com.order_invoice.entity.InvoiceResponse;
+import com.order_invoice.entity.InvoiceTotal;
+import com.order_invoice.entity.OrderItem;
+import com.order_invoice.entity.OrderItemView;
+import com.order_invoice.entity.OrderPage;
+import com.order_invoice.entity.OrderRequest;
+import com.order_invoice.exception.InvoiceValidationException;
+import com.order_invoice.repository.ReactiveOrderRepository;
+import lombok.AllArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+
+/**
+ * Non-blocking counterpart of {@link InvoiceService} and {@link BulkInvoiceService} for the
+ * reactive stack. Orders are priced exactly as on the servlet stack, on the calling event-loop
+ * thread since pricing never blocks, and stored through {@link ReactiveOrderRepository}.
+ * <p>
+ * The write-behind journal and idempotency records are file and JPA based, so those two paths
+ * hop to the bounded-elastic scheduler rather than block an event loop.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@AllArgsConstructor
+public class ReactiveInvoiceService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveInvoiceService.class);
+
+
+    private InvoiceService invoiceService;
+
+    private ReactiveOrderRepository reactiveOrderRepository;
+
+    private TransactionalOperator reactiveTransactionalOperator;
+
+    private WriteBehindQueue writeBehindQueue;
+
+    private IdempotencyService idempotencyService;
+
+    private InvoiceProperties invoiceProperties;
+
+    private InvoiceMetrics invoiceMetrics;
+
+
+    public Mono<InvoiceResponse> generateInvoice(OrderRequest request) {
+        return generateInvoice(request, null);
+    }
+
+
+    /**
+     * Same as {@link IdempotencyService#generateOnce}; the idempotency bookkeeping is blocking,
+     * so the whole call runs on the bounded-elastic scheduler. The response is stored against
+     * the key in the R2DBC transaction that inserts the order.
+     */
+    public Mono<InvoiceResponse> generateInvoiceOnce(String idempotencyKey, OrderRequest request) {
+        return Mono.fromCallable(() -> idempotencyService.generateOnceStoredByGenerator(idempotencyKey, request,
+                        () -> generateInvoice(request, idempotencyKey).block()))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+
+    private Mono<InvoiceResponse> generateInvoice(OrderRequest request, String idempotencyKey) {
+        return Mono.fromCallable(() -> invoiceService.price(request.getCustomerId(), request.getItems()))
+                .flatMap(invoice -> {
+                    if (writeBehindQueue.isEnabled()) {
+                        return Mono.fromRunnable(() -> {
+                                    writeBehindQueue.submit(request.getCustomerId(), invoice);
+                                    if (idempotencyKey != null) {
+                                        idempotencyService.store(idempotencyKey, invoice);
+                                    }
+                                })
+                                .subscribeOn(Schedulers.boundedElastic())
+                                .thenReturn(invoice);
+                    }
+                    return persist(request.getCustomerId(), request.getItems(), invoice, idempotencyKey);
+                });
+    }
+
+
+    /**
+     * Prices every order independently and stores each valid one in its own transaction, so a
+     * failure is reported against that order only.
+     */
+    public Mono<BulkInvoiceResponse> generateInvoices(List<OrderRequest> orders) {
+        if (orders == null || orders.isEmpty()) {
+            return Mono.error(new IllegalArgumentException("Orders list cannot be null or empty"));
+        }
+        int maxOrders = invoiceProperties.getBulk().getMaxOrders();
+        if (orders.size() > maxOrders) {
+            return Mono.error(new IllegalArgumentException("A bulk request cannot contain more than " + maxOrders + " orders"));
+        }
+
+        return Flux.range(0, orders.size())
+                .concatMap(index -> generateBulkEntry(index, orders.get(index)))
+                .collectList()
+                .map(results -> {
+                    int succeeded = (int) results.stream().filter(BulkInvoiceResult::isSuccessful).count();
+                    return new BulkInvoiceResponse(succeeded, results.size() - succeeded, results);
+                });
+    }
+
+
+    public Mono<OrderPage> getAllOrders(Long after, Integer limit) {
+        int pageSize = invoiceService.pageSize(limit);
+        return page(reactiveOrderRepository.findPageAfter(InvoiceService.cursor(after), pageSize + 1), pageSize);
+    }
+
+
+    public Mono<OrderPage> getOrdersByCategory(String category, Long after, Integer limit) {
+        int pageSize = invoiceService.pageSize(limit);
+        return page(reactiveOrderRepository.findPageByCategoryAfter(category, InvoiceService.cursor(after), pageSize + 1), pageSize);
+    }
+
+
+    public Mono<OrderPage> getBulkOrders(Long after, Integer limit) {
+        int pageSize = invoiceService.pageSize(limit);
+        return page(reactiveOrderRepository.findPageByQuantityAtLeastAfter(InvoiceService.BULK_QUANTITY,
+                InvoiceService.cursor(after), pageSize + 1), pageSize);
+    }
+
+
+    /**
+     * See {@link OrderETagService#etag(String)}.
+     */
+    public Mono<String> etag(String representation) {
+        return reactiveOrderRepository.findVersion().map(version -> OrderETagService.etag(version, representation));
+    }
+
+
+    public Flux<CategorySummary> getSummaries() {
+        return reactiveOrderRepository.findSummaries();
+    }
+
+
+    public Mono<InvoiceResponse> getInvoiceByOrderId(Long orderId) {
+        return reactiveOrderRepository.findInvoiceByOrderId(orderId)
+                .switchIfEmpty(Mono.error(() -> new IllegalArgumentException("Order not found with ID: " + orderId)));
+    }
+
+
+    /**
+     * See {@link InvoiceService#getAllInvoices}; the page and the grand total are read in one
+     * R2DBC transaction.
+     */
+    public Mono<InvoicePage> getAllInvoices(Long after, Integer limit) {
+        int pageSize = invoiceService.pageSize(limit);
+        Mono<InvoicePage> page = reactiveOrderRepository.findInvoicePageAfter(InvoiceService.cursor(after), pageSize + 1)
+                .collectList()
+                .flatMap(rows -> reactiveOrderRepository.findGrandTotal()
+                        .map(grandTotal -> InvoiceService.invoicePage(rows, pageSize, grandTotal)));
+        return reactiveTransactionalOperator.transactional(page);
+    }
+
+
+    /**
+     * Every stored invoice line as it is read, followed by an {@link InvoiceTotal} with the
+     * item count and grand total.
+     */
+    public Flux<Object> streamAllInvoices() {
+        return Flux.defer(() -> {
+            long[] totals = new long[2];
+            Flux<InvoiceItem> items = reactiveOrderRepository.findAllInvoiceItems()
+                    .doOnNext(item -> {
+                        totals[0]++;
+                        totals[1] += item.getLineTotal();
+                    });
+            return Flux.concat(items, Mono.fromSupplier(() -> new InvoiceTotal(totals[0], totals[1])));
+        });
+    }
+
+
+    private Mono<BulkInvoiceResult> generateBulkEntry(int index, OrderRequest order) {
+        InvoiceResponse invoice;
+        try {
+            invoice = order == null
+                    ? invoiceService.price(null, null)
+                    : invoiceService.price(order.getCustomerId(), order.getItems());
+        } catch (InvoiceValidationException ex) {
+            return Mono.just(BulkInvoiceResult.failure(index, ex.getMessage(), ex.getErrors()));
+        } catch (IllegalArgumentException ex) {
+            return Mono.just(BulkInvoiceResult.failure(index, ex.getMessage()));
+        } catch (RuntimeException ex) {
+            log.warn("Failed to price order {} of bulk request", index, ex);
+            return Mono.just(BulkInvoiceResult.failure(index, "An unexpected error occurred"));
+        }
+
+        return persist(order.getCustomerId(), order.getItems(), invoice, null)
+                .map(stored -> BulkInvoiceResult.success(index, stored))
+                .onErrorResume(ex -> {
+                    log.warn("Failed to persist order {} of bulk request", index, ex);
+                    return Mono.just(BulkInvoiceResult.failure(index, "Failed to persist order"));
+                });
+    }
+
+
+    // Order, items, category totals and any idempotent response in one transaction, as OrderWriter.persist does
+    private Mono<InvoiceResponse> persist(String customerId, List<OrderItem> items, InvoiceResponse invoice,
+                                          String idempotencyKey) {
+        Mono<InvoiceResponse> write = Mono.defer(() -> {
+            long start = System.nanoTime();
+            return reactiveOrderRepository.insertOrder(customerId, invoice.getGrandTotal(), items)
+                    .flatMap(orderId -> Flux.fromIterable(CategorySummaryService.deltas(invoice.getInvoice()))
+                            .concatMap(reactiveOrderRepository::incrementSummary)
+                            .then(Mono.fromSupplier(() -> {
+                                invoice.setOrderId(orderId);
+                                return invoice;
+                            })))
+                    .flatMap(stored -> idempotencyKey == null
+                            ? Mono.just(stored)
+                            : reactiveOrderRepository.completeIdempotencyKey(idempotencyKey, idempotencyService.serialize(stored))
+                                    .thenReturn(stored))
+                    .doFinally(signal -> invoiceMetrics.recordPersist(start));
+        });
+        return reactiveTransactionalOperator.transactional(write);
+    }
+
+
+    private static Mono<OrderPage> page(Flux<OrderItemView> rows, int pageSize) {
+        return rows.collectList().map(list -> InvoiceService.page(list, pageSize));
+    }
+}
@@ -0,0 +1,58 @@
+
+package com.order_invoice.service;
+
+
+import com.order_invoice.config.InvoiceProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Holds the current {@link TaxRateTable}, built from {@code invoice.tax.rates.*} at startup.
+ * {@link #reload(Map)} swaps in a new table atomically.
+ */
+@Component
+public class TaxRateRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(TaxRateRegistry.class);
+
+
+    private volatile TaxRateTable table;
+
+
+    public TaxRateRegistry(InvoiceProperties invoiceProperties) {
+        this.table = TaxRateTable.of(invoiceProperties.getTax().getRates());
+    }
+
+
+    public double getTaxRate(String category) {
+        return table.rate(category);
+    }
+
+
+    public long getTaxRatePpm(String category) {
+        TaxRateTable current = table;
+        return current.ratePpm(current.categoryId(category));
+    }
+
+
+    public TaxRateTable getTable() {
+        return table;
+    }
+
+
+    public Map<String, Double> getRates() {
+        return table.asMap();
+    }
+
+
+    public TaxRateTable reload(Map<String, Double> rates) {
+        TaxRateTable reloaded = TaxRateTable.of(rates);
+        table = reloaded;
+
+        log.info("Reloaded tax rates for {} categories", reloaded.size());
+        return reloaded;
+    }
+}
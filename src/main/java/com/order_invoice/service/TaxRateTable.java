@@ -0,0 +1,103 @@
+
+package com.order_invoice.service;
+
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable, case-insensitive category to tax-rate lookup. Every category is interned to a
+ * small integer id at build time and looked up through a {@link KeyIndex}, so pricing a line
+ * does not allocate.
+ */
+public final class TaxRateTable {
+
+    public static final int UNKNOWN_CATEGORY = KeyIndex.MISSING;
+
+    // Rates are also kept as parts per million for exact minor-unit arithmetic
+    public static final long PPM = 1_000_000;
+
+
+    private final String[] categories;
+
+    private final double[] rates;
+
+    private final long[] ratesPpm;
+
+    private final KeyIndex index;
+
+
+    private TaxRateTable(String[] categories, double[] rates) {
+        this.categories = categories;
+        this.rates = rates;
+        this.ratesPpm = new long[rates.length];
+        for (int id = 0; id < rates.length; id++) {
+            ratesPpm[id] = Math.round(rates[id] * PPM);
+        }
+        this.index = new KeyIndex(categories);
+    }
+
+
+    public static TaxRateTable of(Map<String, Double> rates) {
+        Map<String, Double> normalized = new LinkedHashMap<>();
+        rates.forEach((category, rate) -> {
+            if (category == null || category.isBlank()) {
+                throw new IllegalArgumentException("Tax category cannot be blank");
+            }
+            if (rate == null || rate < 0 || rate >= 1) {
+                throw new IllegalArgumentException("Tax rate for " + category + " must be between 0 and 1");
+            }
+            if (normalized.put(category.trim().toLowerCase(Locale.ROOT), rate) != null) {
+                throw new IllegalArgumentException("Tax category " + category + " is listed more than once");
+            }
+        });
+
+        String[] categories = normalized.keySet().toArray(new String[0]);
+        double[] values = new double[categories.length];
+        for (int id = 0; id < categories.length; id++) {
+            values[id] = normalized.get(categories[id]);
+        }
+        return new TaxRateTable(categories, values);
+    }
+
+
+    public int categoryId(String category) {
+        return index.idOf(category);
+    }
+
+
+    public double rate(int categoryId) {
+        return categoryId == UNKNOWN_CATEGORY ? 0.0 : rates[categoryId];
+    }
+
+
+    public double rate(String category) {
+        return rate(categoryId(category));
+    }
+
+
+    public long ratePpm(int categoryId) {
+        return categoryId == UNKNOWN_CATEGORY ? 0 : ratesPpm[categoryId];
+    }
+
+
+    public int size() {
+        return categories.length;
+    }
+
+
+    public String category(int categoryId) {
+        return categories[categoryId];
+    }
+
+
+    public Map<String, Double> asMap() {
+        Map<String, Double> map = new LinkedHashMap<>();
+        for (int id = 0; id < categories.length; id++) {
+            map.put(categories[id], rates[id]);
+        }
+        return Collections.unmodifiableMap(map);
+    }
+}
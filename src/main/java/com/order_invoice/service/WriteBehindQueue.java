@@ -0,0 +1,285 @@
+package com.order_invoice.service;
+
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.order_invoice.config.InvoiceProperties;
+import com.order_invoice.entity.CustomerOrder;
+import com.order_invoice.entity.InvoiceItem;
+import com.order_invoice.entity.InvoiceResponse;
+import com.order_invoice.exception.WriteBehindQueueFullException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind persistence for {@code invoice.persistence.mode=write-behind}. Priced orders are
+ * journaled and put on a bounded queue; a single drain thread writes them through
+ * {@link OrderWriter} in batches of up to {@code batch-size} orders per transaction.
+ * <p>
+ * On startup, orders left unwritten in the journal are replayed before requests are served.
+ * On shutdown, which runs after the web server has stopped accepting requests, the queue is
+ * drained before the context closes; an order still failing then is left to the next replay.
+ */
+@Component
+public class WriteBehindQueue implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteBehindQueue.class);
+
+    // Start before and stop after the web server (DEFAULT_PHASE - 2048), so no request sees a stopped queue
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    private static final long POLL_MILLIS = 100;
+
+
+    private final OrderWriter orderWriter;
+
+    private final ObjectMapper objectMapper;
+
+    private final InvoiceMetrics invoiceMetrics;
+
+    private final InvoiceProperties.WriteBehind settings;
+
+    private final boolean enabled;
+
+    private final BlockingQueue<PendingOrder> queue;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private InvoiceJournal journal;
+
+    private Thread drainThread;
+
+    private volatile boolean running;
+
+    // Released by stop(), ending retry backoffs early
+    private final CountDownLatch stopping = new CountDownLatch(1);
+
+
+    public WriteBehindQueue(OrderWriter orderWriter, ObjectMapper objectMapper, InvoiceMetrics invoiceMetrics,
+                            InvoiceProperties invoiceProperties) {
+        this.orderWriter = orderWriter;
+        this.objectMapper = objectMapper;
+        this.invoiceMetrics = invoiceMetrics;
+        this.settings = invoiceProperties.getPersistence().getWriteBehind();
+        this.enabled = invoiceProperties.getPersistence().getMode() == InvoiceProperties.Persistence.Mode.WRITE_BEHIND;
+        this.queue = new ArrayBlockingQueue<>(enabled ? settings.getQueueCapacity() : 1);
+    }
+
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+
+    /**
+     * Journals and queues a priced invoice, waiting up to {@code offer-timeout} for space.
+     *
+     * @throws WriteBehindQueueFullException if the queue is still full after the timeout
+     */
+    public void submit(String customerId, InvoiceResponse invoice) {
+        if (!running) {
+            throw new IllegalStateException("Write-behind persistence is not running");
+        }
+
+        PendingOrder order = new PendingOrder(sequence.incrementAndGet(), customerId, invoice.getGrandTotal(), invoice.getInvoice());
+        journal.append(order);
+
+        boolean queued = false;
+        try {
+            queued = queue.offer(order, settings.getOfferTimeout().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (!queued) {
+            journal.done(List.of(order.seq()));
+            invoiceMetrics.writeBehindRejected();
+            throw new WriteBehindQueueFullException("Too many invoices are waiting to be saved, retry shortly");
+        }
+    }
+
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            journal = InvoiceJournal.open(settings.getJournal(), settings.getDeadLetter(), objectMapper,
+                    settings.isFsync(), settings.getJournalCompactSize().toBytes());
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot open write-behind journal " + settings.getJournal(), ex);
+        }
+        sequence.set(journal.lastSeq());
+
+        List<PendingOrder> replay = journal.pending();
+        if (!replay.isEmpty()) {
+            log.info("Replaying {} unwritten orders from {}", replay.size(), settings.getJournal());
+            for (int from = 0; from < replay.size(); from += settings.getBatchSize()) {
+                write(replay.subList(from, Math.min(from + settings.getBatchSize(), replay.size())));
+            }
+        }
+
+        invoiceMetrics.gaugeWriteBehindQueue(queue);
+        running = true;
+        drainThread = Thread.ofPlatform().name("invoice-write-behind").daemon().start(this::drain);
+    }
+
+
+    @Override
+    public void stop() {
+        running = false;
+        stopping.countDown();
+        try {
+            drainThread.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+
+        try {
+            journal.close();
+        } catch (IOException ex) {
+            log.warn("Failed to close write-behind journal", ex);
+        }
+        log.info("Write-behind queue stopped with {} orders unwritten", queue.size());
+    }
+
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+
+    private void drain() {
+        List<PendingOrder> batch = new ArrayList<>(settings.getBatchSize());
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingOrder first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+
+                batch.add(first);
+                queue.drainTo(batch, settings.getBatchSize() - 1);
+                write(batch);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+
+    /**
+     * Writes the batch in one transaction; if that fails, retries each order on its own so a
+     * single bad order cannot hold back the rest. An order that still fails because of its own
+     * data goes to the dead-letter file; one that fails for any other reason, such as the
+     * database being unreachable, is retried with backoff until it is written or the queue
+     * stops, and then stays in the journal for replay.
+     */
+    private void write(List<PendingOrder> batch) {
+        try {
+            persist(batch);
+        } catch (RuntimeException ex) {
+            log.warn("Failed to write batch of {} queued orders, retrying individually", batch.size(), ex);
+            batch.forEach(this::writeOne);
+            return;
+        }
+        markDone(batch);
+    }
+
+
+    private void writeOne(PendingOrder order) {
+        long backoff = settings.getRetryBackoff().toMillis();
+        while (true) {
+            try {
+                persist(List.of(order));
+                break;
+            } catch (RuntimeException ex) {
+                if (isPoison(ex)) {
+                    log.error("Queued order {} was rejected by the database; moving it to {}", order.seq(), settings.getDeadLetter(), ex);
+                    deadLetter(order);
+                    return;
+                }
+                log.warn("Failed to write queued order {}, retrying in {} ms", order.seq(), backoff, ex);
+                if (!pause(backoff)) {
+                    log.error("Stopped before queued order {} could be written; it stays in the journal for replay", order.seq());
+                    return;
+                }
+                backoff = Math.min(backoff * 2, settings.getMaxRetryBackoff().toMillis());
+            }
+        }
+        markDone(List.of(order));
+    }
+
+
+    // Waits out a retry backoff; false once the queue is stopping
+    private boolean pause(long millis) {
+        try {
+            return !stopping.await(millis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+
+    // Constraint violations and errors outside data access would fail again on every replay
+    private static boolean isPoison(RuntimeException ex) {
+        return ex instanceof DataIntegrityViolationException
+                || !(ex instanceof DataAccessException || ex instanceof TransactionException);
+    }
+
+
+    private void deadLetter(PendingOrder order) {
+        try {
+            journal.deadLetter(order);
+        } catch (UncheckedIOException ex) {
+            log.error("Failed to move queued order {} to the dead-letter file; it stays in the journal for replay", order.seq(), ex);
+        }
+    }
+
+
+    private void markDone(List<PendingOrder> orders) {
+        try {
+            journal.done(orders.stream().map(PendingOrder::seq).toList());
+        } catch (UncheckedIOException ex) {
+            log.error("Failed to mark {} written orders in the journal; they will be written again on replay", orders.size(), ex);
+        }
+    }
+
+
+    private void persist(List<PendingOrder> batch) {
+        List<CustomerOrder> orders = new ArrayList<>(batch.size());
+        List<InvoiceItem> invoiceItems = new ArrayList<>();
+        for (PendingOrder order : batch) {
+            orders.add(order.toOrder());
+            invoiceItems.addAll(order.items());
+        }
+        orderWriter.persist(orders, invoiceItems);
+    }
+}
@@ -0,0 +1,73 @@
+package com.order_invoice.benchmark;
+
+import com.order_invoice.entity.OrderItem;
+import com.order_invoice.entity.OrderRequest;
+import com.order_invoice.repository.OrderRepository;
+import com.order_invoice.service.InvoiceService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures rows/sec of {@link InvoiceService#generateInvoice} for small, medium and large orders.
+ * Subclasses pin the JDBC batch size so the batched and unbatched runs can be compared side by side.
+ */
+@Tag("benchmark")
+@SpringBootTest
+abstract class AbstractInsertBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(AbstractInsertBenchmark.class);
+    private static final int MIN_ROWS_PER_MEASUREMENT = 50_000;
+
+    @Autowired
+    private InvoiceService invoiceService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Value("${invoice.persistence.batch-size}")
+    private int batchSize;
+
+    @AfterEach
+    void cleanUp() {
+        orderRepository.deleteAllInBatch();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {10, 100, 10_000})
+    void generateInvoice(int lines) {
+        run(lines, Math.max(3, MIN_ROWS_PER_MEASUREMENT / lines / 5));
+
+        int iterations = Math.max(3, MIN_ROWS_PER_MEASUREMENT / lines);
+        long elapsed = run(lines, iterations);
+
+        double rowsPerSecond = (double) lines * iterations / (elapsed / 1_000_000_000.0);
+        log.info("batch_size={} lines={} iterations={} rows/sec={}",
+                batchSize, lines, iterations, String.format("%.0f", rowsPerSecond));
+    }
+
+    private long run(int lines, int iterations) {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            invoiceService.generateInvoice(new OrderRequest(null, order(lines)));
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static List<OrderItem> order(int lines) {
+        List<OrderItem> items = new ArrayList<>(lines);
+        for (int i = 0; i < lines; i++) {
+            items.add(new OrderItem(null, "Product " + i, i % 2 == 0 ? "Electronics" : "Grocery", 1 + i % 7, 9_950));
+        }
+        return items;
+    }
+}
@@ -0,0 +1,4 @@
+package com.order_invoice.benchmark;
+
+class BatchedInsertBenchmark extends AbstractInsertBenchmark {
+}
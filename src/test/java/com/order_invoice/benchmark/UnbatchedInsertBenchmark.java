@@ -0,0 +1,11 @@
+package com.order_invoice.benchmark;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * JDBC batching off: one INSERT round trip per row. Ids still come from the pooled sequences, so
+ * this isolates batching and does not reproduce the old IDENTITY-id insert path.
+ */
+@TestPropertySource(properties = "invoice.persistence.batch-size=1")
+class UnbatchedInsertBenchmark extends AbstractInsertBenchmark {
+}
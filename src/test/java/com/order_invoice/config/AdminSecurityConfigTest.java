@@ -0,0 +1,33 @@
+package com.order_invoice.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.security.user.password=test-secret")
+@AutoConfigureMockMvc
+class AdminSecurityConfigTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void rebuildInvoices_WithoutCredentials_ShouldReturn401() throws Exception {
+
+        mockMvc.perform(post("/orders/invoice/rebuild"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void orderApi_WithoutCredentials_ShouldBeServed() throws Exception {
+
+        mockMvc.perform(get("/orders/summary"))
+                .andExpect(status().isOk());
+    }
+}
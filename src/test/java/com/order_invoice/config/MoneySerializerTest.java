@@ -0,0 +1,121 @@
+package com.order_invoice.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.cfg.JsonNodeFeature;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.order_invoice.entity.InvoiceItem;
+import com.order_invoice.entity.InvoiceResponse;
+import com.order_invoice.entity.OrderItem;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneySerializerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void serialize_WritesTwoDecimals() throws Exception {
+
+        var response = new InvoiceResponse(List.of(
+                new InvoiceItem("Laptop", "Electronics", 1, 100_000, 118_005),
+                new InvoiceItem("Pin", "Other", 3, 5, -7)
+        ), 0);
+
+
+        String json = objectMapper.writeValueAsString(response);
+
+
+        assertEquals("{\"invoice\":["
+                + "{\"productName\":\"Laptop\",\"category\":\"Electronics\",\"quantity\":1,\"unitPrice\":1000.00,\"lineTotal\":1180.05},"
+                + "{\"productName\":\"Pin\",\"category\":\"Other\",\"quantity\":3,\"unitPrice\":0.05,\"lineTotal\":-0.07}"
+                + "],\"grandTotal\":0.00}", json);
+    }
+
+    @Test
+    void deserialize_RoundsHalfUpToMinorUnits() throws Exception {
+
+        OrderItem item = objectMapper.readValue(
+                "{\"productName\":\"Laptop\",\"category\":\"Electronics\",\"quantity\":1,\"unitPrice\":1000.005}",
+                OrderItem.class);
+
+
+        assertEquals(100_001, item.getUnitPrice());
+    }
+
+    @Test
+    void deserialize_AcceptsIntegersAndStrings() throws Exception {
+
+        assertEquals(100_000, objectMapper.readValue("{\"unitPrice\":1000}", OrderItem.class).getUnitPrice());
+        assertEquals(1_999, objectMapper.readValue("{\"unitPrice\":\"19.99\"}", OrderItem.class).getUnitPrice());
+    }
+
+    @Test
+    void deserialize_HugeExponents_AreRejectedOrZeroedWithoutRescaling() {
+
+        assertTimeoutPreemptively(Duration.ofSeconds(1), () -> {
+            assertThrows(InvalidFormatException.class,
+                    () -> objectMapper.readValue("{\"unitPrice\":1e20000000}", OrderItem.class));
+            assertThrows(InvalidFormatException.class,
+                    () -> objectMapper.readValue("{\"unitPrice\":\"1e999999999\"}", OrderItem.class));
+            assertEquals(0, objectMapper.readValue("{\"unitPrice\":1e-999999999}", OrderItem.class).getUnitPrice());
+        });
+        assertThrows(InvalidFormatException.class,
+                () -> objectMapper.readValue("{\"unitPrice\":100000000000000000}", OrderItem.class));
+    }
+
+    @Test
+    void roundTrip_PreservesInvoice() throws Exception {
+
+        var response = new InvoiceResponse(List.of(new InvoiceItem("Laptop", "Electronics", 1, 100_000, 118_000)), 118_000);
+
+
+        InvoiceResponse read = objectMapper.readValue(objectMapper.writeValueAsString(response), InvoiceResponse.class);
+
+
+        assertEquals(118_000, read.getGrandTotal());
+        assertEquals(118_000, read.getInvoice().get(0).getLineTotal());
+    }
+
+    @Test
+    void serialize_Binary_WritesScaleTwoDecimals() throws Exception {
+
+        var response = new InvoiceResponse(List.of(new InvoiceItem("Laptop", "Electronics", 1, 100_000, 118_005)), 118_005);
+        response.setOrderId(7L);
+
+        for (ObjectMapper binary : List.of(new ObjectMapper(new SmileFactory()), new ObjectMapper(new CBORFactory()))) {
+            binary.configure(JsonNodeFeature.STRIP_TRAILING_BIGDECIMAL_ZEROES, false);
+            JsonNode tree = binary.readTree(binary.writeValueAsBytes(response));
+
+
+            assertEquals(7, tree.get("orderId").longValue());
+            assertEquals(new BigDecimal("1180.05"), tree.get("grandTotal").decimalValue());
+            assertEquals(new BigDecimal("1000.00"), tree.get("invoice").get(0).get("unitPrice").decimalValue());
+        }
+    }
+
+    @Test
+    void roundTrip_Binary_PreservesInvoiceAndOrder() throws Exception {
+
+        var response = new InvoiceResponse(List.of(new InvoiceItem("Pin", "Other", 3, 5, -7)), -7);
+
+        for (ObjectMapper binary : List.of(new ObjectMapper(new SmileFactory()), new ObjectMapper(new CBORFactory()))) {
+            InvoiceResponse read = binary.readValue(binary.writeValueAsBytes(response), InvoiceResponse.class);
+            OrderItem item = binary.readValue(binary.writeValueAsBytes(
+                    new OrderItem(null, "Pin", "Other", 3, 1_999)), OrderItem.class);
+
+
+            assertNull(read.getOrderId());
+            assertEquals(-7, read.getGrandTotal());
+            assertEquals(5, read.getInvoice().get(0).getUnitPrice());
+            assertEquals(1_999, item.getUnitPrice());
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.order_invoice.config;
+
+import com.order_invoice.service.InvoiceMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseBytesFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final ResponseBytesFilter filter = new ResponseBytesFilter(new InvoiceMetrics(meterRegistry));
+
+    @Test
+    void ordersResponse_RecordsBodyBytes() throws Exception {
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/orders/invoice"), response,
+                (req, res) -> res.getOutputStream().write("{\"grandTotal\":1.18}".getBytes()));
+
+
+        assertEquals("{\"grandTotal\":1.18}", response.getContentAsString());
+        assertEquals(1, meterRegistry.get("invoice.response.bytes").summary().count());
+        assertEquals(19, meterRegistry.get("invoice.response.bytes").summary().totalAmount());
+    }
+
+    @Test
+    void otherPaths_AreNotRecorded() throws Exception {
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/reports/sales"), new MockHttpServletResponse(),
+                (req, res) -> res.getOutputStream().write('x'));
+
+
+        assertEquals(0, meterRegistry.get("invoice.response.bytes").summary().count());
+    }
+}
@@ -0,0 +1,72 @@
+package com.order_invoice.controller;
+
+import com.order_invoice.entity.DiscountRule;
+import com.order_invoice.service.DiscountRuleRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = "spring.security.user.password=test-secret")
+@AutoConfigureMockMvc
+class DiscountRuleControllerTest {
+
+    private static final String ADMIN = "Basic " + Base64.getEncoder()
+            .encodeToString("admin:test-secret".getBytes(StandardCharsets.UTF_8));
+
+    private static final String RULES = "[{\"category\":\"books\",\"minQuantity\":1,\"discount\":0.5}]";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private DiscountRuleRegistry discountRuleRegistry;
+
+    @Test
+    void replaceDiscountRules_WithoutCredentials_ShouldReturn401AndKeepRules() throws Exception {
+
+        mockMvc.perform(put("/discount-rules")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(RULES))
+                .andExpect(status().isUnauthorized());
+
+        assertEquals(0.10, discountRuleRegistry.getRules().get(0).getDiscount(), 0.001);
+    }
+
+    @Test
+    void replaceDiscountRules_WithCredentials_ShouldSwapRules() throws Exception {
+
+        List<DiscountRule> rules = discountRuleRegistry.getRules();
+        try {
+            mockMvc.perform(put("/discount-rules")
+                    .header(HttpHeaders.AUTHORIZATION, ADMIN)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(RULES))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[0].category").value("books"));
+
+            assertEquals(0.5, discountRuleRegistry.getRules().get(0).getDiscount(), 0.001);
+        } finally {
+            discountRuleRegistry.reload(rules);
+        }
+    }
+
+    @Test
+    void getDiscountRules_WithoutCredentials_ShouldReturn200() throws Exception {
+
+        mockMvc.perform(get("/discount-rules"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].minQuantity").value(5));
+    }
+}
@@ -0,0 +1,70 @@
+package com.order_invoice.controller;
+
+import com.order_invoice.exception.GlobalExceptionHandler;
+import com.order_invoice.service.ExportService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(MockitoExtension.class)
+class ExportControllerTest {
+
+    private MockMvc mockMvc;
+
+    @Mock
+    private ExportService exportService;
+
+    @InjectMocks
+    private ExportController exportController;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(exportController)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    @Test
+    void exportInvoiceItems_InvertedRange_ReturnsBadRequestBeforeStreaming() throws Exception {
+
+        mockMvc.perform(get("/orders/invoice/export").param("format", "csv").param("minId", "10").param("maxId", "5"))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isBadRequest())
+                .andExpect(header().doesNotExist("Content-Disposition"))
+                .andExpect(jsonPath("$.message").value("minId cannot be greater than maxId"));
+
+        verifyNoInteractions(exportService);
+    }
+
+    @Test
+    void exportInvoiceItems_Ndjson_ReturnsBadRequestPointingAtStream() throws Exception {
+
+        mockMvc.perform(get("/orders/invoice/export").param("format", "ndjson"))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string(containsString("/orders/invoice/stream")));
+
+        verifyNoInteractions(exportService);
+    }
+
+    @Test
+    void exportItems_UnknownFormat_ReturnsBadRequestBeforeStreaming() throws Exception {
+
+        mockMvc.perform(get("/orders/export").param("format", "xml"))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string(containsString("Export format must be ndjson or csv")));
+
+        verifyNoInteractions(exportService);
+    }
+}
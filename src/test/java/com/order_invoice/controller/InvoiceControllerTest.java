@@ -1,25 +1,62 @@
 package com.order_invoice.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.order_invoice.config.AdmissionControlAdvice;
+import com.order_invoice.config.InvoiceProperties;
+import com.order_invoice.entity.BulkInvoiceResponse;
+import com.order_invoice.entity.BulkInvoiceResult;
+import com.order_invoice.entity.CategorySummary;
 import com.order_invoice.entity.InvoiceItem;
+import com.order_invoice.entity.InvoiceRebuildResult;
 import com.order_invoice.entity.InvoiceResponse;
+import com.order_invoice.entity.InvoiceTotal;
 import com.order_invoice.entity.OrderItem;
+import com.order_invoice.entity.OrderItemView;
+import com.order_invoice.entity.OrderPage;
+import com.order_invoice.entity.OrderRequest;
+import com.order_invoice.exception.AdmissionRejectedException;
+import com.order_invoice.exception.AdmissionTooLargeException;
+import com.order_invoice.exception.GlobalExceptionHandler;
+import com.order_invoice.service.AdmissionLimiter;
+import com.order_invoice.service.BulkInvoiceService;
+import com.order_invoice.service.CategorySummaryService;
+import com.order_invoice.service.DiscountRuleRegistry;
+import com.order_invoice.service.IdempotencyService;
+import com.order_invoice.service.InvoiceMetrics;
+import com.order_invoice.service.InvoiceRebuildService;
 import com.order_invoice.service.InvoiceService;
+import com.order_invoice.service.OrderETagService;
+import com.order_invoice.service.TaxRateRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.util.List;
+import java.util.function.Consumer;
 
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -27,33 +64,116 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @ExtendWith(MockitoExtension.class)
 class InvoiceControllerTest {
 
+    private static final String FORWARDED_FOR = "X-Forwarded-For";
+
     private MockMvc mockMvc;
-    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
 
     @Mock
     private InvoiceService invoiceService;
 
+    @Mock
+    private BulkInvoiceService bulkInvoiceService;
+
+    @Mock
+    private CategorySummaryService categorySummaryService;
+
+    @Mock
+    private IdempotencyService idempotencyService;
+
+    @Mock
+    private InvoiceRebuildService invoiceRebuildService;
+
+    @Mock
+    private OrderETagService orderETagService;
+
+    @Mock
+    private AdmissionLimiter admissionLimiter;
+
     @InjectMocks
     private InvoiceController invoiceController;
 
     @BeforeEach
     void setUp() {
-        mockMvc = MockMvcBuilders.standaloneSetup(invoiceController).build();
+        var invoiceProperties = new InvoiceProperties();
+        invoiceProperties.getAdmission().setClientHeader(FORWARDED_FOR);
+        mockMvc = MockMvcBuilders.standaloneSetup(invoiceController)
+                .setControllerAdvice(new GlobalExceptionHandler(), new AdmissionControlAdvice(admissionLimiter, invoiceProperties))
+                .build();
+    }
+
+    @Test
+    void generateInvoice_AdmissionRejected_ShouldReturn429WithRetryAfter() throws Exception {
+
+        var request = new OrderRequest();
+        request.setItems(List.of(new OrderItem(null, "Laptop", "Electronics", 1, 100_000)));
+
+        doThrow(new AdmissionRejectedException("Too many items submitted by this client, retry later", 3))
+                .when(admissionLimiter).admit(anyString(), anyInt());
+
+
+        mockMvc.perform(post("/orders/invoice")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "3"))
+                .andExpect(jsonPath("$.message").value("Too many items submitted by this client, retry later"));
+
+        verify(admissionLimiter).admit("127.0.0.1", 1);
+        verify(invoiceService, never()).generateInvoice(any(OrderRequest.class));
+    }
+
+    @Test
+    void generateInvoices_LargerThanBurst_ShouldReturn413() throws Exception {
+
+        var request = new InvoiceController.BulkOrderRequest();
+        request.setOrders(List.of(new OrderRequest(null, List.of(new OrderItem(null, "Laptop", "Electronics", 1, 100_000)))));
+
+        doThrow(new AdmissionTooLargeException("At most 5000 items can be submitted in one request, split the orders"))
+                .when(admissionLimiter).admit(anyString(), anyInt());
+
+
+        mockMvc.perform(post("/orders/invoices/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isPayloadTooLarge());
+
+        verify(bulkInvoiceService, never()).generateInvoices(anyList());
+    }
+
+    @Test
+    void generateInvoice_ForwardedThroughProxies_ShouldAdmitByLastHop() throws Exception {
+
+        var request = new OrderRequest();
+        request.setItems(List.of(new OrderItem(null, "Laptop", "Electronics", 2, 100_000)));
+
+        when(invoiceService.generateInvoice(any(OrderRequest.class))).thenReturn(new InvoiceResponse(List.of(), 0));
+
+
+        mockMvc.perform(post("/orders/invoice")
+                .header(FORWARDED_FOR, "203.0.113.9, 10.0.0.7")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk());
+
+        verify(admissionLimiter).admit("10.0.0.7", 1);
     }
 
     @Test
     void generateInvoice_ShouldReturnInvoiceResponse() throws Exception {
 
-        var request = new InvoiceController.OrderRequest();
-        var orderItem = new InvoiceItem("Laptop", "Electronics", 1, 1000.0, 1180.0);
+        var request = new OrderRequest();
+        var orderItem = new InvoiceItem("Laptop", "Electronics", 1, 100_000, 118_000);
         request.setItems(List.of());
 
         var expectedResponse = new InvoiceResponse(
             List.of(orderItem),
-            1180.0
+            118_000
         );
 
-        when(invoiceService.generateInvoice(anyList())).thenReturn(expectedResponse);
+        when(invoiceService.generateInvoice(any(OrderRequest.class))).thenReturn(expectedResponse);
 
 
         mockMvc.perform(post("/orders/invoice")
@@ -63,41 +183,214 @@ class InvoiceControllerTest {
                 .andExpect(jsonPath("$.grandTotal").value(1180.0));
     }
 
+    @Test
+    void generateInvoice_TotalsOverflow_ShouldReturn400WithTooLargeError() throws Exception {
+
+        var invoiceProperties = new InvoiceProperties();
+        var pricing = new InvoiceService(null, null, null, null, new TaxRateRegistry(invoiceProperties),
+                new DiscountRuleRegistry(invoiceProperties), null, null, invoiceProperties,
+                new InvoiceMetrics(new SimpleMeterRegistry()));
+        when(invoiceService.generateInvoice(any(OrderRequest.class)))
+                .thenAnswer(invocation -> pricing.generateInvoice(invocation.getArgument(0)));
+
+
+        mockMvc.perform(post("/orders/invoice")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                        {"items":[
+                          {"productName":"Vault","category":"Furniture","quantity":1,"unitPrice":50000000000000000},
+                          {"productName":"Vault","category":"Furniture","quantity":1,"unitPrice":50000000000000000}]}
+                        """))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors[0].line").value(1))
+                .andExpect(jsonPath("$.errors[0].field").value("grandTotal"))
+                .andExpect(jsonPath("$.errors[0].code").value("too_large"));
+    }
+
+    @Test
+    void generateInvoice_AmountOutOfRange_ShouldReturn400() throws Exception {
+
+        mockMvc.perform(post("/orders/invoice")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"items\":[{\"productName\":\"Vault\",\"category\":\"Furniture\",\"quantity\":1,\"unitPrice\":1e30}]}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value(containsString("amount out of range")));
+
+        verify(invoiceService, never()).generateInvoice(any());
+    }
+
+    @Test
+    void generateInvoice_WithSmileBody_AnswersInAcceptedFormat() throws Exception {
+
+        var smile = new ObjectMapper(new SmileFactory());
+        var cbor = new ObjectMapper(new CBORFactory());
+        var request = new OrderRequest();
+        request.setItems(List.of(new OrderItem(null, "Laptop", "Electronics", 1, 100_000)));
+        var expectedResponse = new InvoiceResponse(List.of(new InvoiceItem("Laptop", "Electronics", 1, 100_000, 118_000)), 118_000);
+
+        when(invoiceService.generateInvoice(any(OrderRequest.class))).thenReturn(expectedResponse);
+
+
+        MvcResult result = mockMvc.perform(post("/orders/invoice")
+                .contentType("application/x-jackson-smile")
+                .accept("application/cbor")
+                .content(smile.writeValueAsBytes(request)))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/cbor"))
+                .andReturn();
+
+        InvoiceResponse response = cbor.readValue(result.getResponse().getContentAsByteArray(), InvoiceResponse.class);
+        assertEquals(118_000, response.getGrandTotal());
+        assertEquals("Laptop", response.getInvoice().get(0).getProductName());
+    }
+
+    @Test
+    void generateInvoice_WithIdempotencyKey_GoesThroughIdempotencyService() throws Exception {
+
+        var request = new OrderRequest();
+        request.setItems(List.of(new OrderItem(null, "Laptop", "Electronics", 1, 100_000)));
+        var storedResponse = new InvoiceResponse(List.of(new InvoiceItem("Laptop", "Electronics", 1, 100_000, 118_000)), 118_000);
+        storedResponse.setOrderId(7L);
+
+        when(idempotencyService.generateOnce(eq("retry-1"), any(OrderRequest.class), any())).thenReturn(storedResponse);
+
+
+        mockMvc.perform(post("/orders/invoice")
+                .header(InvoiceController.IDEMPOTENCY_KEY, "retry-1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.orderId").value(7))
+                .andExpect(jsonPath("$.grandTotal").value(1180.0));
+    }
+
+
+
+    @Test
+    void generateInvoices_ShouldReturnPerOrderResults() throws Exception {
+
+        var order = new OrderRequest();
+        order.setItems(List.of(new OrderItem(null, "Laptop", "Electronics", 1, 100_000)));
+        var request = new InvoiceController.BulkOrderRequest();
+        request.setOrders(List.of(order, order));
+
+        var invoice = new InvoiceResponse(List.of(new InvoiceItem("Laptop", "Electronics", 1, 100_000, 118_000)), 118_000);
+        var expectedResponse = new BulkInvoiceResponse(1, 1, List.of(
+                BulkInvoiceResult.success(0, invoice),
+                BulkInvoiceResult.failure(1, "Quantity must be greater than 0 for all items")
+        ));
+
+        when(bulkInvoiceService.generateInvoices(anyList())).thenReturn(expectedResponse);
+
+
+        mockMvc.perform(post("/orders/invoices/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.succeeded").value(1))
+                .andExpect(jsonPath("$.results[0].invoice.grandTotal").value(1180.0))
+                .andExpect(jsonPath("$.results[1].error").value("Quantity must be greater than 0 for all items"))
+                .andExpect(jsonPath("$.results[1].invoice").doesNotExist());
+    }
 
 
     @Test
     void getOrdersByCategory_ShouldReturnFilteredOrders() throws Exception {
 
-        var orderItem = new OrderItem(1l,"Laptop", "Electronics", 1, 1000.0);
-        when(invoiceService.getOrdersByCategory(anyString())).thenReturn(List.of(orderItem));
+        var orderItem = new OrderItemView(1l,"Laptop", "Electronics", 1, 100_000);
+        when(invoiceService.getOrdersByCategory(anyString(), any(), any())).thenReturn(new OrderPage(List.of(orderItem), null));
 
 
         mockMvc.perform(get("/orders/category/Electronics"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].category").value("Electronics"));
+                .andExpect(jsonPath("$[0].category").value("Electronics"))
+                .andExpect(header().doesNotExist(HttpHeaders.LINK));
     }
 
     @Test
     void getBulkOrders_ShouldReturnBulkOrders() throws Exception {
 
-        var orderItem = new OrderItem();
-        orderItem.setProductName("Laptop");
-        orderItem.setCategory("Electronics");
-        orderItem.setQuantity(5);
-        orderItem.setUnitPrice(1000.0);
-        when(invoiceService.getBulkOrders()).thenReturn(List.of(orderItem));
+        var orderItem = new OrderItemView(7l, "Laptop", "Electronics", 5, 100_000);
+        when(invoiceService.getBulkOrders(any(), any())).thenReturn(new OrderPage(List.of(orderItem), null));
 
 
         mockMvc.perform(get("/orders/bulk"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].quantity").value(5));
+                .andExpect(jsonPath("$[0].quantity").value(5))
+                .andExpect(jsonPath("$[0].unitPrice").value(1000.0));
+    }
+
+    @Test
+    void getAllOrders_FullPage_ShouldLinkToNextPage() throws Exception {
+
+        var orderItem = new OrderItemView(42l, "Laptop", "Electronics", 1, 100_000);
+        when(invoiceService.getAllOrders(10L, 1)).thenReturn(new OrderPage(List.of(orderItem), 42L));
+
+
+        mockMvc.perform(get("/orders?after=10&limit=1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(42))
+                .andExpect(header().string(HttpHeaders.LINK, "<http://localhost/orders?limit=1&after=42>; rel=\"next\""));
+    }
+
+    @Test
+    void getCategorySummaries_ShouldReturnRunningTotals() throws Exception {
+
+        when(categorySummaryService.getSummaries()).thenReturn(List.of(
+                new CategorySummary("Electronics", 2, 6, 649_000)));
+
+
+        mockMvc.perform(get("/orders/summary"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].category").value("Electronics"))
+                .andExpect(jsonPath("$[0].totalQuantity").value(6))
+                .andExpect(jsonPath("$[0].totalInvoiced").value(6490.0));
+    }
+
+    @Test
+    void getAllInvoices_WithCurrentETag_ShouldReturn304WithoutLoading() throws Exception {
+
+        when(orderETagService.etag(anyString())).thenReturn("W/\"3-3-1\"");
+
+
+        mockMvc.perform(get("/orders/invoice").header(HttpHeaders.IF_NONE_MATCH, "W/\"3-3-1\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"3-3-1\""))
+                .andExpect(content().string(""));
+
+        verify(invoiceService, never()).getAllInvoices(any(), any());
+    }
+
+    @Test
+    void getAllOrders_WithStaleETag_ShouldReturnPageAndNewETag() throws Exception {
+
+        when(orderETagService.etag(anyString())).thenReturn("W/\"4-4-1\"");
+        when(invoiceService.getAllOrders(null, null)).thenReturn(new OrderPage(List.of(), null));
+
+
+        mockMvc.perform(get("/orders").header(HttpHeaders.IF_NONE_MATCH, "W/\"3-3-1\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"4-4-1\""));
+    }
+
+    @Test
+    void rebuildInvoices_ShouldReturnRepricedCountsAndGrandTotal() throws Exception {
+
+        when(invoiceRebuildService.rebuild()).thenReturn(new InvoiceRebuildResult(3, 2, 6_699_000));
+
+
+        mockMvc.perform(post("/orders/invoice/rebuild"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.itemCount").value(3))
+                .andExpect(jsonPath("$.changedItems").value(2))
+                .andExpect(jsonPath("$.grandTotal").value(66990.0));
     }
 
     @Test
     void getInvoiceByOrderId_ShouldReturnInvoice() throws Exception {
 
-        var invoiceItem = new InvoiceItem("Laptop", "Electronics", 1, 1000.0, 1180.0);
-        var expectedResponse = new InvoiceResponse(List.of(invoiceItem), 1180.0);
+        var invoiceItem = new InvoiceItem("Laptop", "Electronics", 1, 100_000, 118_000);
+        var expectedResponse = new InvoiceResponse(List.of(invoiceItem), 118_000);
         
         when(invoiceService.getInvoiceByOrderId(anyLong())).thenReturn(expectedResponse);
 
@@ -108,4 +401,30 @@ class InvoiceControllerTest {
     }
 
 
+    @Test
+    void streamAllInvoices_ShouldWriteOneLinePerItemFollowedByTotal() throws Exception {
+
+        var invoiceItem = new InvoiceItem("Laptop", "Electronics", 1, 100_000, 118_000);
+        when(invoiceService.streamAllInvoices(any())).thenAnswer(invocation -> {
+            Consumer<InvoiceItem> sink = invocation.getArgument(0);
+            sink.accept(invoiceItem);
+            sink.accept(invoiceItem);
+            return new InvoiceTotal(2, 236_000);
+        });
+
+
+        MvcResult result = mockMvc.perform(get("/orders/invoice/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String[] lines = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(InvoiceController.APPLICATION_NDJSON_VALUE))
+                .andReturn().getResponse().getContentAsString().split("\n");
+
+        assertEquals(3, lines.length);
+        assertEquals("Laptop", objectMapper.readTree(lines[0]).get("productName").asText());
+        assertEquals(2, objectMapper.readTree(lines[2]).get("itemCount").asLong());
+        assertEquals(2360.0, objectMapper.readTree(lines[2]).get("grandTotal").asDouble(), 0.001);
+    }
 }
@@ -0,0 +1,247 @@
+package com.order_invoice.controller;
+
+import com.order_invoice.config.InvoiceProperties;
+import com.order_invoice.entity.InvoiceItem;
+import com.order_invoice.entity.InvoiceRebuildResult;
+import com.order_invoice.entity.InvoiceResponse;
+import com.order_invoice.entity.InvoiceTotal;
+import com.order_invoice.entity.OrderItem;
+import com.order_invoice.entity.OrderItemView;
+import com.order_invoice.entity.OrderPage;
+import com.order_invoice.entity.OrderRequest;
+import com.order_invoice.exception.AdmissionRejectedException;
+import com.order_invoice.exception.GlobalExceptionHandler;
+import com.order_invoice.service.AdmissionLimiter;
+import com.order_invoice.service.InvoiceRebuildService;
+import com.order_invoice.service.ReactiveInvoiceService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.config.DelegatingWebFluxConfiguration;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveInvoiceControllerTest {
+
+    private WebTestClient webTestClient;
+
+    @Mock
+    private ReactiveInvoiceService reactiveInvoiceService;
+
+    @Mock
+    private InvoiceRebuildService invoiceRebuildService;
+
+    @Mock
+    private AdmissionLimiter admissionLimiter;
+
+    @Spy
+    private InvoiceProperties invoiceProperties = new InvoiceProperties();
+
+    @InjectMocks
+    private ReactiveInvoiceController reactiveInvoiceController;
+
+    @BeforeEach
+    void setUp() {
+        // Registered as a ready-made singleton: it is neither autowired again nor subject to its reactive-only condition
+        var context = new AnnotationConfigApplicationContext();
+        context.getBeanFactory().registerSingleton("reactiveInvoiceController", reactiveInvoiceController);
+        context.register(GlobalExceptionHandler.class, DelegatingWebFluxConfiguration.class);
+        context.refresh();
+        webTestClient = WebTestClient.bindToApplicationContext(context).build();
+    }
+
+    @Test
+    void generateInvoice_ShouldAdmitByConfiguredClientHeaderAndReturnInvoice() {
+
+        invoiceProperties.getAdmission().setClientHeader("X-Client-Id");
+        var request = new OrderRequest();
+        request.setItems(List.of(new OrderItem(null, "Laptop", "Electronics", 1, 100_000)));
+        var invoice = new InvoiceResponse(List.of(new InvoiceItem("Laptop", "Electronics", 1, 100_000, 118_000)), 118_000);
+
+        when(reactiveInvoiceService.generateInvoice(any(OrderRequest.class))).thenReturn(Mono.just(invoice));
+
+
+        webTestClient.post().uri("/orders/invoice")
+                .header("X-Client-Id", "client-a")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.grandTotal").isEqualTo(1180.0);
+
+        verify(admissionLimiter).admit("client-a", 1);
+    }
+
+    @Test
+    void generateInvoice_ForwardedThroughProxies_ShouldAdmitByLastHop() {
+
+        invoiceProperties.getAdmission().setClientHeader("X-Forwarded-For");
+        var request = new OrderRequest();
+        request.setItems(List.of(new OrderItem(null, "Laptop", "Electronics", 1, 100_000)));
+        var invoice = new InvoiceResponse(List.of(new InvoiceItem("Laptop", "Electronics", 1, 100_000, 118_000)), 118_000);
+
+        when(reactiveInvoiceService.generateInvoice(any(OrderRequest.class))).thenReturn(Mono.just(invoice));
+
+
+        webTestClient.post().uri("/orders/invoice")
+                .header("X-Forwarded-For", "203.0.113.9, 10.0.0.7")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isOk();
+
+        verify(admissionLimiter).admit("10.0.0.7", 1);
+    }
+
+    @Test
+    void generateInvoice_WithoutConfiguredClientHeader_ShouldIgnoreClientSuppliedId() {
+
+        var request = new OrderRequest();
+        request.setItems(List.of(new OrderItem(null, "Laptop", "Electronics", 1, 100_000)));
+        var invoice = new InvoiceResponse(List.of(new InvoiceItem("Laptop", "Electronics", 1, 100_000, 118_000)), 118_000);
+
+        when(reactiveInvoiceService.generateInvoice(any(OrderRequest.class))).thenReturn(Mono.just(invoice));
+
+
+        webTestClient.post().uri("/orders/invoice")
+                .header("X-Client-Id", "client-a")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isOk();
+
+        verify(admissionLimiter, never()).admit(eq("client-a"), anyInt());
+        verify(admissionLimiter).admit(any(), eq(1));
+    }
+
+    @Test
+    void generateInvoice_WhenAdmissionRejected_ShouldReturn429WithoutPricing() {
+
+        var request = new OrderRequest();
+        request.setItems(List.of(new OrderItem(null, "Laptop", "Electronics", 1, 100_000)));
+
+        doThrow(new AdmissionRejectedException("Too many order submissions, retry shortly", 2))
+                .when(admissionLimiter).admit(any(), anyInt());
+
+
+        webTestClient.post().uri("/orders/invoice")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isEqualTo(429)
+                .expectHeader().valueEquals(HttpHeaders.RETRY_AFTER, "2");
+
+        verify(reactiveInvoiceService, never()).generateInvoice(any());
+    }
+
+    @Test
+    void generateInvoice_AmountOutOfRange_ShouldReturn400() {
+
+        webTestClient.post().uri("/orders/invoice")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"items\":[{\"productName\":\"Vault\",\"category\":\"Furniture\",\"quantity\":1,\"unitPrice\":1e30}]}")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").value(message -> assertTrue(((String) message).contains("amount out of range")));
+
+        verify(reactiveInvoiceService, never()).generateInvoice(any());
+    }
+
+    @Test
+    void getAllOrders_WithNextPage_ShouldReturnLinkHeader() {
+
+        var page = new OrderPage(List.of(new OrderItemView(5L, "Laptop", "Electronics", 1, 100_000)), 5L);
+
+        when(reactiveInvoiceService.etag(anyString())).thenReturn(Mono.just("W/\"1-5-1\""));
+        when(reactiveInvoiceService.getAllOrders(eq(null), eq(1))).thenReturn(Mono.just(page));
+
+
+        String link = webTestClient.get().uri("/orders?limit=1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].unitPrice").isEqualTo(1000.0)
+                .returnResult()
+                .getResponseHeaders()
+                .getFirst(HttpHeaders.LINK);
+
+        assertEquals("</orders?limit=1&after=5>; rel=\"next\"", link);
+    }
+
+    @Test
+    void getCategorySummaries_WithCurrentETag_ShouldReturn304WithoutLoading() {
+
+        when(reactiveInvoiceService.etag(anyString())).thenReturn(Mono.just("W/\"2-2-1\""));
+
+
+        webTestClient.get().uri("/orders/summary")
+                .header(HttpHeaders.IF_NONE_MATCH, "W/\"2-2-1\"")
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "W/\"2-2-1\"")
+                .expectBody().isEmpty();
+
+        verify(reactiveInvoiceService, never()).getSummaries();
+    }
+
+    @Test
+    void streamAllInvoices_ShouldWriteOneJsonObjectPerLine() {
+
+        when(reactiveInvoiceService.etag(anyString())).thenReturn(Mono.just("W/\"1-1-1\""));
+        when(reactiveInvoiceService.streamAllInvoices()).thenReturn(Flux.just(
+                new InvoiceItem("Laptop", "Electronics", 1, 100_000, 118_000),
+                new InvoiceTotal(1, 118_000)));
+
+
+        String body = webTestClient.get().uri("/orders/invoice/stream")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+
+        String[] lines = body.strip().split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("{\"itemCount\":1,\"grandTotal\":1180.00}", lines[1]);
+    }
+
+    @Test
+    void rebuildInvoices_ShouldReturnRepricedCountsAndGrandTotal() {
+
+        when(invoiceRebuildService.rebuild()).thenReturn(new InvoiceRebuildResult(3, 2, 6_699_000));
+
+
+        webTestClient.post().uri("/orders/invoice/rebuild")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.itemCount").isEqualTo(3)
+                .jsonPath("$.changedItems").isEqualTo(2)
+                .jsonPath("$.grandTotal").isEqualTo(66990.0);
+    }
+}
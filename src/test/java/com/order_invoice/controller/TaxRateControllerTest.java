@@ -0,0 +1,81 @@
+package com.order_invoice.controller;
+
+import com.order_invoice.service.TaxRateRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = "spring.security.user.password=test-secret")
+@AutoConfigureMockMvc
+class TaxRateControllerTest {
+
+    private static final String ADMIN = "Basic " + Base64.getEncoder()
+            .encodeToString("admin:test-secret".getBytes(StandardCharsets.UTF_8));
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TaxRateRegistry taxRateRegistry;
+
+    @Test
+    void replaceTaxRates_WithoutCredentials_ShouldReturn401AndKeepRates() throws Exception {
+
+        mockMvc.perform(put("/tax-rates")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"electronics\":0.01}"))
+                .andExpect(status().isUnauthorized());
+
+        assertEquals(0.18, taxRateRegistry.getTaxRate("Electronics"), 0.001);
+    }
+
+    @Test
+    void replaceTaxRates_WithCredentials_ShouldSwapRates() throws Exception {
+
+        Map<String, Double> rates = taxRateRegistry.getRates();
+        try {
+            mockMvc.perform(put("/tax-rates")
+                    .header(HttpHeaders.AUTHORIZATION, ADMIN)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"electronics\":0.2,\"books\":0}"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.books").value(0.0));
+
+            assertEquals(0.2, taxRateRegistry.getTaxRate("Electronics"), 0.001);
+        } finally {
+            taxRateRegistry.reload(rates);
+        }
+    }
+
+    @Test
+    void replaceTaxRates_CategoriesDifferingOnlyInCase_ShouldReturn400() throws Exception {
+
+        mockMvc.perform(put("/tax-rates")
+                .header(HttpHeaders.AUTHORIZATION, ADMIN)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"Electronics\":0.2,\"ELECTRONICS\":0.1}"))
+                .andExpect(status().isBadRequest());
+
+        assertEquals(0.18, taxRateRegistry.getTaxRate("Electronics"), 0.001);
+    }
+
+    @Test
+    void getTaxRates_WithoutCredentials_ShouldReturn200() throws Exception {
+
+        mockMvc.perform(get("/tax-rates"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.electronics").value(0.18));
+    }
+}
@@ -0,0 +1,92 @@
+package com.order_invoice.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.order_invoice.entity.CategorySummary;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+@DataJpaTest
+class CategorySummaryRepositoryTest {
+
+    @Autowired
+    private CategorySummaryRepository categorySummaryRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    @DisplayName("Should insert a summary on first increment and add to it afterwards")
+    void testIncrement() {
+        categorySummaryRepository.increment("Electronics", 2, 6, 649_000);
+        categorySummaryRepository.increment("Electronics", 1, 1, 118_000);
+        categorySummaryRepository.increment("Clothing", 1, 3, 168_000);
+        entityManager.clear();
+
+        CategorySummary electronics = categorySummaryRepository.findById("Electronics").orElseThrow();
+        assertThat(electronics.getItemCount()).isEqualTo(3);
+        assertThat(electronics.getTotalQuantity()).isEqualTo(7);
+        assertThat(electronics.getTotalInvoiced()).isEqualTo(767_000);
+        assertThat(categorySummaryRepository.count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should sum the invoiced totals of all categories")
+    void testSumTotalInvoiced() {
+        assertThat(categorySummaryRepository.sumTotalInvoiced()).isZero();
+
+        categorySummaryRepository.increment("Electronics", 2, 6, 649_000);
+        categorySummaryRepository.increment("Clothing", 1, 3, 168_000);
+
+        assertThat(categorySummaryRepository.sumTotalInvoiced()).isEqualTo(817_000);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DisplayName("Should add to a category another transaction is creating instead of failing on its key")
+    void testIncrementRacingFirstInsert() throws Exception {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        ExecutorService second = Executors.newSingleThreadExecutor();
+        try {
+            Future<Integer> racing = transaction.execute(status -> {
+                categorySummaryRepository.increment("Race", 1, 1, 100);
+                // Blocks on the uncommitted row until this transaction commits
+                Future<Integer> increment = second.submit(() -> transaction.execute(inner ->
+                        categorySummaryRepository.increment("Race", 1, 2, 200)));
+                sleep(300);
+                return increment;
+            });
+
+            assertThat(racing.get(10, TimeUnit.SECONDS)).isEqualTo(1);
+            CategorySummary race = categorySummaryRepository.findById("Race").orElseThrow();
+            assertThat(race.getItemCount()).isEqualTo(2);
+            assertThat(race.getTotalInvoiced()).isEqualTo(300);
+        } finally {
+            second.shutdownNow();
+            transaction.executeWithoutResult(status -> categorySummaryRepository.deleteById("Race"));
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.order_invoice.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.order_invoice.entity.CustomerOrder;
+import com.order_invoice.entity.OrderItem;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+@DataJpaTest
+class CustomerOrderRepositoryTest {
+
+    @Autowired
+    private CustomerOrderRepository customerOrderRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    @DisplayName("Should load an order with its items and stored totals in one fetch")
+    void testFindWithItemsById() {
+        OrderItem laptop = new OrderItem(null, "Laptop", "Electronics", 1, 5_000_000);
+        laptop.setLineTotal(5_900_000);
+        OrderItem shirt = new OrderItem(null, "Shirt", "Clothing", 3, 50_000);
+        shirt.setLineTotal(168_000);
+        CustomerOrder order = new CustomerOrder("acme", new ArrayList<>(List.of(laptop, shirt)), 6_068_000);
+
+        customerOrderRepository.save(order);
+        orderRepository.saveAll(order.getItems());
+        entityManager.flush();
+        entityManager.clear();
+
+        CustomerOrder loaded = customerOrderRepository.findWithItemsById(order.getId()).orElseThrow();
+
+        assertThat(Hibernate.isInitialized(loaded.getItems())).isTrue();
+        assertThat(loaded.getGrandTotal()).isEqualTo(6_068_000);
+        assertThat(loaded.getItems()).extracting(OrderItem::getProductName).containsExactly("Laptop", "Shirt");
+        assertThat(loaded.getItems()).extracting(OrderItem::getLineTotal).containsExactly(5_900_000L, 168_000L);
+    }
+
+    @Test
+    @DisplayName("Should return empty for an unknown order")
+    void testFindWithItemsByIdMissing() {
+        assertThat(customerOrderRepository.findWithItemsById(999_999L)).isEmpty();
+    }
+}
@@ -0,0 +1,58 @@
+package com.order_invoice.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+
+import com.order_invoice.entity.IdempotencyRecord;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+@DataJpaTest
+class IdempotencyRecordRepositoryTest {
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    @DisplayName("Should store the response against a reserved key")
+    void testReserveAndComplete() {
+        idempotencyRecordRepository.reserve("key-1", 123L, Instant.now());
+        idempotencyRecordRepository.complete("key-1", "{\"grandTotal\":1.18}");
+        entityManager.clear();
+
+        IdempotencyRecord record = idempotencyRecordRepository.findById("key-1").orElseThrow();
+        assertThat(record.getFingerprint()).isEqualTo(123L);
+        assertThat(record.getResponse()).isEqualTo("{\"grandTotal\":1.18}");
+    }
+
+    @Test
+    @DisplayName("Should not take over a key that is already reserved")
+    void testReserveTwice() {
+        assertThat(idempotencyRecordRepository.reserve("key-1", 123L, Instant.now())).isEqualTo(1);
+        assertThat(idempotencyRecordRepository.reserve("key-1", 456L, Instant.now())).isZero();
+        entityManager.clear();
+
+        assertThat(idempotencyRecordRepository.findById("key-1").orElseThrow().getFingerprint()).isEqualTo(123L);
+    }
+
+    @Test
+    @DisplayName("Should only release unanswered keys older than the cutoff")
+    void testReleaseStale() {
+        Instant now = Instant.now();
+        idempotencyRecordRepository.reserve("abandoned", 1L, now.minusSeconds(120));
+        idempotencyRecordRepository.reserve("recent", 2L, now);
+        idempotencyRecordRepository.reserve("answered", 3L, now.minusSeconds(120));
+        idempotencyRecordRepository.complete("answered", "{}");
+
+        assertThat(idempotencyRecordRepository.releaseStale("abandoned", now.minusSeconds(60))).isEqualTo(1);
+        assertThat(idempotencyRecordRepository.releaseStale("recent", now.minusSeconds(60))).isZero();
+        assertThat(idempotencyRecordRepository.releaseStale("answered", now.minusSeconds(60))).isZero();
+    }
+}
@@ -3,20 +3,35 @@ package com.order_invoice.repository;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
 
+import com.order_invoice.entity.InvoiceLineView;
 import com.order_invoice.entity.OrderItem;
+import com.order_invoice.entity.OrderItemView;
+import com.order_invoice.entity.OrderItemsVersion;
+import jakarta.persistence.EntityManager;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
 
-@DataJpaTest
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.order_invoice.repository.OrderRepositoryTest$RecordingStatementInspector")
 class OrderRepositoryTest {
 
     @Autowired
     private OrderRepository orderRepository;
 
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private CategorySummaryRepository categorySummaryRepository;
+
     private OrderItem item1;
     private OrderItem item2;
     private OrderItem item3;
@@ -25,30 +40,112 @@ class OrderRepositoryTest {
     void setUp() {
         orderRepository.deleteAll();
 
-        item1 = new OrderItem(null, "Laptop", "Electronics", 2, 55000.0);
-        item2 = new OrderItem(null, "Mobile", "Electronics", 5, 20000.0);
-        item3 = new OrderItem(null, "Shirt", "Clothing", 3, 1500.0);
+        item1 = new OrderItem(null, "Laptop", "Electronics", 2, 5_500_000);
+        item2 = new OrderItem(null, "Mobile", "Electronics", 5, 2_000_000);
+        item3 = new OrderItem(null, "Shirt", "Clothing", 3, 150_000);
 
         orderRepository.saveAll(List.of(item1, item2, item3));
     }
 
     @Test
-    @DisplayName("Should find items by category")
-    void testFindByCategory() {
-        List<OrderItem> electronics = orderRepository.findByCategory("Electronics");
+    @DisplayName("Should report row count, highest id and summary revision as the table version")
+    void testFindVersion() {
+        OrderItemsVersion before = orderRepository.findVersion();
+
+        OrderItem item4 = orderRepository.save(new OrderItem(null, "Pen", "Office", 1, 150));
+        categorySummaryRepository.increment("Office", 1, 1, 177);
+        OrderItemsVersion after = orderRepository.findVersion();
+
+        assertThat(before.getRows()).isEqualTo(3);
+        assertThat(before.getLastId()).isEqualTo(item3.getId());
+        assertThat(before.getSummaryRevision()).isZero();
+        assertThat(after.getRows()).isEqualTo(4);
+        assertThat(after.getLastId()).isEqualTo(item4.getId());
+        assertThat(after.getSummaryRevision()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should read the version's item count and highest id from the index without scanning items")
+    void testFindVersionDoesNotScanItems() {
+        entityManager.flush();
+        RecordingStatementInspector.STATEMENTS.clear();
+        orderRepository.findVersion();
+
+        String itemsStatement = RecordingStatementInspector.STATEMENTS.stream()
+                .filter(sql -> sql.contains("order_items"))
+                .findFirst()
+                .orElseThrow();
+        Object plan = entityManager.createNativeQuery("explain " + itemsStatement).getSingleResult();
+
+        assertThat(itemsStatement).doesNotContain("category_summary");
+        assertThat(plan.toString()).contains("direct lookup");
+    }
+
+    @Test
+    @DisplayName("Should change the version on summary increments that cancel out")
+    void testFindVersionAfterOffsettingIncrements() {
+        categorySummaryRepository.increment("Electronics", 2, 7, 22_780_000);
+        categorySummaryRepository.increment("Clothing", 1, 3, 531_000);
+        OrderItemsVersion before = orderRepository.findVersion();
+
+        categorySummaryRepository.increment("Electronics", 0, 0, 10_000);
+        categorySummaryRepository.increment("Clothing", 0, 0, -10_000);
+        OrderItemsVersion after = orderRepository.findVersion();
 
-        assertThat(electronics).hasSize(2);
-        assertThat(electronics).extracting(OrderItem::getProductName)
-                               .containsExactlyInAnyOrder("Laptop", "Mobile");
+        assertThat(categorySummaryRepository.sumTotalInvoiced()).isEqualTo(23_311_000);
+        assertThat(after.getRows()).isEqualTo(before.getRows());
+        assertThat(after.getSummaryRevision()).isGreaterThan(before.getSummaryRevision());
     }
 
     @Test
-    @DisplayName("Should find items with quantity greater than or equal")
-    void testFindByQuantityGreaterThanEqual() {
-        List<OrderItem> result = orderRepository.findByQuantityGreaterThanEqual(3);
+    @DisplayName("Should read an invoice page after the cursor")
+    void testFindInvoicePageAfter() {
+        List<InvoiceLineView> page = orderRepository.findInvoicePageAfter(item1.getId(), Limit.of(1));
+
+        assertThat(page).extracting(InvoiceLineView::getProductName).containsExactly("Mobile");
+        assertThat(page).extracting(InvoiceLineView::getLineTotal).containsExactly(item2.getLineTotal());
+    }
+
+    @Test
+    @DisplayName("Should stream all items in id order")
+    void testStreamAllByOrderByIdAsc() {
+        try (Stream<OrderItem> items = orderRepository.streamAllByOrderByIdAsc()) {
+            assertThat(items).extracting(OrderItem::getProductName)
+                             .containsExactly("Laptop", "Mobile", "Shirt");
+        }
+    }
+
+    @Test
+    @DisplayName("Should page items after a cursor in id order")
+    void testFindPageAfter() {
+        List<OrderItemView> firstPage = orderRepository.findPageAfter(0, Limit.of(2));
+        List<OrderItemView> secondPage = orderRepository.findPageAfter(firstPage.get(1).getId(), Limit.of(2));
+
+        assertThat(firstPage).extracting(OrderItemView::getProductName).containsExactly("Laptop", "Mobile");
+        assertThat(secondPage).extracting(OrderItemView::getProductName).containsExactly("Shirt");
+        assertThat(secondPage.get(0).getUnitPrice()).isEqualTo(150_000);
+    }
+
+    @Test
+    @DisplayName("Should page items by category and by minimum quantity")
+    void testFilteredPages() {
+        assertThat(orderRepository.findPageByCategoryAfter("Electronics", item1.getId(), Limit.of(10)))
+                .extracting(OrderItemView::getProductName).containsExactly("Mobile");
+        assertThat(orderRepository.findPageByQuantityAtLeastAfter(3, 0, Limit.of(10)))
+                .extracting(OrderItemView::getProductName).containsExactly("Mobile", "Shirt");
+    }
+
+    /**
+     * Records the SQL Hibernate sends, so tests can ask H2 for its plan.
+     */
+    public static class RecordingStatementInspector implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
 
-        assertThat(result).hasSize(2);
-        assertThat(result).extracting(OrderItem::getProductName)
-                          .containsExactlyInAnyOrder("Mobile", "Shirt");
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
     }
 }
@@ -0,0 +1,84 @@
+package com.order_invoice.service;
+
+import com.order_invoice.config.InvoiceProperties;
+import com.order_invoice.exception.AdmissionRejectedException;
+import com.order_invoice.exception.AdmissionTooLargeException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionLimiterTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private AdmissionLimiter admissionLimiter;
+
+    @BeforeEach
+    void setUp() {
+        InvoiceProperties invoiceProperties = new InvoiceProperties();
+        InvoiceProperties.Admission admission = invoiceProperties.getAdmission();
+        admission.setClientRate(10);
+        admission.setClientBurst(10);
+        admission.setGlobalRate(100);
+        admission.setGlobalBurst(20);
+        admissionLimiter = new AdmissionLimiter(invoiceProperties, new InvoiceMetrics(meterRegistry));
+    }
+
+    @Test
+    void admit_ClientBurstUsedUp_RejectsUntilRefilled() {
+
+        admissionLimiter.admit("alice", 6, 0);
+        admissionLimiter.admit("alice", 4, 0);
+
+
+        AdmissionRejectedException ex = assertThrows(AdmissionRejectedException.class,
+                () -> admissionLimiter.admit("alice", 5, 0));
+
+
+        assertEquals(1, ex.getRetryAfterSeconds());
+        assertEquals(1.0, meterRegistry.get("invoice.admission.rejections").tag("limit", "client").counter().count());
+        assertDoesNotThrow(() -> admissionLimiter.admit("alice", 5, SECOND / 2));
+        assertDoesNotThrow(() -> admissionLimiter.admit("bob", 5, SECOND / 2));
+    }
+
+    @Test
+    void admit_GlobalBurstUsedUp_RejectsOtherClientsWithoutChargingThem() {
+
+        admissionLimiter.admit("alice", 10, 0);
+        admissionLimiter.admit("bob", 10, 0);
+
+
+        assertThrows(AdmissionRejectedException.class, () -> admissionLimiter.admit("carol", 10, 0));
+
+
+        assertEquals(1.0, meterRegistry.get("invoice.admission.rejections").tag("limit", "global").counter().count());
+        // The global bucket refills 10 items in 0.1s; carol's own bucket was left untouched
+        assertDoesNotThrow(() -> admissionLimiter.admit("carol", 10, SECOND / 10));
+    }
+
+    @Test
+    void admit_OrderLargerThanBurst_RejectedWithoutCharging() {
+
+        assertThrows(AdmissionTooLargeException.class, () -> admissionLimiter.admit("alice", 11, 0));
+
+
+        assertEquals(1.0, meterRegistry.get("invoice.admission.rejections").tag("limit", "client").counter().count());
+        assertDoesNotThrow(() -> admissionLimiter.admit("alice", 10, 0));
+    }
+
+    @Test
+    void lastHop_ForwardedList_ReturnsEntryAppendedByProxy() {
+
+        assertEquals("10.0.0.7", AdmissionLimiter.lastHop(List.of("spoofed, 10.0.0.7")));
+        assertEquals("10.0.0.7", AdmissionLimiter.lastHop(List.of("spoofed", "192.168.1.1,  10.0.0.7 ")));
+        assertEquals("client-a", AdmissionLimiter.lastHop(List.of("client-a")));
+        assertNull(AdmissionLimiter.lastHop(List.of("spoofed, ")));
+        assertNull(AdmissionLimiter.lastHop(null));
+    }
+}
@@ -0,0 +1,140 @@
+package com.order_invoice.service;
+
+import com.order_invoice.config.InvoiceProperties;
+import com.order_invoice.entity.BulkInvoiceResponse;
+import com.order_invoice.entity.BulkInvoiceResult;
+import com.order_invoice.entity.OrderItem;
+import com.order_invoice.entity.OrderRequest;
+import com.order_invoice.repository.CustomerOrderRepository;
+import com.order_invoice.repository.OrderRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BulkInvoiceServiceTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private CustomerOrderRepository customerOrderRepository;
+
+    @Mock
+    private CategorySummaryService categorySummaryService;
+
+    private InvoiceProperties invoiceProperties;
+
+    private BulkInvoiceService bulkInvoiceService;
+
+    @BeforeEach
+    void setUp() {
+        invoiceProperties = new InvoiceProperties();
+        InvoiceMetrics invoiceMetrics = new InvoiceMetrics(new SimpleMeterRegistry());
+        InvoiceService invoiceService = new InvoiceService(orderRepository, customerOrderRepository, categorySummaryService, null,
+                new TaxRateRegistry(invoiceProperties),
+                new DiscountRuleRegistry(invoiceProperties), null, null, invoiceProperties, invoiceMetrics);
+        OrderWriter orderWriter = new OrderWriter(customerOrderRepository, orderRepository, categorySummaryService, invoiceMetrics);
+        bulkInvoiceService = new BulkInvoiceService(invoiceService, orderWriter, invoiceProperties);
+    }
+
+    @Test
+    void generateInvoices_MixedOrders_ReportsErrorsPerOrder() {
+
+        List<OrderRequest> orders = List.of(
+                order(new OrderItem(null, "Laptop", "Electronics", 1, 5_000_000)),
+                order(new OrderItem(null, "Invalid", "Electronics", 0, 100_000)),
+                order(new OrderItem(null, "T-Shirt", "Clothing", 3, 50_000))
+        );
+
+
+        BulkInvoiceResponse response = bulkInvoiceService.generateInvoices(orders);
+
+
+        assertEquals(2, response.getSucceeded());
+        assertEquals(1, response.getFailed());
+
+        BulkInvoiceResult failed = response.getResults().get(1);
+        assertEquals(1, failed.getIndex());
+        assertNull(failed.getInvoice());
+        assertTrue(failed.getError().contains("Quantity must be greater than 0"));
+        assertEquals(1, failed.getErrors().size());
+        assertEquals("quantity", failed.getErrors().get(0).getField());
+
+        assertEquals(5_900_000, response.getResults().get(0).getInvoice().getGrandTotal());
+        assertEquals(168_000, response.getResults().get(2).getInvoice().getGrandTotal());
+        verify(customerOrderRepository, times(1)).saveAll(anyList());
+        verify(orderRepository, times(1)).saveAll(anyList());
+        verify(categorySummaryService, times(1)).record(argThat(items -> items.size() == 2));
+    }
+
+    @Test
+    void generateInvoices_PersistsValidOrdersInChunks() {
+
+        invoiceProperties.getBulk().setPersistChunkSize(2);
+        OrderItem item = new OrderItem(null, "Mouse", "Electronics", 1, 100_000);
+        List<OrderRequest> orders = List.of(order(item), order(item), order(item), order(item), order(item));
+
+
+        BulkInvoiceResponse response = bulkInvoiceService.generateInvoices(orders);
+
+
+        assertEquals(5, response.getSucceeded());
+        verify(orderRepository, times(3)).saveAll(anyList());
+    }
+
+    @Test
+    void generateInvoices_PersistFailure_FailsOnlyAffectedChunk() {
+
+        invoiceProperties.getBulk().setPersistChunkSize(1);
+        OrderItem item = new OrderItem(null, "Mouse", "Electronics", 1, 100_000);
+        when(orderRepository.saveAll(anyList()))
+                .thenThrow(new DataIntegrityViolationException("boom"))
+                .thenReturn(List.of(item));
+
+
+        BulkInvoiceResponse response = bulkInvoiceService.generateInvoices(List.of(order(item), order(item)));
+
+
+        assertEquals(1, response.getSucceeded());
+        assertEquals("Failed to persist order", response.getResults().get(0).getError());
+        assertTrue(response.getResults().get(1).isSuccessful());
+    }
+
+    @Test
+    void generateInvoices_EmptyOrders_ThrowsIllegalArgumentException() {
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> bulkInvoiceService.generateInvoices(List.of()));
+
+        assertEquals("Orders list cannot be null or empty", exception.getMessage());
+        verify(orderRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void generateInvoices_TooManyOrders_ThrowsIllegalArgumentException() {
+
+        invoiceProperties.getBulk().setMaxOrders(1);
+        OrderItem item = new OrderItem(null, "Mouse", "Electronics", 1, 100_000);
+
+
+        assertThrows(IllegalArgumentException.class,
+                () -> bulkInvoiceService.generateInvoices(List.of(order(item), order(item))));
+        verify(orderRepository, never()).saveAll(anyList());
+    }
+
+    private static OrderRequest order(OrderItem... items) {
+        return new OrderRequest(null, List.of(items));
+    }
+}
@@ -0,0 +1,101 @@
+package com.order_invoice.service;
+
+import com.order_invoice.entity.DiscountRule;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DiscountRuleTableTest {
+
+    @Test
+    void defaultRule_DiscountsBulkQuantitiesOfAnyCategory() {
+
+        DiscountRuleTable table = DiscountRuleTable.of(List.of(new DiscountRule(null, null, 5, 0.10)));
+        DiscountRuleTable.Schedule schedule = table.forCustomer(null);
+
+
+        assertEquals(0, schedule.discountBasisPoints("Electronics", 4));
+        assertEquals(1_000, schedule.discountBasisPoints("Electronics", 5));
+        assertEquals(1_000, schedule.discountBasisPoints(null, 500));
+    }
+
+    @Test
+    void tieredRules_BestMatchingTierWins() {
+
+        DiscountRuleTable table = DiscountRuleTable.of(List.of(
+                new DiscountRule(null, null, 5, 0.10),
+                new DiscountRule("Grocery", null, 10, 0.05),
+                new DiscountRule("Grocery", null, 20, 0.15),
+                new DiscountRule("Grocery", null, 50, 0.25)
+        ));
+        DiscountRuleTable.Schedule schedule = table.forCustomer("anyone");
+
+
+        assertEquals(0, schedule.discountBasisPoints("GROCERY", 4));
+        assertEquals(1_000, schedule.discountBasisPoints("grocery", 10)); // 10% any-category beats 5%
+        assertEquals(1_500, schedule.discountBasisPoints("grocery", 49));
+        assertEquals(2_500, schedule.discountBasisPoints("grocery", 50));
+        assertEquals(1_000, schedule.discountBasisPoints("Clothing", 50));
+    }
+
+    @Test
+    void customerRules_AddToGeneralRulesForThatCustomerOnly() {
+
+        DiscountRuleTable table = DiscountRuleTable.of(List.of(
+                new DiscountRule(null, null, 5, 0.10),
+                new DiscountRule("Electronics", " Acme ", 1, 0.20),
+                new DiscountRule(null, "acme", 100, 0.30)
+        ));
+
+
+        DiscountRuleTable.Schedule acme = table.forCustomer("ACME");
+        assertEquals(2_000, acme.discountBasisPoints("Electronics", 1));
+        assertEquals(0, acme.discountBasisPoints("Clothing", 1));
+        assertEquals(1_000, acme.discountBasisPoints("Clothing", 5));
+        assertEquals(3_000, acme.discountBasisPoints("Electronics", 100));
+
+        DiscountRuleTable.Schedule other = table.forCustomer("globex");
+        assertEquals(0, other.discountBasisPoints("Electronics", 1));
+        assertEquals(1_000, other.discountBasisPoints("Electronics", 100));
+    }
+
+    @Test
+    void of_TurkishDefaultLocale_StillMatchesUppercaseCategories() {
+
+        Locale defaultLocale = Locale.getDefault();
+        DiscountRuleTable table;
+        try {
+            Locale.setDefault(Locale.forLanguageTag("tr-TR"));
+            table = DiscountRuleTable.of(List.of(new DiscountRule("CLOTHING", "ACME INC", 1, 0.10)));
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+
+
+        assertEquals(1_000, table.forCustomer("acme inc").discountBasisPoints("clothing", 1));
+    }
+
+    @Test
+    void noRules_NeverDiscounts() {
+
+        DiscountRuleTable table = DiscountRuleTable.of(List.of());
+
+
+        assertEquals(0, table.forCustomer(null).discountBasisPoints("Electronics", 1_000));
+        assertEquals(0, table.size());
+    }
+
+    @Test
+    void of_InvalidRules_ThrowIllegalArgumentException() {
+
+        assertThrows(IllegalArgumentException.class,
+                () -> DiscountRuleTable.of(List.of(new DiscountRule(null, null, 0, 0.10))));
+        assertThrows(IllegalArgumentException.class,
+                () -> DiscountRuleTable.of(List.of(new DiscountRule(null, null, 1, 1.0))));
+        assertThrows(IllegalArgumentException.class,
+                () -> DiscountRuleTable.of(List.of(new DiscountRule(null, null, 1, Double.NaN))));
+    }
+}
@@ -0,0 +1,105 @@
+package com.order_invoice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.order_invoice.entity.OrderItem;
+import com.order_invoice.entity.OrderRequest;
+import com.order_invoice.repository.OrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class ExportServiceTest {
+
+    // Unique to this class, so rows saved by other tests sharing the database are filtered out
+    private static final String CATEGORY = "Export, \"Test\"";
+
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private InvoiceService invoiceService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Long orderId;
+
+    @BeforeEach
+    void setUp() {
+        orderId = invoiceService.generateInvoice(new OrderRequest(null, List.of(
+                new OrderItem(null, "Atlas", CATEGORY, 1, 2_500),
+                new OrderItem(null, "Globe", CATEGORY, 5, 10_000)
+        ))).getOrderId();
+    }
+
+    @Test
+    void exportInvoiceItems_WritesOneStoredLinePerItem() throws Exception {
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+
+        long rows = exportService.exportInvoiceItems(CATEGORY, null, null, out);
+
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertTrue(rows >= 2);
+        assertEquals(rows + 1, lines.length);
+        assertEquals("id,orderId,productName,category,quantity,unitPrice,lineTotal", lines[0]);
+        assertTrue(lines[lines.length - 1].endsWith("," + orderId + ",Globe,\"Export, \"\"Test\"\"\",5,100.00,450.00"));
+    }
+
+    @Test
+    void exportInvoiceItems_ItemWithoutOrder_LeavesOrderIdEmpty() throws Exception {
+
+        long id = orderRepository.save(new OrderItem(null, "Loose", CATEGORY, 1, 1_000)).getId();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+
+        exportService.exportInvoiceItems(CATEGORY, id, id, out);
+
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(id + ",,Loose,\"Export, \"\"Test\"\"\",1,10.00,0.00", lines[1]);
+    }
+
+    @Test
+    void exportItems_CsvWithIdRange_WritesHeaderAndQuotesText() throws Exception {
+
+        long firstId = lastItemId() - 1;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+
+        long rows = exportService.exportItems(ExportFormat.CSV, CATEGORY, firstId, firstId, out);
+
+
+        assertEquals(1, rows);
+        assertEquals("id,productName,category,quantity,unitPrice\r\n"
+                        + firstId + ",Atlas,\"Export, \"\"Test\"\"\",1,25.00\r\n",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void exportItems_InvertedIdRange_ThrowsIllegalArgumentException() {
+
+        assertThrows(IllegalArgumentException.class,
+                () -> exportService.exportItems(ExportFormat.CSV, null, 2L, 1L, new ByteArrayOutputStream()));
+    }
+
+    private long lastItemId() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.exportItems(ExportFormat.NDJSON, CATEGORY, null, null, out);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        return objectMapper.readTree(lines[lines.length - 1]).get("id").asLong();
+    }
+}
@@ -0,0 +1,224 @@
+package com.order_invoice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.order_invoice.config.InvoiceProperties;
+import com.order_invoice.entity.IdempotencyRecord;
+import com.order_invoice.entity.InvoiceItem;
+import com.order_invoice.entity.InvoiceResponse;
+import com.order_invoice.entity.OrderItem;
+import com.order_invoice.entity.OrderRequest;
+import com.order_invoice.exception.IdempotencyKeyConflictException;
+import com.order_invoice.repository.IdempotencyRecordRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceTest {
+
+    @Mock
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private IdempotencyService idempotencyService;
+
+    private OrderRequest request;
+
+    private AtomicInteger generated;
+
+    private Supplier<InvoiceResponse> generator;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyService = new IdempotencyService(idempotencyRecordRepository, objectMapper, transactionManager,
+                new InvoiceProperties());
+        request = new OrderRequest("customer-1", List.of(new OrderItem(null, "Laptop", "Electronics", 1, 5_000_000)));
+        generated = new AtomicInteger();
+        generator = () -> {
+            generated.incrementAndGet();
+            InvoiceResponse response = new InvoiceResponse(
+                    List.of(new InvoiceItem("Laptop", "Electronics", 1, 5_000_000, 5_900_000)), 5_900_000);
+            response.setOrderId(42L);
+            return response;
+        };
+    }
+
+    @Test
+    void generateOnce_Retry_IsAnsweredFromIndexWithoutGenerating() {
+
+        when(idempotencyRecordRepository.findById("key-1")).thenReturn(Optional.empty());
+        when(idempotencyRecordRepository.reserve(eq("key-1"), anyLong(), any(Instant.class))).thenReturn(1);
+
+
+        InvoiceResponse first = idempotencyService.generateOnce("key-1", request, generator);
+        InvoiceResponse retry = idempotencyService.generateOnce("key-1", request, generator);
+
+
+        assertSame(first, retry);
+        assertEquals(1, generated.get());
+        verify(idempotencyRecordRepository, times(1)).reserve(eq("key-1"), anyLong(), any(Instant.class));
+        verify(idempotencyRecordRepository, times(1)).complete(eq("key-1"), anyString());
+        verify(idempotencyRecordRepository, times(1)).findById("key-1");
+    }
+
+    @Test
+    void generateOnce_KnownKeyInTable_ReplaysStoredResponse() throws Exception {
+
+        String stored = objectMapper.writeValueAsString(generator.get());
+        long fingerprint = IdempotencyService.fingerprint(request.getCustomerId(), request.getItems());
+        when(idempotencyRecordRepository.findById("key-1"))
+                .thenReturn(Optional.of(new IdempotencyRecord("key-1", fingerprint, stored, Instant.now())));
+
+
+        InvoiceResponse replayed = idempotencyService.generateOnce("key-1", request, generator);
+
+
+        assertEquals(42L, replayed.getOrderId());
+        assertEquals(5_900_000, replayed.getGrandTotal());
+        assertEquals(5_900_000, replayed.getInvoice().get(0).getLineTotal());
+        assertEquals(1, generated.get()); // only the call that built the stored JSON
+        verify(idempotencyRecordRepository, never()).reserve(anyString(), anyLong(), any());
+    }
+
+    @Test
+    void generateOnce_SameKeyDifferentItems_ThrowsConflict() {
+
+        when(idempotencyRecordRepository.findById("key-1")).thenReturn(Optional.empty());
+        when(idempotencyRecordRepository.reserve(eq("key-1"), anyLong(), any(Instant.class))).thenReturn(1);
+        idempotencyService.generateOnce("key-1", request, generator);
+        OrderRequest otherItems = new OrderRequest("customer-1",
+                List.of(new OrderItem(null, "Laptop", "Electronics", 2, 5_000_000)));
+
+
+        IdempotencyKeyConflictException exception = assertThrows(IdempotencyKeyConflictException.class,
+                () -> idempotencyService.generateOnce("key-1", otherItems, generator));
+
+        assertEquals("Idempotency-Key was already used with a different request", exception.getMessage());
+        assertEquals(1, generated.get());
+    }
+
+    @Test
+    void generateOnce_SameKeyDifferentCustomer_ThrowsConflict() {
+
+        when(idempotencyRecordRepository.findById("key-1")).thenReturn(Optional.empty());
+        when(idempotencyRecordRepository.reserve(eq("key-1"), anyLong(), any(Instant.class))).thenReturn(1);
+        idempotencyService.generateOnce("key-1", request, generator);
+        OrderRequest otherCustomer = new OrderRequest("customer-2", request.getItems());
+
+
+        assertThrows(IdempotencyKeyConflictException.class,
+                () -> idempotencyService.generateOnce("key-1", otherCustomer, generator));
+
+        assertEquals(1, generated.get());
+    }
+
+    @Test
+    void generateOnce_SameKeyProductNamesWithEqualHashCodes_ThrowsConflict() {
+
+        when(idempotencyRecordRepository.findById("key-1")).thenReturn(Optional.empty());
+        when(idempotencyRecordRepository.reserve(eq("key-1"), anyLong(), any(Instant.class))).thenReturn(1);
+        idempotencyService.generateOnce("key-1",
+                new OrderRequest("customer-1", List.of(new OrderItem(null, "Aa", "Electronics", 1, 5_000_000))), generator);
+        OrderRequest collidingName = new OrderRequest("customer-1",
+                List.of(new OrderItem(null, "BB", "Electronics", 1, 5_000_000)));
+
+
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        assertThrows(IdempotencyKeyConflictException.class,
+                () -> idempotencyService.generateOnce("key-1", collidingName, generator));
+        assertEquals(1, generated.get());
+    }
+
+    @Test
+    void generateOnce_KeyStillInProgress_ThrowsConflict() {
+
+        when(idempotencyRecordRepository.findById("key-1"))
+                .thenReturn(Optional.of(new IdempotencyRecord("key-1", 0, null, Instant.now())));
+
+
+        assertThrows(IdempotencyKeyConflictException.class,
+                () -> idempotencyService.generateOnce("key-1", request, generator));
+
+        assertEquals(0, generated.get());
+    }
+
+    @Test
+    void generateOnce_ConcurrentClaim_ThrowsConflict() {
+
+        when(idempotencyRecordRepository.findById("key-1"))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(new IdempotencyRecord("key-1", 0, null, Instant.now())));
+        when(idempotencyRecordRepository.reserve(eq("key-1"), anyLong(), any(Instant.class))).thenReturn(0);
+
+
+        assertThrows(IdempotencyKeyConflictException.class,
+                () -> idempotencyService.generateOnce("key-1", request, generator));
+
+        assertEquals(0, generated.get());
+    }
+
+    @Test
+    void generateOnce_StoresResponseInTheGeneratorsTransaction() {
+
+        when(idempotencyRecordRepository.findById("key-1")).thenReturn(Optional.empty());
+        when(idempotencyRecordRepository.reserve(eq("key-1"), anyLong(), any(Instant.class))).thenReturn(1);
+        TransactionStatus transaction = mock(TransactionStatus.class);
+        when(transactionManager.getTransaction(any())).thenReturn(transaction);
+
+
+        idempotencyService.generateOnce("key-1", request, generator);
+
+
+        InOrder inOrder = inOrder(transactionManager, idempotencyRecordRepository);
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(idempotencyRecordRepository).complete(eq("key-1"), contains("\"orderId\":42"));
+        inOrder.verify(transactionManager).commit(transaction);
+    }
+
+    @Test
+    void generateOnce_GenerationFails_ReleasesKey() {
+
+        when(idempotencyRecordRepository.findById("key-1")).thenReturn(Optional.empty());
+        when(idempotencyRecordRepository.reserve(eq("key-1"), anyLong(), any(Instant.class))).thenReturn(1);
+
+
+        assertThrows(IllegalArgumentException.class, () -> idempotencyService.generateOnce("key-1", request, () -> {
+            throw new IllegalArgumentException("Quantity must be greater than 0 for all items");
+        }));
+
+        verify(idempotencyRecordRepository, times(1)).release("key-1");
+        verify(idempotencyRecordRepository, never()).complete(anyString(), anyString());
+        verify(transactionManager).rollback(any());
+    }
+
+    @Test
+    void generateOnce_BlankKey_ThrowsIllegalArgumentException() {
+
+        assertThrows(IllegalArgumentException.class, () -> idempotencyService.generateOnce(" ", request, generator));
+
+        verifyNoInteractions(idempotencyRecordRepository);
+    }
+}
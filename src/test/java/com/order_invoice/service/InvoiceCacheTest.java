@@ -0,0 +1,79 @@
+package com.order_invoice.service;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.order_invoice.config.CacheConfig;
+import com.order_invoice.entity.InvoiceResponse;
+import com.order_invoice.entity.OrderItem;
+import com.order_invoice.entity.OrderRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class InvoiceCacheTest {
+
+    @Autowired
+    private InvoiceService invoiceService;
+
+    @Autowired
+    private TaxRateRegistry taxRateRegistry;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private CaffeineCache invoices;
+
+    @BeforeEach
+    void setUp() {
+        invoices = (CaffeineCache) cacheManager.getCache(CacheConfig.INVOICES);
+        invoices.clear();
+    }
+
+    @Test
+    void getInvoiceByOrderId_SecondCall_IsServedFromCache() {
+
+        Long orderId = storeOrder();
+        CacheStats before = invoices.getNativeCache().stats();
+
+
+        InvoiceResponse first = invoiceService.getInvoiceByOrderId(orderId);
+        InvoiceResponse second = invoiceService.getInvoiceByOrderId(orderId);
+
+
+        CacheStats stats = invoices.getNativeCache().stats().minus(before);
+        assertSame(first, second);
+        assertEquals(1, stats.missCount());
+        assertEquals(1, stats.hitCount());
+    }
+
+    @Test
+    void reloadTaxRates_KeepsStoredInvoiceTotals() {
+
+        Long orderId = storeOrder();
+        Map<String, Double> rates = taxRateRegistry.getRates();
+        invoices.clear();
+
+
+        taxRateRegistry.reload(Map.of("electronics", 0.2));
+        InvoiceResponse stored = invoiceService.getInvoiceByOrderId(orderId);
+        taxRateRegistry.reload(rates);
+
+
+        assertEquals(orderId, stored.getOrderId());
+        assertEquals(5_900_000, stored.getGrandTotal());
+        assertEquals(5_900_000, stored.getInvoice().get(0).getLineTotal());
+    }
+
+    private Long storeOrder() {
+        return invoiceService.generateInvoice(new OrderRequest(null,
+                List.of(new OrderItem(null, "Laptop", "Electronics", 1, 5_000_000)))).getOrderId();
+    }
+}
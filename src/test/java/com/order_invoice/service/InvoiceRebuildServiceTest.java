@@ -0,0 +1,67 @@
+package com.order_invoice.service;
+
+import com.order_invoice.entity.InvoiceRebuildResult;
+import com.order_invoice.entity.InvoiceResponse;
+import com.order_invoice.entity.OrderItem;
+import com.order_invoice.entity.OrderRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class InvoiceRebuildServiceTest {
+
+    @Autowired
+    private InvoiceRebuildService invoiceRebuildService;
+
+    @Autowired
+    private InvoiceService invoiceService;
+
+    @Autowired
+    private CategorySummaryService categorySummaryService;
+
+    @Autowired
+    private TaxRateRegistry taxRateRegistry;
+
+    @Test
+    void rebuild_AfterTaxRateReload_RepricesStoredInvoicesAndSummaries() {
+
+        Long orderId = invoiceService.generateInvoice(new OrderRequest(null, List.of(
+                new OrderItem(null, "Laptop", "Electronics", 1, 5_000_000),
+                new OrderItem(null, "T-Shirt", "Clothing", 3, 50_000)))).getOrderId();
+        InvoiceResponse cached = invoiceService.getInvoiceByOrderId(orderId);
+        Map<String, Double> rates = taxRateRegistry.getRates();
+        Map<String, Double> raised = new HashMap<>(rates);
+        raised.put("electronics", 0.2);
+
+
+        InvoiceRebuildResult result;
+        InvoiceResponse repriced;
+        long storedTotal;
+        try {
+            taxRateRegistry.reload(raised);
+            result = invoiceRebuildService.rebuild();
+            repriced = invoiceService.getInvoiceByOrderId(orderId);
+            storedTotal = invoiceService.streamAllInvoices(item -> { }).getGrandTotal();
+        } finally {
+            taxRateRegistry.reload(rates);
+            invoiceRebuildService.rebuild();
+        }
+
+
+        assertEquals(6_068_000, cached.getGrandTotal());
+        assertEquals(6_000_000, repriced.getInvoice().get(0).getLineTotal());
+        assertEquals(168_000, repriced.getInvoice().get(1).getLineTotal());
+        assertEquals(6_168_000, repriced.getGrandTotal());
+        assertTrue(result.getChangedItems() >= 1);
+        assertEquals(storedTotal, result.getGrandTotal());
+        assertEquals(6_068_000, invoiceService.getInvoiceByOrderId(orderId).getGrandTotal());
+        assertEquals(categorySummaryService.getGrandTotal(), invoiceService.getAllInvoices(null, 1).getInvoice().getGrandTotal());
+    }
+}
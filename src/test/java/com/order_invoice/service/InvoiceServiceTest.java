@@ -1,22 +1,41 @@
 package com.order_invoice.service;
 
+import com.order_invoice.config.InvoiceProperties;
+import com.order_invoice.entity.CustomerOrder;
+import com.order_invoice.entity.DiscountRule;
 import com.order_invoice.entity.InvoiceItem;
+import com.order_invoice.entity.InvoiceLineView;
+import com.order_invoice.entity.InvoicePage;
 import com.order_invoice.entity.InvoiceResponse;
+import com.order_invoice.entity.InvoiceTotal;
+import com.order_invoice.entity.LineError;
 import com.order_invoice.entity.OrderItem;
+import com.order_invoice.entity.OrderItemView;
+import com.order_invoice.entity.OrderPage;
+import com.order_invoice.entity.OrderRequest;
+import com.order_invoice.exception.InvoiceValidationException;
+import com.order_invoice.repository.CustomerOrderRepository;
 import com.order_invoice.repository.OrderRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -25,6 +44,35 @@ class InvoiceServiceTest {
     @Mock
     private OrderRepository orderRepository;
 
+    @Mock
+    private CustomerOrderRepository customerOrderRepository;
+
+    @Mock
+    private CategorySummaryService categorySummaryService;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private OrderWriter orderWriter;
+
+    @Mock
+    private WriteBehindQueue writeBehindQueue;
+
+    @Spy
+    private InvoiceProperties invoiceProperties = new InvoiceProperties();
+
+    @Spy
+    private TaxRateRegistry taxRateRegistry = new TaxRateRegistry(new InvoiceProperties());
+
+    @Spy
+    private DiscountRuleRegistry discountRuleRegistry = new DiscountRuleRegistry(new InvoiceProperties());
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private InvoiceMetrics invoiceMetrics = new InvoiceMetrics(meterRegistry);
+
     @InjectMocks
     private InvoiceService invoiceService;
 
@@ -33,27 +81,70 @@ class InvoiceServiceTest {
     @BeforeEach
     void setUp() {
         sampleOrderItems = List.of(
-                new OrderItem(1l, "Laptop", "Electronics", 1, 50000),
-                new OrderItem(2l, "Mouse", "Electronics", 5, 1000),
-                new OrderItem(3l, "T-Shirt", "Clothing", 3, 500)
+                new OrderItem(1l, "Laptop", "Electronics", 1, 5_000_000),
+                new OrderItem(2l, "Mouse", "Electronics", 5, 100_000),
+                new OrderItem(3l, "T-Shirt", "Clothing", 3, 50_000)
         );
     }
 
     @Test
     void generateInvoice_ValidItems_ReturnsInvoiceResponse() {
 
-        when(orderRepository.saveAll(anyList())).thenReturn(sampleOrderItems);
-
-
-        InvoiceResponse response = invoiceService.generateInvoice(sampleOrderItems);
+        InvoiceResponse response = invoiceService.generateInvoice(new OrderRequest(null, sampleOrderItems));
 
 
         assertNotNull(response);
         assertEquals(3, response.getInvoice().size());
         assertTrue(response.getGrandTotal() > 0);
+        assertEquals(5_900_000, sampleOrderItems.get(0).getLineTotal()); // stored for later reads
+        assertEquals(response.getGrandTotal(), sampleOrderItems.get(0).getOrder().getGrandTotal());
+
+
+        verify(orderWriter, times(1)).persist(anyList(), eq(response.getInvoice()));
+    }
+
+    @Test
+    void generateInvoice_WriteBehind_QueuesInsteadOfPersisting() {
+
+        when(writeBehindQueue.isEnabled()).thenReturn(true);
+
+
+        InvoiceResponse response = invoiceService.generateInvoice(new OrderRequest(null, sampleOrderItems));
+
+
+        assertEquals(6_599_000, response.getGrandTotal());
+        assertNull(response.getOrderId());
+        verify(writeBehindQueue, times(1)).submit(null, response);
+        verify(orderWriter, never()).persist(anyList(), anyList());
+    }
+
+    @Test
+    void generateInvoice_RecordsStageMetrics() {
+
+        invoiceService.generateInvoice(new OrderRequest(null, sampleOrderItems));
+
+
+        assertEquals(1, meterRegistry.get("invoice.pricing").timer().count());
+        assertEquals(3, meterRegistry.get("invoice.items").summary().totalAmount());
+        assertEquals(0, meterRegistry.get("invoice.validation.failures").counter().count());
+    }
 
+    @Test
+    void generateInvoice_CustomerRules_ApplyBestMatchingDiscount() {
+
+        discountRuleRegistry.reload(List.of(
+                new DiscountRule(null, null, 5, 0.10),
+                new DiscountRule("electronics", "acme", 1, 0.20)
+        ));
+
+
+        InvoiceResponse response = invoiceService.generateInvoice(new OrderRequest("ACME", sampleOrderItems));
 
-        verify(orderRepository, times(1)).saveAll(anyList());
+
+        assertEquals(4_720_000, response.getInvoice().get(0).getLineTotal()); // 50000.00 * 0.80 * 1.18
+        assertEquals(472_000, response.getInvoice().get(1).getLineTotal());   // 20% beats the 10% bulk rule
+        assertEquals(168_000, response.getInvoice().get(2).getLineTotal());   // clothing, below bulk quantity
+        assertEquals("ACME", sampleOrderItems.get(0).getOrder().getCustomerId());
     }
 
     @Test
@@ -63,149 +154,288 @@ class InvoiceServiceTest {
 
 
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
-                () -> invoiceService.generateInvoice(emptyItems));
+                () -> invoiceService.generateInvoice(new OrderRequest(null, emptyItems)));
 
         assertEquals("Items list cannot be null or empty", exception.getMessage());
-        verify(orderRepository, never()).saveAll(anyList());
+        verify(orderWriter, never()).persist(anyList(), anyList());
     }
 
     @Test
     void generateInvoice_NullItems_ThrowsIllegalArgumentException() {
 
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
-                () -> invoiceService.generateInvoice(null));
+                () -> invoiceService.generateInvoice(new OrderRequest(null, null)));
 
         assertEquals("Items list cannot be null or empty", exception.getMessage());
-        verify(orderRepository, never()).saveAll(anyList());
+        verify(orderWriter, never()).persist(anyList(), anyList());
     }
 
     @Test
     void generateInvoice_InvalidQuantity_ThrowsIllegalArgumentException() {
 
         List<OrderItem> invalidItems = List.of(
-                new OrderItem(1l, "Invalid", "Electronics", 0, 1000) // Quantity = 0
+                new OrderItem(1l, "Invalid", "Electronics", 0, 100_000) // Quantity = 0
         );
 
 
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
-                () -> invoiceService.generateInvoice(invalidItems));
+                () -> invoiceService.generateInvoice(new OrderRequest(null, invalidItems)));
 
         assertTrue(exception.getMessage().contains("Quantity must be greater than 0"));
-        verify(orderRepository, never()).saveAll(anyList());
+        assertEquals(1, meterRegistry.get("invoice.validation.failures").counter().count());
+        verify(orderWriter, never()).persist(anyList(), anyList());
     }
 
     @Test
     void generateInvoice_InvalidUnitPrice_ThrowsIllegalArgumentException() {
 
         List<OrderItem> invalidItems = List.of(
-                new OrderItem(1l, "Invalid", "Electronics", 1, -100) // UnitPrice = -100
+                new OrderItem(1l, "Invalid", "Electronics", 1, -10_000) // UnitPrice = -100.00
         );
 
 
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
-                () -> invoiceService.generateInvoice(invalidItems));
+                () -> invoiceService.generateInvoice(new OrderRequest(null, invalidItems)));
 
         assertTrue(exception.getMessage().contains("Unit price must be greater than 0"));
-        verify(orderRepository, never()).saveAll(anyList());
+        verify(orderWriter, never()).persist(anyList(), anyList());
     }
 
     @Test
-    void getAllOrders_ReturnsAllOrders() {
+    void generateInvoice_SeveralInvalidLines_ReportsEveryLineError() {
+
+        List<OrderItem> items = new ArrayList<>(List.of(
+                new OrderItem(1l, "Laptop", "Electronics", 1, 100_000),
+                new OrderItem(2l, "Invalid", "Electronics", 0, 100_000),
+                new OrderItem(3l, "Mouse", "Electronics", 2, 2_000),
+                new OrderItem(4l, "Invalid", "Electronics", -1, 0)
+        ));
+        items.add(null);
+
+
+        InvoiceValidationException exception = assertThrows(InvoiceValidationException.class,
+                () -> invoiceService.generateInvoice(new OrderRequest(null, items)));
+
+        assertEquals("Quantity must be greater than 0 for all items", exception.getMessage());
+        assertEquals(4, exception.getErrorCount());
+        List<LineError> errors = exception.getErrors();
+        assertEquals(List.of(1, 3, 3, 4), errors.stream().map(LineError::getLine).toList());
+        assertEquals("quantity", errors.get(1).getField());
+        assertEquals("unitPrice", errors.get(2).getField());
+        assertEquals(LineError.NOT_POSITIVE, errors.get(2).getCode());
+        assertNull(errors.get(3).getField());
+        assertEquals(LineError.REQUIRED, errors.get(3).getCode());
+        assertEquals(0, exception.getStackTrace().length);
+        assertEquals(1, meterRegistry.get("invoice.validation.failures").counter().count());
+        verify(orderWriter, never()).persist(anyList(), anyList());
+    }
 
-        when(orderRepository.findAll()).thenReturn(sampleOrderItems);
+    @Test
+    void generateInvoice_LineTotalOverflows_ReportsTooLargeLineError() {
 
+        List<OrderItem> items = List.of(
+                new OrderItem(1l, "Vault", "Furniture", 2, Long.MAX_VALUE / 2 + 1),
+                new OrderItem(2l, "Invalid", "Furniture", 0, 100));
 
-        List<OrderItem> result = invoiceService.getAllOrders();
 
+        InvoiceValidationException exception = assertThrows(InvoiceValidationException.class,
+                () -> invoiceService.generateInvoice(new OrderRequest(null, items)));
 
-        assertEquals(3, result.size());
-        verify(orderRepository, times(1)).findAll();
+        assertEquals(2, exception.getErrorCount());
+        assertEquals("lineTotal", exception.getErrors().get(0).getField());
+        assertEquals(LineError.TOO_LARGE, exception.getErrors().get(0).getCode());
+        assertEquals(1, exception.getErrors().get(1).getLine());
+        verify(orderWriter, never()).persist(anyList(), anyList());
+    }
+
+    @Test
+    void generateInvoice_GrandTotalOverflows_ReportsTooLargeInsteadOfWrapping() {
+
+        List<OrderItem> items = List.of(
+                new OrderItem(1l, "Vault", "Furniture", 1, 5_000_000_000_000_000_000L),
+                new OrderItem(2l, "Vault", "Furniture", 1, 5_000_000_000_000_000_000L));
+
+
+        InvoiceValidationException exception = assertThrows(InvoiceValidationException.class,
+                () -> invoiceService.generateInvoice(new OrderRequest(null, items)));
+
+        assertEquals(1, exception.getErrorCount());
+        assertEquals(1, exception.getErrors().get(0).getLine());
+        assertEquals("grandTotal", exception.getErrors().get(0).getField());
+        assertEquals(LineError.TOO_LARGE, exception.getErrors().get(0).getCode());
+        verify(orderWriter, never()).persist(anyList(), anyList());
+    }
+
+    @Test
+    void getAllOrders_ReturnsFirstPage() {
+
+        when(orderRepository.findPageAfter(0L, Limit.of(101))).thenReturn(views(sampleOrderItems));
+
+
+        OrderPage result = invoiceService.getAllOrders(null, null);
+
+
+        assertEquals(3, result.getItems().size());
+        assertNull(result.getNextCursor());
+        verify(orderRepository, times(1)).findPageAfter(0L, Limit.of(101));
+    }
+
+    @Test
+    void getAllOrders_FullPage_ReturnsCursorOfLastItem() {
+
+        when(orderRepository.findPageAfter(1L, Limit.of(3))).thenReturn(views(sampleOrderItems));
+
+
+        OrderPage result = invoiceService.getAllOrders(1L, 2);
+
+
+        assertEquals(2, result.getItems().size());
+        assertEquals(2L, result.getNextCursor());
+    }
+
+    @Test
+    void getAllOrders_LimitAboveMaximum_IsClamped() {
+
+        when(orderRepository.findPageAfter(0L, Limit.of(1001))).thenReturn(List.of());
+
+
+        invoiceService.getAllOrders(null, 50_000);
+
+
+        verify(orderRepository, times(1)).findPageAfter(0L, Limit.of(1001));
+    }
+
+    @Test
+    void getAllOrders_NonPositiveLimit_ThrowsIllegalArgumentException() {
+
+        assertThrows(IllegalArgumentException.class, () -> invoiceService.getAllOrders(null, 0));
+        verify(orderRepository, never()).findPageAfter(anyLong(), any());
     }
 
     @Test
     void getOrdersByCategory_ValidCategory_ReturnsFilteredOrders() {
 
-        List<OrderItem> electronicsItems = List.of(sampleOrderItems.get(0), sampleOrderItems.get(1));
-        when(orderRepository.findByCategory("Electronics")).thenReturn(electronicsItems);
+        List<OrderItemView> electronicsItems = views(List.of(sampleOrderItems.get(0), sampleOrderItems.get(1)));
+        when(orderRepository.findPageByCategoryAfter("Electronics", 0L, Limit.of(101))).thenReturn(electronicsItems);
 
 
-        List<OrderItem> result = invoiceService.getOrdersByCategory("Electronics");
+        OrderPage result = invoiceService.getOrdersByCategory("Electronics", null, null);
 
 
-        assertEquals(2, result.size());
-        assertTrue(result.stream().allMatch(item -> "Electronics".equals(item.getCategory())));
-        verify(orderRepository, times(1)).findByCategory("Electronics");
+        assertEquals(2, result.getItems().size());
+        assertTrue(result.getItems().stream().allMatch(item -> "Electronics".equals(item.getCategory())));
+        verify(orderRepository, times(1)).findPageByCategoryAfter("Electronics", 0L, Limit.of(101));
     }
 
     @Test
     void getBulkOrders_ReturnsOrdersWithQuantityGreaterThanOrEqualFive() {
 
-        List<OrderItem> bulkItems = List.of(sampleOrderItems.get(1)); // Only Mouse has quantity >= 5
-        when(orderRepository.findByQuantityGreaterThanEqual(5)).thenReturn(bulkItems);
+        List<OrderItemView> bulkItems = views(List.of(sampleOrderItems.get(1))); // Only Mouse has quantity >= 5
+        when(orderRepository.findPageByQuantityAtLeastAfter(5, 0L, Limit.of(101))).thenReturn(bulkItems);
 
 
-        List<OrderItem> result = invoiceService.getBulkOrders();
+        OrderPage result = invoiceService.getBulkOrders(null, null);
 
 
-        assertEquals(1, result.size());
-        assertEquals("Mouse", result.get(0).getProductName());
-        assertEquals(5, result.get(0).getQuantity());
-        verify(orderRepository, times(1)).findByQuantityGreaterThanEqual(5);
+        assertEquals(1, result.getItems().size());
+        assertEquals("Mouse", result.getItems().get(0).getProductName());
+        assertEquals(5, result.getItems().get(0).getQuantity());
+        verify(orderRepository, times(1)).findPageByQuantityAtLeastAfter(5, 0L, Limit.of(101));
     }
 
     @Test
     void getInvoiceByOrderId_ValidId_ReturnsInvoiceResponse() {
 
-        OrderItem orderItem = sampleOrderItems.get(0); // Laptop
-        when(orderRepository.findById(1L)).thenReturn(Optional.of(orderItem));
+        CustomerOrder order = storedOrder();
+        when(customerOrderRepository.findWithItemsById(1L)).thenReturn(Optional.of(order));
 
 
         InvoiceResponse response = invoiceService.getInvoiceByOrderId(1L);
 
 
         assertNotNull(response);
-        assertEquals(1, response.getInvoice().size());
+        assertEquals(1L, response.getOrderId());
+        assertEquals(3, response.getInvoice().size());
+        assertEquals(6_599_000, response.getGrandTotal());
 
         InvoiceItem invoiceItem = response.getInvoice().get(0);
         assertEquals("Laptop", invoiceItem.getProductName());
-        assertEquals(59000, invoiceItem.getLineTotal(), 0.01); // 50000 + 18% tax
+        assertEquals(5_900_000, invoiceItem.getLineTotal()); // 50000.00 + 18% tax
 
-        verify(orderRepository, times(1)).findById(1L);
+        verify(customerOrderRepository, times(1)).findWithItemsById(1L);
     }
 
     @Test
     void getInvoiceByOrderId_InvalidId_ThrowsIllegalArgumentException() {
 
-        when(orderRepository.findById(999L)).thenReturn(Optional.empty());
+        when(customerOrderRepository.findWithItemsById(999L)).thenReturn(Optional.empty());
 
 
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
                 () -> invoiceService.getInvoiceByOrderId(999L));
 
         assertEquals("Order not found with ID: 999", exception.getMessage());
-        verify(orderRepository, times(1)).findById(999L);
+        verify(customerOrderRepository, times(1)).findWithItemsById(999L);
     }
 
     @Test
-    void getAllInvoices_ReturnsAllInvoices() {
+    void getAllInvoices_ReturnsPageWithGrandTotalFromSummaries() {
 
-        when(orderRepository.findAll()).thenReturn(sampleOrderItems);
+        when(orderRepository.findInvoicePageAfter(0L, Limit.of(3))).thenReturn(List.of(
+                new InvoiceLineView(1L, "Laptop", "Electronics", 1, 5_000_000, 5_900_000),
+                new InvoiceLineView(2L, "Mouse", "Electronics", 5, 100_000, 531_000),
+                new InvoiceLineView(3L, "T-Shirt", "Clothing", 3, 50_000, 168_000)
+        ));
+        when(categorySummaryService.getGrandTotal()).thenReturn(6_599_000L);
 
 
-        InvoiceResponse response = invoiceService.getAllInvoices();
+        InvoicePage page = invoiceService.getAllInvoices(null, 2);
 
 
-        assertNotNull(response);
-        assertEquals(3, response.getInvoice().size());
-        assertTrue(response.getGrandTotal() > 0);
+        assertEquals(2, page.getInvoice().getInvoice().size());
+        assertEquals("Mouse", page.getInvoice().getInvoice().get(1).getProductName());
+        assertEquals(531_000, page.getInvoice().getInvoice().get(1).getLineTotal());
+        assertEquals(6_599_000, page.getInvoice().getGrandTotal());
+        assertEquals(2L, page.getNextCursor());
+        verify(categorySummaryService, times(1)).getGrandTotal();
+    }
 
-        verify(orderRepository, times(1)).findAll();
+    @Test
+    void getAllInvoices_PastLastLine_ReadsGrandTotalFromSummaries() {
+
+        when(orderRepository.findInvoicePageAfter(3L, Limit.of(101))).thenReturn(List.of());
+        when(categorySummaryService.getGrandTotal()).thenReturn(6_599_000L);
+
+
+        InvoicePage page = invoiceService.getAllInvoices(3L, null);
+
+
+        assertTrue(page.getInvoice().getInvoice().isEmpty());
+        assertEquals(6_599_000, page.getInvoice().getGrandTotal());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void streamAllInvoices_ReadsStoredTotalsAndDetachesEachItem() {
+
+        storedOrder();
+        when(orderRepository.streamAllByOrderByIdAsc()).thenReturn(sampleOrderItems.stream());
+        List<InvoiceItem> streamed = new ArrayList<>();
+
+
+        InvoiceTotal total = invoiceService.streamAllInvoices(streamed::add);
+
+
+        assertEquals(3, streamed.size());
+        assertEquals(3, total.getItemCount());
+        assertEquals(6_599_000, total.getGrandTotal()); // 59000.00 + 5310.00 + 1680.00
+        verify(entityManager, times(3)).detach(any(OrderItem.class));
     }
 
     @Test
     void processItem_ElectronicsWithDiscount_CalculatesCorrectLineTotal() {
 
-        OrderItem bulkElectronics = new OrderItem(1l, "Bulk Item", "Electronics", 5, 1000);
+        OrderItem bulkElectronics = new OrderItem(1l, "Bulk Item", "Electronics", 5, 100_000);
 
 
         InvoiceItem result = invoiceService.processItem(bulkElectronics);
@@ -213,13 +443,13 @@ class InvoiceServiceTest {
 
         assertEquals("Bulk Item", result.getProductName());
 
-        assertEquals(5310, result.getLineTotal(), 0.01);
+        assertEquals(531_000, result.getLineTotal());
     }
 
     @Test
     void processItem_ElectronicsWithoutDiscount_CalculatesCorrectLineTotal() {
 
-        OrderItem electronics = new OrderItem(1l, "Laptop", "Electronics", 1, 50000);
+        OrderItem electronics = new OrderItem(1l, "Laptop", "Electronics", 1, 5_000_000);
 
 
         InvoiceItem result = invoiceService.processItem(electronics);
@@ -227,13 +457,13 @@ class InvoiceServiceTest {
 
         assertEquals("Laptop", result.getProductName());
 
-        assertEquals(59000, result.getLineTotal(), 0.01);
+        assertEquals(5_900_000, result.getLineTotal());
     }
 
     @Test
     void processItem_ClothingWithDiscount_CalculatesCorrectLineTotal() {
 
-        OrderItem bulkClothing = new OrderItem(1l, "Bulk Shirt", "Clothing", 6, 1000);
+        OrderItem bulkClothing = new OrderItem(1l, "Bulk Shirt", "Clothing", 6, 100_000);
 
 
         InvoiceItem result = invoiceService.processItem(bulkClothing);
@@ -241,13 +471,13 @@ class InvoiceServiceTest {
 
         assertEquals("Bulk Shirt", result.getProductName());
 
-        assertEquals(6048, result.getLineTotal(), 0.01);
+        assertEquals(604_800, result.getLineTotal());
     }
 
     @Test
     void processItem_ClothingWithoutDiscount_CalculatesCorrectLineTotal() {
 
-        OrderItem clothing = new OrderItem(1l, "Shirt", "Clothing", 2, 1000);
+        OrderItem clothing = new OrderItem(1l, "Shirt", "Clothing", 2, 100_000);
 
 
         InvoiceItem result = invoiceService.processItem(clothing);
@@ -255,13 +485,13 @@ class InvoiceServiceTest {
 
         assertEquals("Shirt", result.getProductName());
 
-        assertEquals(2240, result.getLineTotal(), 0.01);
+        assertEquals(224_000, result.getLineTotal());
     }
 
     @Test
     void processItem_GroceryWithDiscount_CalculatesCorrectLineTotal() {
 
-        OrderItem bulkGrocery = new OrderItem(1l, "Bulk Food", "Grocery", 5, 1000);
+        OrderItem bulkGrocery = new OrderItem(1l, "Bulk Food", "Grocery", 5, 100_000);
 
 
         InvoiceItem result = invoiceService.processItem(bulkGrocery);
@@ -269,13 +499,13 @@ class InvoiceServiceTest {
 
         assertEquals("Bulk Food", result.getProductName());
 
-        assertEquals(4725, result.getLineTotal(), 0.01);
+        assertEquals(472_500, result.getLineTotal());
     }
 
     @Test
     void processItem_UnknownCategory_CalculatesCorrectLineTotal() {
 
-        OrderItem unknown = new OrderItem(1l, "Unknown", "Other", 1, 1000);
+        OrderItem unknown = new OrderItem(1l, "Unknown", "Other", 1, 100_000);
 
 
         InvoiceItem result = invoiceService.processItem(unknown);
@@ -283,20 +513,32 @@ class InvoiceServiceTest {
 
         assertEquals("Unknown", result.getProductName());
 
-        assertEquals(1000, result.getLineTotal(), 0.01);
+        assertEquals(100_000, result.getLineTotal());
     }
 
     @Test
     void processItem_NullCategory_CalculatesCorrectLineTotal() {
 
-        OrderItem nullCategory = new OrderItem(1l, "No Category", null, 1, 1000);
+        OrderItem nullCategory = new OrderItem(1l, "No Category", null, 1, 100_000);
 
 
         InvoiceItem result = invoiceService.processItem(nullCategory);
 
 
         assertEquals("No Category", result.getProductName());
-        assertEquals(1000, result.getLineTotal(), 0.01);
+        assertEquals(100_000, result.getLineTotal());
+    }
+
+    @Test
+    void processItem_FractionalCents_RoundsHalfUpOnce() {
+
+        OrderItem item = new OrderItem(1l, "Cable", "Grocery", 7, 333); // 7 x 3.33, 10% off, 5% tax
+
+
+        InvoiceItem result = invoiceService.processItem(item);
+
+
+        assertEquals(2_203, result.getLineTotal()); // 22.02795 -> 22.03
     }
 
     @Test
@@ -356,4 +598,20 @@ class InvoiceServiceTest {
         assertEquals(0.12, clothingRate, 0.001);
         assertEquals(0.05, groceryRate, 0.001);
     }
-}
\ No newline at end of file
+
+    private static List<OrderItemView> views(List<OrderItem> items) {
+        return items.stream()
+                .map(item -> new OrderItemView(item.getId(), item.getProductName(), item.getCategory(),
+                        item.getQuantity(), item.getUnitPrice()))
+                .toList();
+    }
+
+    private CustomerOrder storedOrder() {
+        sampleOrderItems.get(0).setLineTotal(5_900_000);
+        sampleOrderItems.get(1).setLineTotal(531_000);
+        sampleOrderItems.get(2).setLineTotal(168_000);
+        CustomerOrder order = new CustomerOrder(null, sampleOrderItems, 6_599_000);
+        order.setId(1L);
+        return order;
+    }
+}
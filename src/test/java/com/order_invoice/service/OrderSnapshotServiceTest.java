@@ -0,0 +1,122 @@
+package com.order_invoice.service;
+
+import com.order_invoice.config.InvoiceProperties;
+import com.order_invoice.entity.CategorySales;
+import com.order_invoice.entity.OrderItem;
+import com.order_invoice.entity.OrderRequest;
+import com.order_invoice.entity.SalesReport;
+import com.order_invoice.exception.SnapshotUnavailableException;
+import com.order_invoice.repository.ExportRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Snapshots are off for the other tests; these take theirs under target/
+@SpringBootTest(properties = {"invoice.snapshot.enabled=true", "invoice.snapshot.directory=target/snapshot"})
+class OrderSnapshotServiceTest {
+
+    // Unique to each test, so rows saved by other tests sharing the database are kept apart
+    private static final String CATEGORY = "Snapshot Test";
+
+    private static final String BULK_CATEGORY = "Snapshot Bulk Test";
+
+    @Autowired
+    private OrderSnapshotService orderSnapshotService;
+
+    @Autowired
+    private InvoiceService invoiceService;
+
+    @Autowired
+    private ExportRepository exportRepository;
+
+    @Test
+    void getSalesReport_AfterRefresh_AggregatesStoredLinesByCategory() {
+
+        invoiceService.generateInvoice(new OrderRequest(null, List.of(
+                new OrderItem(null, "Pen", CATEGORY, 2, 150),
+                new OrderItem(null, "Ream", CATEGORY, 5, 1_000)
+        )));
+
+
+        orderSnapshotService.refresh();
+        SalesReport report = orderSnapshotService.getSalesReport(null);
+
+
+        assertEquals(InvoiceService.BULK_QUANTITY, report.getBulkQuantity());
+        assertTrue(report.getLastItemId() > 0);
+        assertNotNull(report.getSnapshotTakenAt());
+
+        CategorySales sales = category(report, CATEGORY);
+        assertEquals(2, sales.getItemCount());
+        assertEquals(7, sales.getTotalQuantity());
+        assertEquals(5_300, sales.getListRevenue());
+        // Untaxed category; the ream gets the default 10% bulk discount
+        assertEquals(300 + 4_500, sales.getRevenue());
+        assertEquals(1, sales.getBulkItemCount());
+        assertEquals(4_500, sales.getBulkRevenue());
+
+        long total = report.getCategories().stream().mapToLong(CategorySales::getItemCount).sum();
+        assertEquals(total, report.getItemCount());
+    }
+
+    @Test
+    void getSalesReport_BulkQuantityOverride_CountsLinesAtOrAboveIt() {
+
+        invoiceService.generateInvoice(new OrderRequest(null, List.of(
+                new OrderItem(null, "Pen", BULK_CATEGORY, 2, 150),
+                new OrderItem(null, "Ink", BULK_CATEGORY, 3, 400)
+        )));
+        orderSnapshotService.refresh();
+
+
+        SalesReport report = orderSnapshotService.getSalesReport(2);
+
+
+        CategorySales sales = category(report, BULK_CATEGORY);
+        assertEquals(2, sales.getItemCount());
+        assertEquals(sales.getItemCount(), sales.getBulkItemCount());
+        assertThrows(IllegalArgumentException.class, () -> orderSnapshotService.getSalesReport(0));
+    }
+
+    @Test
+    void getSalesReport_BeforeFirstSnapshot_ThrowsSnapshotUnavailableException() {
+
+        OrderSnapshotService fresh = new OrderSnapshotService(exportRepository, new InvoiceProperties());
+
+
+        assertThrows(SnapshotUnavailableException.class, () -> fresh.getSalesReport(null));
+    }
+
+    @Test
+    void deleteStaleFiles_OnStartup_DeletesLeftoverSnapshotsAndColumnsOnly(@TempDir Path directory) throws IOException {
+
+        Path snapshot = Files.createFile(directory.resolve("order-items-123.snapshot"));
+        Path column = Files.createFile(directory.resolve("column-456.tmp"));
+        Path unrelated = Files.createFile(directory.resolve("notes.txt"));
+        InvoiceProperties invoiceProperties = new InvoiceProperties();
+        invoiceProperties.getSnapshot().setDirectory(directory);
+
+
+        new OrderSnapshotService(exportRepository, invoiceProperties).deleteStaleFiles();
+
+
+        assertFalse(Files.exists(snapshot));
+        assertFalse(Files.exists(column));
+        assertTrue(Files.exists(unrelated));
+    }
+
+    private static CategorySales category(SalesReport report, String category) {
+        return report.getCategories().stream()
+                .filter(sales -> sales.getCategory().equals(category))
+                .findFirst()
+                .orElseThrow();
+    }
+}
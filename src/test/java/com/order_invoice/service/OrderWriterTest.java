@@ -0,0 +1,61 @@
+package com.order_invoice.service;
+
+import com.order_invoice.entity.CustomerOrder;
+import com.order_invoice.entity.InvoiceItem;
+import com.order_invoice.entity.OrderItem;
+import com.order_invoice.repository.CustomerOrderRepository;
+import com.order_invoice.repository.OrderRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderWriterTest {
+
+    @Mock
+    private CustomerOrderRepository customerOrderRepository;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private CategorySummaryService categorySummaryService;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private InvoiceMetrics invoiceMetrics = new InvoiceMetrics(meterRegistry);
+
+    @InjectMocks
+    private OrderWriter orderWriter;
+
+    @Test
+    void persist_SavesHeadersItemsAndSummaries() {
+
+        OrderItem laptop = new OrderItem(null, "Laptop", "Electronics", 1, 5_000_000);
+        OrderItem mouse = new OrderItem(null, "Mouse", "Electronics", 5, 100_000);
+        List<CustomerOrder> orders = List.of(new CustomerOrder(null, List.of(laptop), 5_900_000),
+                new CustomerOrder(null, List.of(mouse), 531_000));
+        List<InvoiceItem> invoiceItems = List.of(new InvoiceItem("Laptop", "Electronics", 1, 5_000_000, 5_900_000),
+                new InvoiceItem("Mouse", "Electronics", 5, 100_000, 531_000));
+
+
+        orderWriter.persist(orders, invoiceItems);
+
+
+        verify(customerOrderRepository, times(1)).saveAll(orders);
+        verify(orderRepository, times(1)).saveAll(List.of(laptop, mouse));
+        verify(categorySummaryService, times(1)).record(invoiceItems);
+        assertEquals(1, meterRegistry.get("invoice.persist").timer().count());
+    }
+}
@@ -0,0 +1,113 @@
+package com.order_invoice.service;
+
+import com.order_invoice.config.InvoiceProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaxRateRegistryTest {
+
+    private TaxRateRegistry taxRateRegistry;
+
+    @BeforeEach
+    void setUp() {
+        taxRateRegistry = new TaxRateRegistry(new InvoiceProperties());
+    }
+
+    @Test
+    void getTaxRate_DefaultRates_AreCaseInsensitive() {
+
+        assertEquals(0.18, taxRateRegistry.getTaxRate("Electronics"), 0.001);
+        assertEquals(0.12, taxRateRegistry.getTaxRate("cLoThInG"), 0.001);
+        assertEquals(0.05, taxRateRegistry.getTaxRate("GROCERY"), 0.001);
+        assertEquals(0.0, taxRateRegistry.getTaxRate("Furniture"), 0.001);
+        assertEquals(0.0, taxRateRegistry.getTaxRate(null), 0.001);
+    }
+
+    @Test
+    void categoryId_InternsEachCategoryToADistinctSmallId() {
+
+        TaxRateTable table = taxRateRegistry.getTable();
+
+
+        int electronics = table.categoryId("ELECTRONICS");
+
+
+        assertEquals(electronics, table.categoryId("electronics"));
+        assertEquals("electronics", table.category(electronics));
+        assertNotEquals(electronics, table.categoryId("Clothing"));
+        assertTrue(electronics >= 0 && electronics < table.size());
+        assertEquals(TaxRateTable.UNKNOWN_CATEGORY, table.categoryId("Unknown"));
+    }
+
+    @Test
+    void reload_SwapsTable() {
+
+        taxRateRegistry.reload(Map.of("Electronics", 0.2, "Books", 0.03));
+
+
+        assertEquals(0.2, taxRateRegistry.getTaxRate("electronics"), 0.001);
+        assertEquals(0.03, taxRateRegistry.getTaxRate("BOOKS"), 0.001);
+        assertEquals(0.0, taxRateRegistry.getTaxRate("Clothing"), 0.001);
+    }
+
+    @Test
+    void reload_TurkishDefaultLocale_StillMatchesUppercaseCategories() {
+
+        Locale defaultLocale = Locale.getDefault();
+        try {
+            Locale.setDefault(Locale.forLanguageTag("tr-TR"));
+            taxRateRegistry.reload(Map.of("CLOTHING", 0.12));
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+
+
+        assertEquals(0.12, taxRateRegistry.getTaxRate("clothing"), 0.001);
+    }
+
+    @Test
+    void reload_CategoriesDifferingOnlyInCase_ThrowsIllegalArgumentException() {
+
+        Map<String, Double> rates = new LinkedHashMap<>();
+        rates.put("Electronics", 0.18);
+        rates.put("ELECTRONICS", 0.2);
+
+
+        assertThrows(IllegalArgumentException.class, () -> taxRateRegistry.reload(rates));
+        assertEquals(0.18, taxRateRegistry.getTaxRate("Electronics"), 0.001);
+    }
+
+    @Test
+    void reload_InvalidRate_KeepsCurrentTable() {
+
+        assertThrows(IllegalArgumentException.class,
+                () -> taxRateRegistry.reload(Map.of("Electronics", -0.1)));
+
+
+        assertEquals(0.18, taxRateRegistry.getTaxRate("Electronics"), 0.001);
+    }
+
+    @Test
+    void categoryId_ManyCategories_ResolvesEveryOne() {
+
+        Map<String, Double> rates = new HashMap<>();
+        for (int i = 0; i < 500; i++) {
+            rates.put("Category" + i, i / 1000.0);
+        }
+
+
+        TaxRateTable table = taxRateRegistry.reload(rates);
+
+
+        for (int i = 0; i < 500; i++) {
+            assertEquals(i / 1000.0, table.rate("CATEGORY" + i), 0.0001);
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.order_invoice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.order_invoice.config.InvoiceProperties;
+import com.order_invoice.entity.CustomerOrder;
+import com.order_invoice.entity.InvoiceItem;
+import com.order_invoice.entity.InvoiceResponse;
+import com.order_invoice.exception.WriteBehindQueueFullException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WriteBehindQueueTest {
+
+    @Mock
+    private OrderWriter orderWriter;
+
+    @TempDir
+    private Path dir;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private InvoiceProperties invoiceProperties;
+
+    private WriteBehindQueue writeBehindQueue;
+
+    private Path journal;
+
+    @BeforeEach
+    void setUp() {
+        journal = dir.resolve("journal.ndjson");
+        invoiceProperties = new InvoiceProperties();
+        invoiceProperties.getPersistence().setMode(InvoiceProperties.Persistence.Mode.WRITE_BEHIND);
+        invoiceProperties.getPersistence().getWriteBehind().setJournal(journal);
+        invoiceProperties.getPersistence().getWriteBehind().setDeadLetter(dir.resolve("dead-letter.ndjson"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (writeBehindQueue != null && writeBehindQueue.isRunning()) {
+            writeBehindQueue.stop();
+        }
+    }
+
+    @Test
+    void submit_WritesQueuedOrdersAndEmptiesJournal() throws Exception {
+
+        start();
+
+
+        writeBehindQueue.submit(null, invoice(5_900_000));
+        writeBehindQueue.submit(null, invoice(168_000));
+        writeBehindQueue.stop();
+
+
+        ArgumentCaptor<List<CustomerOrder>> orders = ArgumentCaptor.captor();
+        verify(orderWriter, atLeastOnce()).persist(orders.capture(), anyList());
+        assertEquals(List.of(5_900_000L, 168_000L), orders.getAllValues().stream()
+                .flatMap(List::stream)
+                .map(CustomerOrder::getGrandTotal)
+                .toList());
+        assertEquals(0, Files.size(journal));
+    }
+
+    @Test
+    void submit_ConcurrentWithFsync_WritesEveryOrder() throws Exception {
+
+        invoiceProperties.getPersistence().getWriteBehind().setFsync(true);
+        start();
+
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 1; i <= 200; i++) {
+                long total = i;
+                executor.submit(() -> writeBehindQueue.submit(null, invoice(total)));
+            }
+        }
+        writeBehindQueue.stop();
+
+
+        ArgumentCaptor<List<CustomerOrder>> orders = ArgumentCaptor.captor();
+        verify(orderWriter, atLeastOnce()).persist(orders.capture(), anyList());
+        assertEquals(200 * 201 / 2, orders.getAllValues().stream()
+                .flatMap(List::stream)
+                .mapToLong(CustomerOrder::getGrandTotal)
+                .sum());
+        assertEquals(0, Files.size(journal));
+    }
+
+    @Test
+    void submit_OrderRejectedByDatabase_MovesToDeadLetterFile() throws Exception {
+
+        doThrow(new DataIntegrityViolationException("check constraint")).when(orderWriter).persist(anyList(), anyList());
+        start();
+
+
+        writeBehindQueue.submit(null, invoice(5_900_000));
+        writeBehindQueue.stop();
+
+
+        List<String> deadLetters = Files.readAllLines(dir.resolve("dead-letter.ndjson"));
+        assertEquals(1, deadLetters.size());
+        assertTrue(deadLetters.get(0).contains("\"grandTotal\":5900000"));
+        assertEquals(0, Files.size(journal));
+    }
+
+    @Test
+    void submit_JournalPastCompactSize_KeepsOnlyUnwrittenOrders() throws Exception {
+
+        invoiceProperties.getPersistence().getWriteBehind().setJournalCompactSize(DataSize.ofBytes(1));
+        // The first order keeps failing until shutdown gives up on it; the rest are written after that
+        doAnswer(invocation -> {
+            List<CustomerOrder> orders = invocation.getArgument(0);
+            if (orders.stream().anyMatch(order -> order.getGrandTotal() == 100)) {
+                throw new DataAccessResourceFailureException("database down");
+            }
+            return null;
+        }).when(orderWriter).persist(anyList(), anyList());
+        start();
+
+
+        writeBehindQueue.submit(null, invoice(100));
+        verify(orderWriter, timeout(5_000).atLeast(2)).persist(anyList(), anyList());
+        for (int i = 0; i < 20; i++) {
+            writeBehindQueue.submit(null, invoice(200));
+        }
+        writeBehindQueue.stop();
+
+
+        List<String> lines = Files.readAllLines(journal);
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).startsWith("{\"seq\":1,"));
+        assertFalse(Files.exists(dir.resolve("dead-letter.ndjson")));
+    }
+
+    @Test
+    void submit_DatabaseDownThenBack_RetriesUntilWritten() throws Exception {
+
+        invoiceProperties.getPersistence().getWriteBehind().setRetryBackoff(Duration.ofMillis(10));
+        doThrow(new DataAccessResourceFailureException("database down"))
+                .doThrow(new DataAccessResourceFailureException("database down"))
+                .doThrow(new DataAccessResourceFailureException("database down"))
+                .doNothing()
+                .when(orderWriter).persist(anyList(), anyList());
+        start();
+
+
+        writeBehindQueue.submit(null, invoice(100));
+        verify(orderWriter, timeout(5_000).times(4)).persist(anyList(), anyList());
+        writeBehindQueue.stop();
+
+
+        assertEquals(0, Files.size(journal));
+        assertFalse(Files.exists(dir.resolve("dead-letter.ndjson")));
+    }
+
+    @Test
+    void start_ReplaysOnlyUnwrittenOrders() throws Exception {
+
+        Files.writeString(journal, """
+                {"seq":1,"grandTotal":5900000,"items":[{"productName":"Laptop","category":"Electronics","quantity":1,"unitPrice":50000.00,"lineTotal":59000.00}]}
+                {"seq":2,"grandTotal":168000,"items":[{"productName":"T-Shirt","category":"Clothing","quantity":3,"unitPrice":500.00,"lineTotal":1680.00}]}
+                {"done":[1]}
+                {"seq":3,"grandTo""");
+
+
+        start();
+
+
+        ArgumentCaptor<List<CustomerOrder>> orders = ArgumentCaptor.captor();
+        verify(orderWriter, times(1)).persist(orders.capture(), anyList());
+        CustomerOrder replayed = orders.getValue().get(0);
+        assertEquals(1, orders.getValue().size());
+        assertEquals(168_000, replayed.getGrandTotal());
+        assertEquals("T-Shirt", replayed.getItems().get(0).getProductName());
+        assertEquals(168_000, replayed.getItems().get(0).getLineTotal());
+        assertEquals(0, Files.size(journal));
+    }
+
+    @Test
+    void submit_QueueFull_RejectsAfterTimeout() throws Exception {
+
+        invoiceProperties.getPersistence().getWriteBehind().setQueueCapacity(1);
+        invoiceProperties.getPersistence().getWriteBehind().setOfferTimeout(Duration.ofMillis(10));
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            writing.countDown();
+            release.await();
+            return null;
+        }).when(orderWriter).persist(anyList(), anyList());
+        start();
+
+        writeBehindQueue.submit(null, invoice(100));
+        writing.await();
+        writeBehindQueue.submit(null, invoice(200));
+
+
+        assertThrows(WriteBehindQueueFullException.class, () -> writeBehindQueue.submit(null, invoice(300)));
+
+
+        assertEquals(1, meterRegistry.get("invoice.writebehind.rejections").counter().count());
+        release.countDown();
+        writeBehindQueue.stop();
+        verify(orderWriter, times(2)).persist(anyList(), anyList());
+        assertEquals(0, Files.size(journal));
+    }
+
+    private void start() {
+        writeBehindQueue = new WriteBehindQueue(orderWriter, new ObjectMapper(), new InvoiceMetrics(meterRegistry),
+                invoiceProperties);
+        writeBehindQueue.start();
+    }
+
+    private static InvoiceResponse invoice(long total) {
+        return new InvoiceResponse(List.of(new InvoiceItem("Item", "Grocery", 1, total, total)), total);
+    }
+}